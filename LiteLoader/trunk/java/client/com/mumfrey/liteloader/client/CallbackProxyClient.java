@@ -10,7 +10,6 @@ import net.minecraft.client.renderer.EntityRenderer;
 import net.minecraft.client.renderer.OpenGlHelper;
 import net.minecraft.client.renderer.RenderGlobal;
 import net.minecraft.client.renderer.entity.Render;
-import net.minecraft.client.renderer.entity.RenderManager;
 import net.minecraft.client.shader.Framebuffer;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayer;
@@ -190,14 +189,14 @@ public abstract class CallbackProxyClient extends CallbackProxyCommon
 		CallbackProxyClient.clientEventBroker.onScreenshot(e, name, width, height, fbo);
 	}
 	
-	public static void onRenderEntity(ReturnEventInfo<RenderManager, Boolean> e, Entity entity, double xPos, double yPos, double zPos, float yaw, float partialTicks, boolean hideBoundingBox, Render render)
+	public static void onRenderEntity(Entity entity, double xPos, double yPos, double zPos, float yaw, float partialTicks, boolean hideBoundingBox, Render render)
 	{
-		CallbackProxyClient.clientEventBroker.onRenderEntity(e.getSource(), entity, xPos, yPos, zPos, yaw, partialTicks, render);
+		CallbackProxyClient.clientEventBroker.onRenderEntity(entity, xPos, yPos, zPos, yaw, partialTicks, render);
 	}
 	
-	public static void onPostRenderEntity(ReturnEventInfo<RenderManager, Boolean> e, Entity entity, double xPos, double yPos, double zPos, float yaw, float partialTicks, boolean hideBoundingBox, Render render)
+	public static void onPostRenderEntity(Entity entity, double xPos, double yPos, double zPos, float yaw, float partialTicks, boolean hideBoundingBox, Render render)
 	{
-		CallbackProxyClient.clientEventBroker.onPostRenderEntity(e.getSource(), entity, xPos, yPos, zPos, yaw, partialTicks, render);
+		CallbackProxyClient.clientEventBroker.onPostRenderEntity(entity, xPos, yPos, zPos, yaw, partialTicks, render);
 	}
 	
 	/**
@@ -85,7 +85,7 @@ public class ClientPluginChannelsClient extends ClientPluginChannels
 	@Override
 	protected boolean send(String channel, PacketBuffer data, ChannelPolicy policy)
 	{
-		if (channel == null || channel.length() > 16 || CHANNEL_REGISTER.equals(channel) || CHANNEL_UNREGISTER.equals(channel))
+		if (channel == null || channel.length() > 16 || ClientPluginChannels.isReservedChannel(channel))
 			throw new RuntimeException("Invalid channel name specified"); 
 		
 		if (!policy.allows(this, channel))
@@ -97,6 +97,15 @@ public class ClientPluginChannelsClient extends ClientPluginChannels
 		C17PacketCustomPayload payload = new C17PacketCustomPayload(channel, data);
 		return ClientPluginChannelsClient.dispatch(payload);
 	}
+	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.core.ClientPluginChannels#sendQueued(java.lang.String, net.minecraft.network.PacketBuffer)
+	 */
+	@Override
+	protected boolean sendQueued(String channel, PacketBuffer data)
+	{
+		return ClientPluginChannelsClient.dispatch(new C17PacketCustomPayload(channel, data));
+	}
 
 	/**
 	 * @param payload
@@ -6,7 +6,6 @@ import net.minecraft.client.gui.GuiNewChat;
 import net.minecraft.client.gui.ScaledResolution;
 import net.minecraft.client.renderer.RenderGlobal;
 import net.minecraft.client.renderer.entity.Render;
-import net.minecraft.client.renderer.entity.RenderManager;
 import net.minecraft.client.resources.IResourceManager;
 import net.minecraft.client.resources.IResourceManagerReloadListener;
 import net.minecraft.client.shader.Framebuffer;
@@ -27,8 +26,9 @@ import com.mumfrey.liteloader.core.InterfaceRegistrationDelegate;
 import com.mumfrey.liteloader.core.LiteLoader;
 import com.mumfrey.liteloader.core.LiteLoaderEventBroker;
 import com.mumfrey.liteloader.core.event.HandlerList;
+import com.mumfrey.liteloader.core.event.InterfaceGuards;
 import com.mumfrey.liteloader.core.event.HandlerList.ReturnLogicOp;
-import com.mumfrey.liteloader.core.event.ProfilingHandlerList;
+import com.mumfrey.liteloader.core.event.TimedHandlerList;
 import com.mumfrey.liteloader.interfaces.FastIterableDeque;
 import com.mumfrey.liteloader.launch.LoaderProperties;
 import com.mumfrey.liteloader.transformers.event.EventInfo;
@@ -88,7 +88,7 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 		LiteLoaderEventBrokerClient.instance = this;
 		
 		this.engineClient = (GameEngineClient)engine;
-		this.tickListeners = new ProfilingHandlerList<Tickable>(Tickable.class, this.engineClient.getProfiler());
+		this.tickListeners = new TimedHandlerList<Tickable>(Tickable.class, this.engineClient.getProfiler());
 	}
 	
 	static LiteLoaderEventBrokerClient getInstance()
@@ -148,6 +148,7 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	public void addLoopListener(GameLoopListener loopListener)
 	{
 		this.loopListeners.add(loopListener);
+		InterfaceGuards.activate(GameLoopListener.class);
 	}
 	
 	/**
@@ -164,6 +165,7 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	public void addRenderListener(RenderListener renderListener)
 	{
 		this.renderListeners.add(renderListener);
+		InterfaceGuards.activate(RenderListener.class);
 	}
 	
 	/**
@@ -172,6 +174,7 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	public void addPreRenderListener(PreRenderListener preRenderListener)
 	{
 		this.preRenderListeners.add(preRenderListener);
+		InterfaceGuards.activate(PreRenderListener.class);
 	}
 	
 	/**
@@ -180,6 +183,7 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	public void addPostRenderListener(PostRenderListener postRenderListener)
 	{
 		this.postRenderListeners.add(postRenderListener);
+		InterfaceGuards.activate(PostRenderListener.class);
 	}
 	
 	/**
@@ -188,6 +192,7 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	public void addChatRenderListener(ChatRenderListener chatRenderListener)
 	{
 		this.chatRenderListeners.add(chatRenderListener);
+		InterfaceGuards.activate(ChatRenderListener.class);
 	}
 	
 	/**
@@ -196,6 +201,7 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	public void addHUDRenderListener(HUDRenderListener hudRenderListener)
 	{
 		this.hudRenderListeners.add(hudRenderListener);
+		InterfaceGuards.activate(HUDRenderListener.class);
 	}
 
 	/**
@@ -244,6 +250,7 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	public void addEntityRenderListener(EntityRenderListener entityRenderListener)
 	{
 		this.entityRenderListeners.add(entityRenderListener);
+		InterfaceGuards.activate(EntityRenderListener.class);
 	}
 
 	/**
@@ -531,7 +538,6 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	}
 
 	/**
-	 * @param source
 	 * @param entity
 	 * @param xPos
 	 * @param yPos
@@ -540,13 +546,12 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	 * @param partialTicks
 	 * @param render 
 	 */
-	public void onRenderEntity(RenderManager source, Entity entity, double xPos, double yPos, double zPos, float yaw, float partialTicks, Render render)
+	public void onRenderEntity(Entity entity, double xPos, double yPos, double zPos, float yaw, float partialTicks, Render render)
 	{
 		this.entityRenderListeners.all().onRenderEntity(render, entity, xPos, yPos, zPos, yaw, partialTicks);
 	}
 
 	/**
-	 * @param source
 	 * @param entity
 	 * @param xPos
 	 * @param yPos
@@ -555,7 +560,7 @@ public class LiteLoaderEventBrokerClient extends LiteLoaderEventBroker<Minecraft
 	 * @param partialTicks
 	 * @param render 
 	 */
-	public void onPostRenderEntity(RenderManager source, Entity entity, double xPos, double yPos, double zPos, float yaw, float partialTicks, Render render)
+	public void onPostRenderEntity(Entity entity, double xPos, double yPos, double zPos, float yaw, float partialTicks, Render render)
 	{
 		this.entityRenderListeners.all().onPostRenderEntity(render, entity, xPos, yPos, zPos, yaw, partialTicks);
 	}
@@ -30,6 +30,15 @@ public class CrashReportTransformer extends ClassTransformer
 		return basicClass;
 	}
 	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.ClassTransformer#isPipelineCompatible()
+	 */
+	@Override
+	protected boolean isPipelineCompatible()
+	{
+		return true;
+	}
+	
 	/**
 	 * Inject the additional callback for populating the crash report into the CallableJVMFlags class
 	 * 
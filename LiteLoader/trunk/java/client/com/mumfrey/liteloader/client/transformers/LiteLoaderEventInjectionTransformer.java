@@ -57,10 +57,28 @@ public class LiteLoaderEventInjectionTransformer extends LiteLoaderEventTransfor
 		Event onStartupComplete                = Event.getOrCreate("onStartupComplete",            false);
 		Event onSessionProfileBad              = Event.getOrCreate("onSessionProfileBad",          true);
 		Event onSaveScreenshot                 = Event.getOrCreate("onSaveScreenshot",             true);
-		Event onRenderEntity                   = Event.getOrCreate("onRenderEntity",               false);
-		Event onPostRenderEntity               = Event.getOrCreate("onPostRenderEntity",           false);
+		Event onRenderEntity                   = RenderEntityEvent.getOrCreateDirect("onRenderEntityDirect");
+		Event onPostRenderEntity               = RenderEntityEvent.getOrCreateDirect("onPostRenderEntityDirect");
 		Event onJoinRealm                      = Event.getOrCreate("onJoinRealm",                  false);
 		
+		// Guards, these events are skipped entirely until a listener for one of the interfaces is registered
+		onTimerUpdate         .setGuard(Obf.GameLoopListener.name);
+		onRender              .setGuard(Obf.RenderListener.name);
+		preRenderGUI          .setGuard(Obf.RenderListener.name);
+		onRenderWorld         .setGuard(Obf.RenderListener.name, Obf.PreRenderListener.name);
+		onSetupCameraTransform.setGuard(Obf.RenderListener.name, Obf.PreRenderListener.name);
+		onRenderSky           .setGuard(Obf.PreRenderListener.name);
+		onRenderClouds        .setGuard(Obf.PreRenderListener.name);
+		onRenderTerrain       .setGuard(Obf.PreRenderListener.name);
+		postRenderEntities    .setGuard(Obf.PostRenderListener.name);
+		postRender            .setGuard(Obf.PostRenderListener.name);
+		onRenderHUD           .setGuard(Obf.HUDRenderListener.name);
+		postRenderHUD         .setGuard(Obf.HUDRenderListener.name);
+		onRenderChat          .setGuard(Obf.ChatRenderListener.name);
+		postRenderChat        .setGuard(Obf.ChatRenderListener.name);
+		onRenderEntity        .setGuard(Obf.EntityRenderListener.name);
+		onPostRenderEntity    .setGuard(Obf.EntityRenderListener.name);
+		
 		// Injection Points
 		InjectionPoint methodHead              = new MethodHead();
 		InjectionPoint methodReturn            = new BeforeReturn();
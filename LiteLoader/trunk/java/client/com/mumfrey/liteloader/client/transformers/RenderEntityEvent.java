@@ -0,0 +1,51 @@
+package com.mumfrey.liteloader.client.transformers;
+
+import com.mumfrey.liteloader.transformers.event.Event;
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
+
+/**
+ * Direct event used for the per-entity render hooks. These fire for every entity in every frame so the handler receives
+ * the arguments directly rather than via an EventInfo, the events are also guarded by EntityRenderListener so that they
+ * are skipped entirely until a listener is registered. The events have their own names so that they don't collide with
+ * any EventInfo events which other transformers define at the same point.
+ * 
+ * @author Adam Mummery-Smith
+ */
+public class RenderEntityEvent extends Event
+{
+	RenderEntityEvent(String name)
+	{
+		super(name, false, 1000);
+		this.verbose = false;
+	}
+	
+	/**
+	 * Get the direct event with the specified name, creating it if it doesn't exist
+	 * 
+	 * @param name
+	 */
+	static Event getOrCreateDirect(String name)
+	{
+		Event event = Event.getEvent(name);
+		if (event == null)
+		{
+			return new RenderEntityEvent(name);
+		}
+		
+		if (!(event instanceof RenderEntityEvent))
+		{
+			LiteLoaderLogger.warning("Event %s was already defined as an ordinary event, entity render callbacks may not be delivered", name);
+		}
+		
+		return event;
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.event.Event#hasEventInfo()
+	 */
+	@Override
+	protected boolean hasEventInfo()
+	{
+		return false;
+	}
+}
@@ -0,0 +1,34 @@
+package com.mumfrey.liteloader;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+
+import com.mumfrey.liteloader.util.MutablePosition;
+
+/**
+ * Variant of PlayerMoveListener which receives the coordinates directly rather than as Position objects, so that no
+ * objects need to be allocated for each movement packet. New mods should prefer this interface.
+ * 
+ * @author Adam Mummery-Smith
+ */
+public interface PlayerMoveCoordinateListener extends LiteMod
+{
+	/**
+	 * Called when a movement/look packet is received from the client. The player's previous rotation is available in
+	 * playerMP.prevRotationYaw and playerMP.prevRotationPitch.
+	 * 
+	 * @param playerMP Player moving
+	 * @param fromX Player's previous recorded position
+	 * @param fromY
+	 * @param fromZ
+	 * @param toX Position the player is attempting to move to
+	 * @param toY
+	 * @param toZ
+	 * @param toYaw
+	 * @param toPitch
+	 * @param newPos Call newPos.set() to teleport the player to newPos instead of processing the original move. This
+	 * 		object is reused for subsequent packets so do not keep a reference to it
+	 * 
+	 * @return false to cancel the event or true to allow the movement to be processed as normal or newPos to be applied
+	 */
+	public abstract boolean onPlayerMove(EntityPlayerMP playerMP, double fromX, double fromY, double fromZ, double toX, double toY, double toZ, float toYaw, float toPitch, MutablePosition newPos);
+}
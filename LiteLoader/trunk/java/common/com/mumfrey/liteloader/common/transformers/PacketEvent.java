@@ -1,9 +1,12 @@
 package com.mumfrey.liteloader.common.transformers;
 
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InsnNode;
 import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
 import org.objectweb.asm.tree.LdcInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.VarInsnNode;
@@ -41,6 +44,21 @@ public class PacketEvent extends Event
 		return "com/mumfrey/liteloader/common/transformers/PacketEventInfo";
 	}
 	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.event.Event#injectGuard(org.objectweb.asm.tree.InsnList, org.objectweb.asm.tree.LabelNode)
+	 */
+	@Override
+	protected boolean injectGuard(InsnList insns, LabelNode skipEvent)
+	{
+		// if (!PacketEvents.interestedPackets[packetIndex]) skip the event
+		insns.add(new FieldInsnNode(Opcodes.GETSTATIC, Obf.PacketEvents.ref, "interestedPackets", "[Z"));
+		insns.add(new IntInsnNode(Opcodes.BIPUSH, this.packetIndex));
+		insns.add(new InsnNode(Opcodes.BALOAD));
+		insns.add(new JumpInsnNode(Opcodes.IFEQ, skipEvent));
+		
+		return true;
+	}
+	
 	/* (non-Javadoc)
 	 * @see com.mumfrey.liteloader.transformers.event.Event#invokeEventInfoConstructor(org.objectweb.asm.tree.InsnList, boolean)
 	 */
@@ -1,5 +1,12 @@
 package com.mumfrey.liteloader.core;
 
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import net.minecraft.network.INetHandler;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.network.play.server.S3FPacketCustomPayload;
@@ -18,8 +25,144 @@ import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
  */
 public abstract class ClientPluginChannels extends PluginChannels<PluginChannelListener>
 {
+	/**
+	 * Maximum number of queued messages per channel, further messages are dropped
+	 */
+	public static final int QUEUE_CAPACITY = 256;
+	
+	/**
+	 * Queued messages up to this size are eligible to be batched with other small messages
+	 */
+	private static final int MAX_BATCHED_MESSAGE_SIZE = 1024;
+	
+	/**
+	 * Maximum size of a batch payload, kept comfortably below the custom payload size limit
+	 */
+	private static final int MAX_BATCH_SIZE = 30000;
+	
+	/**
+	 * A message waiting in an outbound queue
+	 */
+	private static final class QueuedMessage
+	{
+		final PacketBuffer data;
+		
+		final ChannelPolicy policy;
+		
+		QueuedMessage(PacketBuffer data, ChannelPolicy policy)
+		{
+			this.data = data;
+			this.policy = policy;
+		}
+	}
+	
+	/**
+	 * Outbound queue for a single channel. Any thread may add messages, the queue is drained on the game thread.
+	 */
+	private static final class OutboundQueue
+	{
+		private final String channel;
+		
+		private LinkedList<QueuedMessage> messages = new LinkedList<QueuedMessage>();
+		
+		/**
+		 * The replaceable message currently in the queue, if any
+		 */
+		private QueuedMessage replaceable;
+		
+		private int dropped;
+		
+		/**
+		 * True once discarded messages on this channel have been logged for the current connection
+		 */
+		private boolean discardLogged;
+		
+		OutboundQueue(String channel)
+		{
+			this.channel = channel;
+		}
+		
+		synchronized boolean offer(QueuedMessage message, boolean replaceable)
+		{
+			if (replaceable && this.replaceable != null)
+			{
+				// Last value wins, the new message takes the place of the old one at the back of the queue so that it is
+				// still sent after any messages which were queued before it
+				this.messages.remove(this.replaceable);
+				this.replaceable = null;
+			}
+			
+			if (this.messages.size() >= ClientPluginChannels.QUEUE_CAPACITY)
+			{
+				if (this.dropped++ == 0)
+				{
+					LiteLoaderLogger.warning("Outbound queue for plugin channel %s is full, queued messages are being dropped", this.channel);
+				}
+				return false;
+			}
+			
+			this.messages.add(message);
+			if (replaceable) this.replaceable = message;
+			return true;
+		}
+		
+		synchronized List<QueuedMessage> drain()
+		{
+			if (this.dropped > 0)
+			{
+				LiteLoaderLogger.warning("Dropped %d message(s) on plugin channel %s because the outbound queue was full", this.dropped, this.channel);
+				this.dropped = 0;
+			}
+			
+			List<QueuedMessage> messages = this.messages;
+			this.messages = new LinkedList<QueuedMessage>();
+			this.replaceable = null;
+			return messages;
+		}
+		
+		synchronized boolean isEmpty()
+		{
+			return this.messages.isEmpty();
+		}
+		
+		/**
+		 * Returns true the first time it is called for the current connection, so that discarded messages are only
+		 * logged once per channel
+		 */
+		synchronized boolean shouldLogDiscard()
+		{
+			if (this.discardLogged) return false;
+			this.discardLogged = true;
+			return true;
+		}
+		
+		synchronized void clear()
+		{
+			this.messages.clear();
+			this.replaceable = null;
+			this.dropped = 0;
+			this.discardLogged = false;
+		}
+	}
+	
 	private static ClientPluginChannels instance;
 	
+	/**
+	 * Outbound queues, created on demand
+	 */
+	private final ConcurrentMap<String, OutboundQueue> outboundQueues = new ConcurrentHashMap<String, OutboundQueue>();
+	
+	/**
+	 * Set when a message is queued so that the tick doesn't need to visit every queue when nothing is waiting
+	 */
+	private final AtomicBoolean outboundPending = new AtomicBoolean();
+	
+	/**
+	 * Thread which drains the outbound queues, messages sent from any other thread are queued. The channels are created
+	 * during startup on the game thread.
+	 */
+	private volatile Thread gameThread = Thread.currentThread();
+	
 	protected ClientPluginChannels()
 	{
 		if (ClientPluginChannels.instance != null) throw new RuntimeException("Plugin Channels Startup Error", new InstantiationException("Only a single instance of ClientPluginChannels is allowed"));
@@ -67,6 +210,21 @@ public abstract class ClientPluginChannels extends PluginChannels<PluginChannelL
 	{
 		super.addPluginChannelListener(pluginChannelListener);
 	}
+	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.core.PluginChannels#clearPluginChannels(net.minecraft.network.INetHandler)
+	 */
+	@Override
+	protected void clearPluginChannels(INetHandler netHandler)
+	{
+		super.clearPluginChannels(netHandler);
+		
+		// Messages queued for the previous connection
+		for (OutboundQueue queue : this.outboundQueues.values())
+		{
+			queue.clear();
+		}
+	}
 
 	/**
 	 * Callback for the plugin channel hook
@@ -85,6 +243,16 @@ public abstract class ClientPluginChannels extends PluginChannels<PluginChannelL
 		{
 			this.onRegisterPacketReceived(data);
 		}
+		else if (PluginChannels.CHANNEL_BATCH.equals(channel))
+		{
+			for (BatchedMessage message : PluginChannels.readBatch(data))
+			{
+				if (!PluginChannels.isReservedChannel(message.channel))
+				{
+					this.onPluginChannelMessage(message.channel, message.data);
+				}
+			}
+		}
 		else if (this.pluginChannels.containsKey(channel))
 		{
 			try
@@ -92,7 +260,7 @@ public abstract class ClientPluginChannels extends PluginChannels<PluginChannelL
 				PermissionsManagerClient permissionsManager = LiteLoader.getClientPermissionsManager();
 				if (permissionsManager != null)
 				{
-					permissionsManager.onCustomPayload(channel, data);
+					permissionsManager.onCustomPayload(channel, PluginChannels.getReadOnlySlice(data));
 				}
 			}
 			catch (Exception ex) {}
@@ -111,24 +279,11 @@ public abstract class ClientPluginChannels extends PluginChannels<PluginChannelL
 		{
 			try
 			{
-				pluginChannelListener.onCustomPayload(channel, data);
-				throw new RuntimeException();
+				pluginChannelListener.onCustomPayload(channel, PluginChannels.getReadOnlySlice(data));
 			}
 			catch (Exception ex)
 			{
-				int failCount = 1;
-				if (this.faultingPluginChannelListeners.containsKey(pluginChannelListener))
-					failCount = this.faultingPluginChannelListeners.get(pluginChannelListener).intValue() + 1;
-				
-				if (failCount >= PluginChannels.WARN_FAULT_THRESHOLD)
-				{
-					LiteLoaderLogger.warning("Plugin channel listener %s exceeded fault threshold on channel %s with %s", pluginChannelListener.getName(), channel, ex.getClass().getSimpleName());
-					this.faultingPluginChannelListeners.remove(pluginChannelListener);
-				}
-				else
-				{
-					this.faultingPluginChannelListeners.put(pluginChannelListener, Integer.valueOf(failCount));
-				}
+				this.onListenerFault(pluginChannelListener, channel, ex);
 			}
 		}
 	}
@@ -165,7 +320,10 @@ public abstract class ClientPluginChannels extends PluginChannels<PluginChannelL
 	protected abstract void sendRegistrationData(INetHandler netHandler, PacketBuffer registrationData);
 
 	/**
-	 * Send a message to the server on a plugin channel
+	 * Send a message to the server on a plugin channel. Messages sent from threads other than the game thread, or on a
+	 * channel which still has queued messages waiting, are queued behind them and sent on the next tick. In that case
+	 * the policy is applied when the message is sent and an unregistered channel causes the message to be discarded
+	 * rather than an exception to be thrown.
 	 * 
 	 * @param channel Channel to send, must not be a reserved channel name
 	 * @param data
@@ -174,11 +332,157 @@ public abstract class ClientPluginChannels extends PluginChannels<PluginChannelL
 	{
 		if (ClientPluginChannels.instance != null)
 		{
+			if (Thread.currentThread() != ClientPluginChannels.instance.gameThread || ClientPluginChannels.instance.hasQueuedMessages(channel))
+			{
+				return ClientPluginChannels.instance.queue(channel, data, policy, false);
+			}
+			
 			return ClientPluginChannels.instance.send(channel, data, policy);
 		}
 		
 		return false;
 	}
+	
+	/**
+	 * Queue a message to be sent to the server on a plugin channel at the start of the next tick, this method can be
+	 * called from any thread. The data must not be modified once it has been queued. The policy is applied when the
+	 * message is sent, messages on channels which the policy does not allow are discarded.
+	 * 
+	 * <p>Messages on the same channel are sent in the order they were queued, but there is no ordering between
+	 * channels. If the server supports it, small messages are combined into a single packet.</p>
+	 * 
+	 * @param channel Channel to send, must not be a reserved channel name
+	 * @param data
+	 * @param policy
+	 * @param replaceable True if this message supersedes any earlier replaceable message on the same channel which has
+	 * 		not been sent yet, for example a message containing the latest value of some state
+	 * @return false if the channel's queue is full and the message was dropped
+	 */
+	public static boolean queueMessage(String channel, PacketBuffer data, ChannelPolicy policy, boolean replaceable)
+	{
+		if (ClientPluginChannels.instance != null)
+		{
+			return ClientPluginChannels.instance.queue(channel, data, policy, replaceable);
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * @param channel
+	 * @param data
+	 * @param policy
+	 * @param replaceable
+	 */
+	protected boolean queue(String channel, PacketBuffer data, ChannelPolicy policy, boolean replaceable)
+	{
+		if (channel == null || channel.length() > 16 || PluginChannels.isReservedChannel(channel))
+			throw new RuntimeException("Invalid channel name specified"); 
+		
+		OutboundQueue queue = this.outboundQueues.get(channel);
+		if (queue == null)
+		{
+			OutboundQueue newQueue = new OutboundQueue(channel);
+			queue = this.outboundQueues.putIfAbsent(channel, newQueue);
+			if (queue == null) queue = newQueue;
+		}
+		
+		if (!queue.offer(new QueuedMessage(data, policy), replaceable))
+		{
+			return false;
+		}
+		
+		this.outboundPending.set(true);
+		return true;
+	}
+	
+	/**
+	 * True if there are messages waiting in the outbound queue for the specified channel
+	 * 
+	 * @param channel
+	 */
+	protected boolean hasQueuedMessages(String channel)
+	{
+		OutboundQueue queue = channel != null ? this.outboundQueues.get(channel) : null;
+		return queue != null && !queue.isEmpty();
+	}
+	
+	/**
+	 * Send queued messages, called on the game thread at the start of each tick
+	 */
+	void onTick()
+	{
+		this.gameThread = Thread.currentThread();
+		
+		if (!this.outboundPending.getAndSet(false))
+		{
+			return;
+		}
+		
+		boolean batching = this.isRemoteChannelRegistered(PluginChannels.CHANNEL_BATCH);
+		List<BatchedMessage> batch = new ArrayList<BatchedMessage>();
+		int batchSize = 0;
+		
+		for (OutboundQueue queue : this.outboundQueues.values())
+		{
+			String channel = queue.channel;
+			boolean discarded = false;
+			
+			for (QueuedMessage message : queue.drain())
+			{
+				if (!message.policy.allows(this, channel))
+				{
+					discarded |= !message.policy.isSilent();
+					continue;
+				}
+				
+				int size = message.data.readableBytes();
+				if (batching && size <= ClientPluginChannels.MAX_BATCHED_MESSAGE_SIZE)
+				{
+					if (batchSize + size + channel.length() + 8 > ClientPluginChannels.MAX_BATCH_SIZE)
+					{
+						this.sendBatch(batch);
+						batchSize = 0;
+					}
+					
+					batch.add(new BatchedMessage(channel, message.data));
+					batchSize += size + channel.length() + 8;
+					continue;
+				}
+				
+				// Earlier messages on this channel may be in the batch, so send it first
+				this.sendBatch(batch);
+				batchSize = 0;
+				this.sendQueued(channel, message.data);
+			}
+			
+			if (discarded && queue.shouldLogDiscard())
+			{
+				LiteLoaderLogger.warning("Discarded queued message(s) on plugin channel %s because the channel is not registered by the server", channel);
+			}
+		}
+		
+		this.sendBatch(batch);
+	}
+
+	/**
+	 * Send and then clear the supplied batch, a batch containing a single message is sent as a normal message
+	 * 
+	 * @param batch
+	 */
+	private void sendBatch(List<BatchedMessage> batch)
+	{
+		if (batch.size() == 1)
+		{
+			this.sendQueued(batch.get(0).channel, batch.get(0).data);
+		}
+		else if (batch.size() > 1)
+		{
+			this.sendQueued(PluginChannels.CHANNEL_BATCH, PluginChannels.writeBatch(batch));
+		}
+		
+		batch.clear();
+	}
 
 	/**
 	 * Send a message to the server on a plugin channel
@@ -187,4 +491,12 @@ public abstract class ClientPluginChannels extends PluginChannels<PluginChannelL
 	 * @param data
 	 */
 	protected abstract boolean send(String channel, PacketBuffer data, ChannelPolicy policy);
+
+	/**
+	 * Send a queued message or batch to the server, the channel has already been validated
+	 * 
+	 * @param channel
+	 * @param data
+	 */
+	protected abstract boolean sendQueued(String channel, PacketBuffer data);
 }
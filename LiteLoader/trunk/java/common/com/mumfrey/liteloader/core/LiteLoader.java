@@ -34,6 +34,7 @@ import com.mumfrey.liteloader.common.LoadingProgress;
 import com.mumfrey.liteloader.core.api.LiteLoaderCoreAPI;
 import com.mumfrey.liteloader.core.event.EventProxy;
 import com.mumfrey.liteloader.core.event.HandlerList;
+import com.mumfrey.liteloader.core.event.TimedHandlerList;
 import com.mumfrey.liteloader.crashreport.CallableLaunchWrapper;
 import com.mumfrey.liteloader.crashreport.CallableLiteLoaderBrand;
 import com.mumfrey.liteloader.crashreport.CallableLiteLoaderMods;
@@ -43,6 +44,7 @@ import com.mumfrey.liteloader.interfaces.LoadableMod;
 import com.mumfrey.liteloader.interfaces.LoaderEnumerator;
 import com.mumfrey.liteloader.interfaces.ObjectFactory;
 import com.mumfrey.liteloader.interfaces.PanelManager;
+import com.mumfrey.liteloader.launch.ClassTransformerManager;
 import com.mumfrey.liteloader.launch.LoaderEnvironment;
 import com.mumfrey.liteloader.launch.LoaderEnvironment.EnvironmentType;
 import com.mumfrey.liteloader.launch.LoaderProperties;
@@ -51,6 +53,7 @@ import com.mumfrey.liteloader.modconfig.ConfigManager;
 import com.mumfrey.liteloader.modconfig.Exposable;
 import com.mumfrey.liteloader.permissions.PermissionsManagerClient;
 import com.mumfrey.liteloader.permissions.PermissionsManagerServer;
+import com.mumfrey.liteloader.transformers.event.EventProfiler;
 import com.mumfrey.liteloader.transformers.event.EventTransformer;
 import com.mumfrey.liteloader.util.Input;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
@@ -520,6 +523,16 @@ public final class LiteLoader
 		if (LiteLoaderLogger.DEBUG)
 		{
 			EventTransformer.dumpInjectionState();
+			
+			ClassTransformerManager transformerManager = LiteLoader.instance.environment.getTransformerManager();
+			if (transformerManager != null)
+			{
+				transformerManager.dumpProfile();
+			}
+			
+			EventProfiler.dump();
+			TimedHandlerList.dump();
+			
 			LiteLoaderLogger.info("Debug info dumped to console");
 		}
 		else
@@ -942,6 +955,19 @@ public final class LiteLoader
 			this.configManager.onTick();
 			this.profiler.endSection();
 			
+			// Deliver messages posted from other threads
+			this.profiler.startSection("messagebus");
+			MessageBus.getInstance().onTick();
+			this.profiler.endSection();
+			
+			// Send plugin channel messages queued since the last tick
+			if (this.clientPluginChannels != null)
+			{
+				this.profiler.startSection("pluginchannels");
+				this.clientPluginChannels.onTick();
+				this.profiler.endSection();
+			}
+			
 			if (!this.engine.isRunning())
 			{
 				this.onShutDown();
@@ -962,7 +988,13 @@ public final class LiteLoader
 		
 		this.shutdownObservers.all().onShutDown();
 
-		this.configManager.syncConfig();
+		this.configManager.shutdown();
+		
+		ClassTransformerManager transformerManager = this.environment.getTransformerManager();
+		if (transformerManager != null)
+		{
+			transformerManager.writeProfile(this.environment.getCommonConfigFolder());
+		}
 	}
 	
 	public static String translate(String key, Object... args)
@@ -33,6 +33,7 @@ import com.mumfrey.liteloader.launch.LoaderBootstrap;
 import com.mumfrey.liteloader.launch.LoaderEnvironment;
 import com.mumfrey.liteloader.launch.LoaderProperties;
 import com.mumfrey.liteloader.launch.StartupEnvironment;
+import com.mumfrey.liteloader.transformers.BakedClassCache;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger.Verbosity;
 
@@ -176,6 +177,8 @@ class LiteLoaderBootstrap implements LoaderBootstrap, LoaderEnvironment, LoaderP
 		if (!this.configBaseFolder.exists()) this.configBaseFolder.mkdirs();
 		if (!this.commonConfigFolder.exists()) this.commonConfigFolder.mkdirs();
 		if (!this.versionConfigFolder.exists()) this.versionConfigFolder.mkdirs();
+		
+		BakedClassCache.init(new File(this.versionConfigFolder, "classcache"), LiteLoaderVersion.CURRENT.getLoaderVersion() + ":" + LiteLoaderVersion.CURRENT.getLoaderRevision());
 
 		this.initAPIs(env.getAPIsToLoad());
 		this.apiProvider = this.apiRegistry.getProvider();
@@ -33,6 +33,7 @@ import com.mumfrey.liteloader.core.event.HandlerList;
 import com.mumfrey.liteloader.interfaces.FastIterableDeque;
 import com.mumfrey.liteloader.interfaces.Injectable;
 import com.mumfrey.liteloader.interfaces.Loadable;
+import com.mumfrey.liteloader.interfaces.LoadableFileIndex;
 import com.mumfrey.liteloader.interfaces.LoadableMod;
 import com.mumfrey.liteloader.interfaces.LoaderEnumerator;
 import com.mumfrey.liteloader.interfaces.TweakContainer;
@@ -77,6 +78,11 @@ public class LiteLoaderEnumerator implements LoaderEnumerator
 		}
 	}
 	
+	/**
+	 * Name of the file to store the mod file index in 
+	 */
+	private static final String FILE_INDEX_FILENAME = "liteloader.index.json";
+	
 	private final LoaderEnvironment environment;
 	
 	private final LoaderProperties properties;
@@ -107,6 +113,11 @@ public class LiteLoaderEnumerator implements LoaderEnumerator
 
 	private final ModClassValidator validator;
 	
+	/**
+	 * Index of inspected mod files, only available during discovery
+	 */
+	private LoadableFileIndex fileIndex;
+	
 	private final FastIterableDeque<EnumerationObserver> observers = new HandlerList<EnumerationObserver>(EnumerationObserver.class);
 	
 	protected EnumeratorState state = EnumeratorState.INIT;
@@ -378,6 +389,11 @@ public class LiteLoaderEnumerator implements LoaderEnumerator
 	{
 		this.gotoState(EnumeratorState.DISCOVER);
 		
+		// The rescan option only applies to the next launch, so reset it once it has been read
+		boolean forceRescan = this.properties.getBooleanProperty(LoaderProperties.OPTION_FORCE_RESCAN);
+		if (forceRescan) this.properties.setBooleanProperty(LoaderProperties.OPTION_FORCE_RESCAN, false);
+		this.fileIndex = LoadableFileIndex.createFrom(new File(this.environment.getVersionedConfigFolder(), LiteLoaderEnumerator.FILE_INDEX_FILENAME), forceRescan);
+		
 		for (EnumeratorModule module : this.modules)
 		{
 			try
@@ -390,6 +406,10 @@ public class LiteLoaderEnumerator implements LoaderEnumerator
 			}
 		}
 		
+		LiteLoaderLogger.info("Mod file index: %d file(s) restored, %d file(s) inspected", this.fileIndex.getHits(), this.fileIndex.getMisses());
+		this.fileIndex.save();
+		this.fileIndex = null;
+		
 		this.checkDependencies();
 	}
 	
@@ -705,6 +725,15 @@ public class LiteLoaderEnumerator implements LoaderEnumerator
 		this.observers.all().onModAdded(this, mod);
 	}
 	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.interfaces.ModularEnumerator#getFileIndex()
+	 */
+	@Override
+	public LoadableFileIndex getFileIndex()
+	{
+		return this.fileIndex;
+	}
+	
 	private boolean checkEnabled(LoadableMod<?> container)
 	{
 		for (EnumeratorPlugin plugin : this.plugins)
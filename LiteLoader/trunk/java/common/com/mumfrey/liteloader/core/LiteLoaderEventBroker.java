@@ -29,6 +29,7 @@ import com.mojang.authlib.GameProfile;
 import com.mumfrey.liteloader.LiteMod;
 import com.mumfrey.liteloader.PlayerInteractionListener;
 import com.mumfrey.liteloader.PlayerInteractionListener.MouseButton;
+import com.mumfrey.liteloader.PlayerMoveCoordinateListener;
 import com.mumfrey.liteloader.PlayerMoveListener;
 import com.mumfrey.liteloader.PluginChannelListener;
 import com.mumfrey.liteloader.ServerCommandProvider;
@@ -43,9 +44,12 @@ import com.mumfrey.liteloader.common.GameEngine;
 import com.mumfrey.liteloader.common.LoadingProgress;
 import com.mumfrey.liteloader.core.event.HandlerList;
 import com.mumfrey.liteloader.core.event.HandlerList.ReturnLogicOp;
+import com.mumfrey.liteloader.core.event.SnapshotHandlerList;
+import com.mumfrey.liteloader.core.event.TimedHandlerList;
 import com.mumfrey.liteloader.interfaces.FastIterable;
 import com.mumfrey.liteloader.interfaces.FastIterableDeque;
 import com.mumfrey.liteloader.launch.LoaderProperties;
+import com.mumfrey.liteloader.util.MutablePosition;
 import com.mumfrey.liteloader.util.Position;
 import com.mumfrey.liteloader.util.PrivateFields;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
@@ -126,7 +130,7 @@ public abstract class LiteLoaderEventBroker<TClient, TServer extends MinecraftSe
 	protected LiteLoaderMods mods;
 	
 	private Map<UUID, PlayerEventState> playerStates = new HashMap<UUID, PlayerEventState>();
-	private FastIterableDeque<IEventState> playerStateList = new HandlerList<IEventState>(IEventState.class);
+	private FastIterableDeque<IEventState> playerStateList = new SnapshotHandlerList<IEventState>(IEventState.class);
 	
 	/**
 	 * List of mods which provide server commands
@@ -141,17 +145,22 @@ public abstract class LiteLoaderEventBroker<TClient, TServer extends MinecraftSe
 	/**
 	 * List of mods which handle player interaction events 
 	 */
-	private FastIterable<PlayerInteractionListener> playerInteractionListeners = new HandlerList<PlayerInteractionListener>(PlayerInteractionListener.class, ReturnLogicOp.AND);
+	private FastIterableDeque<PlayerInteractionListener> playerInteractionListeners = new HandlerList<PlayerInteractionListener>(PlayerInteractionListener.class, ReturnLogicOp.AND);
 	
 	/**
 	 * List of mods which handle player movement events
 	 */
-	private FastIterable<PlayerMoveListener> playerMoveListeners = new HandlerList<PlayerMoveListener>(PlayerMoveListener.class, ReturnLogicOp.AND_BREAK_ON_FALSE);
+	private FastIterableDeque<PlayerMoveListener> playerMoveListeners = new HandlerList<PlayerMoveListener>(PlayerMoveListener.class, ReturnLogicOp.AND_BREAK_ON_FALSE);
+	
+	/**
+	 * List of mods which handle player movement events using coordinates
+	 */
+	private FastIterableDeque<PlayerMoveCoordinateListener> playerMoveCoordinateListeners = new HandlerList<PlayerMoveCoordinateListener>(PlayerMoveCoordinateListener.class, ReturnLogicOp.AND_BREAK_ON_FALSE);
 	
 	/**
 	 * List of mods which monitor server ticks
 	 */
-	private FastIterable<ServerTickable> serverTickListeners = new HandlerList<ServerTickable>(ServerTickable.class);
+	private FastIterable<ServerTickable> serverTickListeners = new TimedHandlerList<ServerTickable>(ServerTickable.class, null);
 	
 	/**
 	 * List of mods which want to be notified when the game is shutting down
@@ -215,6 +224,7 @@ public abstract class LiteLoaderEventBroker<TClient, TServer extends MinecraftSe
 		delegate.registerInterface(ServerPlayerListener.class);
 		delegate.registerInterface(PlayerInteractionListener.class);
 		delegate.registerInterface(PlayerMoveListener.class);
+		delegate.registerInterface(PlayerMoveCoordinateListener.class);
 		delegate.registerInterface(CommonPluginChannelListener.class);
 		delegate.registerInterface(ServerTickable.class);
 		delegate.registerInterface(ShutdownListener.class);
@@ -265,6 +275,14 @@ public abstract class LiteLoaderEventBroker<TClient, TServer extends MinecraftSe
 		this.playerMoveListeners.add(playerMoveListener);
 	}
 	
+	/**
+	 * @param playerMoveCoordinateListener
+	 */
+	public void addPlayerMoveCoordinateListener(PlayerMoveCoordinateListener playerMoveCoordinateListener)
+	{
+		this.playerMoveCoordinateListeners.add(playerMoveCoordinateListener);
+	}
+	
 	/**
 	 * @param serverTickable
 	 */
@@ -352,6 +370,7 @@ public abstract class LiteLoaderEventBroker<TClient, TServer extends MinecraftSe
 	public void onPlayerLogout(ServerConfigurationManager scm, EntityPlayerMP player)
 	{
 		this.serverPlayerListeners.all().onPlayerLogout(player);
+		LiteLoader.getServerPluginChannels().onPlayerLogout(player);
 		this.removePlayer(player);
 	}
 
@@ -442,6 +461,12 @@ public abstract class LiteLoaderEventBroker<TClient, TServer extends MinecraftSe
 
 	public boolean onPlayerInteract(InteractType action, EntityPlayerMP player, BlockPos position, EnumFacing side)
 	{
+		// Interaction state only exists to raise listener events, don't trace or track clicks if nobody is listening
+		if (this.playerInteractionListeners.isEmpty())
+		{
+			return true;
+		}
+		
 		PlayerEventState eventState = this.getPlayerState(player);
 		return eventState.onPlayerInteract(action, player, position, side);
 	}
@@ -458,41 +483,59 @@ public abstract class LiteLoaderEventBroker<TClient, TServer extends MinecraftSe
 
 	public boolean onPlayerMove(NetHandlerPlayServer netHandler, C03PacketPlayer packet, EntityPlayerMP playerMP, WorldServer world)
 	{
-		Position from = new Position(playerMP, true);
+		// Called for every movement packet, so don't do anything unless somebody is listening
+		if (this.playerMoveCoordinateListeners.isEmpty() && this.playerMoveListeners.isEmpty())
+		{
+			return true;
+		}
 		
-		double toX = playerMP.posX;
-		double toY = playerMP.posY;
-		double toZ = playerMP.posZ;
-		float toYaw = playerMP.rotationYaw;
-		float toPitch = playerMP.rotationPitch;
+		double fromX = playerMP.prevPosX;
+		double fromY = playerMP.prevPosY;
+		double fromZ = playerMP.prevPosZ;
+		
+		PlayerEventState playerState = this.getPlayerState(playerMP);
+		MutablePosition to = playerState.getMoveTo().set(playerMP, false);
+		MutablePosition newPos = playerState.getMoveTarget();
+		newPos.clear();
 		
 		if (packet.isMoving())
 		{
-			toX = packet.getPositionX();
-			toY = packet.getPositionY();
-			toZ = packet.getPositionZ();
+			to.x = packet.getPositionX();
+			to.y = packet.getPositionY();
+			to.z = packet.getPositionZ();
 		}
 		
 		if (packet.getRotating())
 		{
-			toYaw = packet.getYaw();
-			toPitch = packet.getPitch();
+			to.yaw = packet.getYaw();
+			to.pitch = packet.getPitch();
+		}
+		
+		boolean allow = this.playerMoveCoordinateListeners.isEmpty() || this.playerMoveCoordinateListeners.all().onPlayerMove(playerMP,
+				fromX, fromY, fromZ, to.x, to.y, to.z, to.yaw, to.pitch, newPos);
+		
+		if (allow && !this.playerMoveListeners.isEmpty())
+		{
+			// Legacy listeners need immutable positions, so these are only allocated if there are any
+			Position from = new Position(fromX, fromY, fromZ, playerMP.prevRotationYaw, playerMP.prevRotationPitch);
+			Position legacyTo = to.toPosition();
+			ReturnValue<Position> pos = new ReturnValue<Position>(legacyTo);
+			if (newPos.isSet()) pos.set(newPos.toPosition());
+			
+			allow = this.playerMoveListeners.all().onPlayerMove(playerMP, from, legacyTo, pos);
+			if (pos.isSet()) newPos.set(pos.get());
 		}
-
-		Position to = new Position(toX, toY, toZ, toYaw, toPitch);
-		ReturnValue<Position> pos = new ReturnValue<Position>(to);
 		
-		if (!this.playerMoveListeners.all().onPlayerMove(playerMP, from, to, pos))
+		if (!allow)
 		{
-			playerMP.setPositionAndRotation(from.xCoord, from.yCoord, from.zCoord, playerMP.prevRotationYaw, playerMP.prevRotationPitch);
-			playerMP.playerNetServerHandler.sendPacket(new S08PacketPlayerPosLook(from.xCoord, from.yCoord, from.zCoord, playerMP.prevRotationYaw, playerMP.prevRotationPitch, Collections.emptySet()));
+			playerMP.setPositionAndRotation(fromX, fromY, fromZ, playerMP.prevRotationYaw, playerMP.prevRotationPitch);
+			playerMP.playerNetServerHandler.sendPacket(new S08PacketPlayerPosLook(fromX, fromY, fromZ, playerMP.prevRotationYaw, playerMP.prevRotationPitch, Collections.emptySet()));
 			return false;
 		}
 		
-		if (pos.isSet())
+		if (newPos.isSet())
 		{
-			Position newPos = pos.get();
-			netHandler.setPlayerLocation(newPos.xCoord, newPos.yCoord, newPos.zCoord, newPos.yaw, newPos.pitch);
+			netHandler.setPlayerLocation(newPos.x, newPos.y, newPos.z, newPos.yaw, newPos.pitch);
 			return false;
 		}
 		
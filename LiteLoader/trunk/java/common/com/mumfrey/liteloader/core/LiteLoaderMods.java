@@ -1,11 +1,14 @@
 package com.mumfrey.liteloader.core;
 
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -74,32 +77,52 @@ public class LiteLoaderMods
 	/**
 	 * Global list of mods which we can load
 	 */
-	protected final List<Mod> allMods = new LinkedList<Mod>();
+	protected final List<Mod> allMods = new ArrayList<Mod>();
 	
 	/**
 	 * Global list of mods which are still waiting for initialisiation
 	 */
-	protected final Deque<Mod> initMods = new LinkedList<Mod>();
+	protected final Deque<Mod> initMods = new ArrayDeque<Mod>();
 	
 	/**
 	 * Global list of mods which we have loaded
 	 */
-	protected final List<Mod> loadedMods = new LinkedList<Mod>();
+	protected final List<Mod> loadedMods = new ArrayList<Mod>();
 	
 	/**
 	 * Global list of mods which we found but ignored (eg. outdated, invalid)
 	 */
-	protected final List<Mod> badMods = new LinkedList<Mod>();
+	protected final List<Mod> badMods = new ArrayList<Mod>();
 	
 	/**
 	 * Mods which are loaded but disabled
 	 */
-	protected final List<ModInfo<?>> disabledMods = new LinkedList<ModInfo<?>>();
+	protected final List<ModInfo<?>> disabledMods = new ArrayList<ModInfo<?>>();
 	
 	/**
 	 * Bad containers
 	 */
-	protected final List<ModInfo<?>> badContainers = new LinkedList<ModInfo<?>>();
+	protected final List<ModInfo<?>> badContainers = new ArrayList<ModInfo<?>>();
+	
+	/**
+	 * Indexes into allMods, maintained as mods are loaded. Each index holds the first mod in allMods with the key so
+	 * that lookups return the same mod as a scan of the list would. Names and identifiers are stored folded with
+	 * foldCase() since they are matched ignoring case.
+	 */
+	private final Map<LiteMod, Mod> modsByInstance = new IdentityHashMap<LiteMod, Mod>();
+	private final Map<Class<? extends LiteMod>, Mod> modsByClass = new HashMap<Class<? extends LiteMod>, Mod>();
+	private final Map<String, Mod> modsByIdentifier = new HashMap<String, Mod>();
+	private final Map<String, Mod> modsByName = new HashMap<String, Mod>();
+	
+	/**
+	 * Folded identifiers of the mods in loadedMods
+	 */
+	private final Set<String> activeIdentifiers = new HashSet<String>();
+	
+	/**
+	 * Containers of the mods in disabledMods
+	 */
+	private final Set<Loadable<?>> disabledContainers = new HashSet<Loadable<?>>();
 
 	private int startupErrorCount, criticalErrorCount;
 
@@ -115,8 +138,12 @@ public class LiteLoaderMods
 	void init(List<ModLoadObserver> observers)
 	{
 		this.observers.addAll(observers);
-		this.disabledMods.addAll(this.enumerator.getDisabledContainers());
 		this.badContainers.addAll(this.enumerator.getBadContainers());
+		
+		for (ModInfo<?> mod : this.enumerator.getDisabledContainers())
+		{
+			this.addDisabledMod(mod);
+		}
 	}
 	
 	void onPostInit()
@@ -190,13 +217,7 @@ public class LiteLoaderMods
 	
 	public ModInfo<?> getModInfo(LiteMod instance)
 	{
-		for (Mod mod : this.allMods)
-		{
-			if (instance == mod.getMod())
-				return mod;
-		}
-		
-		return null;
+		return this.modsByInstance.get(instance);
 	}
 
 	/**
@@ -229,13 +250,8 @@ public class LiteLoaderMods
 			throw new IllegalArgumentException("Attempted to get a reference to a mod without specifying a mod name");
 		}
 		
-		for (Mod mod : this.allMods)
-		{
-			if (mod.matchesName(modName))
-				return (T)mod.getMod();
-		}
-		
-		return null;
+		Mod mod = this.modsByName.get(LiteLoaderMods.foldCase(modName));
+		return mod != null ? (T)mod.getMod() : null;
 	}
 	
 	/**
@@ -246,13 +262,8 @@ public class LiteLoaderMods
 	@SuppressWarnings("unchecked")
 	public <T extends LiteMod> T getMod(Class<T> modClass)
 	{
-		for (Mod mod : this.allMods)
-		{
-			if (mod.getModClass().equals(modClass))
-				return (T)mod.getMod();
-		}
-		
-		return null;
+		Mod mod = this.modsByClass.get(modClass);
+		return mod != null ? (T)mod.getMod() : null;
 	}
 
 	/**
@@ -264,13 +275,8 @@ public class LiteLoaderMods
 	{
 		if (identifier == null) return null;
 		
-		for (Mod mod : this.allMods)
-		{
-			if (mod.matchesIdentifier(identifier))
-				return mod.getModClass();
-		}
-		
-		return null;
+		Mod mod = this.modsByIdentifier.get(LiteLoaderMods.foldCase(identifier));
+		return mod != null ? mod.getModClass() : null;
 	}
 
 	/**
@@ -397,13 +403,7 @@ public class LiteLoaderMods
 	{
 		if (identifier == null) return false;
 		
-		for (Mod mod : this.loadedMods)
-		{
-			if (mod.matchesIdentifier(identifier))
-				return true;
-		}
-		
-		return false;
+		return this.activeIdentifiers.contains(LiteLoaderMods.foldCase(identifier));
 	}
 
 	/**
@@ -492,10 +492,74 @@ public class LiteLoaderMods
 
 		this.allMods.add(mod);
 		this.initMods.add(mod);
+		this.indexMod(mod);
 		
 		LoadingProgress.incTotalLiteLoaderProgress(1);
 	}
 
+	/**
+	 * Add the mod to the indexes, the mod must already be in allMods
+	 * 
+	 * @param mod
+	 */
+	private void indexMod(Mod mod)
+	{
+		LiteLoaderMods.index(this.modsByInstance, mod.getMod(), mod);
+		LiteLoaderMods.index(this.modsByClass, mod.getModClass(), mod);
+		
+		if (mod.getIdentifier() != null)
+		{
+			LiteLoaderMods.index(this.modsByIdentifier, LiteLoaderMods.foldCase(mod.getIdentifier()), mod);
+		}
+		
+		// Same names as Mod.matchesName(), in the same order
+		String name = mod.getMod().getName();
+		if (name != null) LiteLoaderMods.index(this.modsByName, LiteLoaderMods.foldCase(name), mod);
+		if (mod.getIdentifier() != null) LiteLoaderMods.index(this.modsByName, LiteLoaderMods.foldCase(mod.getIdentifier()), mod);
+		LiteLoaderMods.index(this.modsByName, LiteLoaderMods.foldCase(mod.getModClassSimpleName()), mod);
+	}
+	
+	/**
+	 * Add the mod to the index unless a mod which appears earlier in the list already has the same key
+	 * 
+	 * @param index
+	 * @param key
+	 * @param mod
+	 */
+	private static <K> void index(Map<K, Mod> index, K key, Mod mod)
+	{
+		if (!index.containsKey(key))
+		{
+			index.put(key, mod);
+		}
+	}
+	
+	/**
+	 * Fold the case of the specified name so that two names are equal after folding exactly when they are equal
+	 * according to String.equalsIgnoreCase()
+	 * 
+	 * @param name
+	 */
+	private static String foldCase(String name)
+	{
+		char[] chars = name.toCharArray();
+		for (int i = 0; i < chars.length; i++)
+		{
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		
+		return new String(chars);
+	}
+	
+	/**
+	 * @param mod
+	 */
+	private void addDisabledMod(ModInfo<?> mod)
+	{
+		this.disabledMods.add(mod);
+		this.disabledContainers.add(mod.getContainer());
+	}
+
 	/**
 	 * @param container
 	 * @param identifier
@@ -506,15 +570,14 @@ public class LiteLoaderMods
 	{
 		LiteLoaderLogger.warning("Not loading mod %s, %s", identifier, reason);
 		
-		for (ModInfo<?> mod : this.disabledMods)
+		if (this.disabledContainers.contains(container))
 		{
-			if (mod.getContainer().equals(container))
-				return;
+			return;
 		}
 		
 		if (container != LoadableMod.NONE)
 		{
-			this.disabledMods.add(new NonMod(container, false));
+			this.addDisabledMod(new NonMod(container, false));
 		}
 		
 		this.observers.all().onModLoadFailed(container, identifier, reason, th);
@@ -565,6 +628,7 @@ public class LiteLoaderMods
 		this.onPostInitMod(instance);
 		
 		this.loadedMods.add(mod);
+		if (mod.getIdentifier() != null) this.activeIdentifiers.add(LiteLoaderMods.foldCase(mod.getIdentifier()));
 		this.loadedModsList += String.format("\n          - %s version %s", mod.getDisplayName(), mod.getVersion());
 	}
 	
@@ -742,7 +806,7 @@ public class LiteLoaderMods
 		
 		if (!this.loadedMods.contains(mod) && !this.disabledMods.contains(mod))
 		{
-			this.disabledMods.add(mod);
+			this.addDisabledMod(mod);
 		}
 	}
 
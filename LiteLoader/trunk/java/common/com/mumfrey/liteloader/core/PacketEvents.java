@@ -34,6 +34,13 @@ import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
 public abstract class PacketEvents implements InterfaceProvider
 {
 	protected static PacketEvents instance;
+	
+	/**
+	 * Flags for each packet index which indicate whether we have any consumers for the packet, checked by the
+	 * injected packet event code so that packets nobody is interested in don't allocate an EventInfo. Use
+	 * setPacketInterested() to modify.
+	 */
+	public static final boolean[] interestedPackets = new boolean[Packets.count()];
 
 	class PacketHandlerList extends HandlerList<PacketHandler>
 	{
@@ -62,6 +69,28 @@ public abstract class PacketEvents implements InterfaceProvider
 	{
 		PacketEvents.instance = this;
 		this.loader = LiteLoader.getInstance();
+		
+		// Packets with built-in consumers
+		PacketEvents.setPacketInterested(this.loginSuccessPacketId);
+		PacketEvents.setPacketInterested(this.serverChatPacketId);
+		PacketEvents.setPacketInterested(this.clientChatPacketId);
+		PacketEvents.setPacketInterested(this.joinGamePacketId);
+		PacketEvents.setPacketInterested(this.serverPayloadPacketId);
+		PacketEvents.setPacketInterested(this.clientPayloadPacketId);
+		PacketEvents.setPacketInterested(this.clientSettingsPacketId);
+	}
+	
+	/**
+	 * Enable packet events for the specified packet index
+	 * 
+	 * @param packetId
+	 */
+	protected static void setPacketInterested(int packetId)
+	{
+		if (packetId > -1 && packetId < PacketEvents.interestedPackets.length)
+		{
+			PacketEvents.interestedPackets[packetId] = true;
+		}
 	}
 	
 	@Override
@@ -111,6 +140,7 @@ public abstract class PacketEvents implements InterfaceProvider
 				}
 				
 				this.packetHandlers[packetId].add(handler);
+				PacketEvents.setPacketInterested(packetId);
 			}
 		}
 	}
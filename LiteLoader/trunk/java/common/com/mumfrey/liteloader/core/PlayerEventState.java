@@ -2,35 +2,120 @@ package com.mumfrey.liteloader.core;
 
 import java.lang.ref.WeakReference;
 
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.MovingObjectPosition;
 import net.minecraft.util.MovingObjectPosition.MovingObjectType;
+import net.minecraft.util.Vec3;
+import net.minecraft.world.World;
 
 import com.mumfrey.liteloader.PlayerInteractionListener.MouseButton;
 import com.mumfrey.liteloader.core.LiteLoaderEventBroker.InteractType;
 import com.mumfrey.liteloader.util.EntityUtilities;
+import com.mumfrey.liteloader.util.MutablePosition;
 
 public class PlayerEventState implements IEventState
 {
+	/**
+	 * A ray trace along with the parameters it was aimed with. Aiming is cheap, the trace itself is only performed when
+	 * the result is requested, and is reused if the trace is aimed along the same vector again before being cleared
+	 */
+	static final class Trace
+	{
+		private World world;
+		
+		private Vec3 origin, look;
+		
+		private double distance;
+		
+		private MovingObjectPosition result;
+		
+		/**
+		 * Aim along the entity's look vector, in the same way as EntityUtilities.rayTraceFromEntity
+		 * 
+		 * @param entity
+		 * @param distance
+		 */
+		Trace aim(Entity entity, double distance)
+		{
+			World world = entity.worldObj;
+			Vec3 origin = EntityUtilities.getPositionEyes(entity, 0.0F);
+			Vec3 look = entity.getLook(0.0F);
+			
+			if (this.result != null && (world != this.world || distance != this.distance || !Trace.equals(origin, this.origin) || !Trace.equals(look, this.look)))
+			{
+				this.result = null;
+			}
+			
+			this.world = world;
+			this.origin = origin;
+			this.look = look;
+			this.distance = distance;
+			return this;
+		}
+		
+		MovingObjectPosition getResult()
+		{
+			if (this.result == null && this.world != null)
+			{
+				this.result = EntityUtilities.rayTrace(this.world, this.origin, this.look, this.distance);
+			}
+			
+			return this.result;
+		}
+		
+		void clear()
+		{
+			this.world = null;
+			this.origin = null;
+			this.look = null;
+			this.result = null;
+		}
+		
+		private static boolean equals(Vec3 a, Vec3 b)
+		{
+			return a.xCoord == b.xCoord && a.yCoord == b.yCoord && a.zCoord == b.zCoord;
+		}
+	}
+	
 	private static long MISS = new BlockPos(-1, -1, -1).toLong();
 	
+	/**
+	 * Maximum distance to trace for clicks, regardless of the view distance requested by the client
+	 */
+	private static final double MAX_TRACE_DISTANCE = Integer.getInteger("liteloader.server.maxtracedistance", 160).doubleValue();
+	
 	private WeakReference<EntityPlayerMP> playerRef;
 	
 	private final LiteLoaderEventBroker<?, ?> broker;
 	
-	private double traceDistance = 256.0;
+	private double traceDistance = Math.min(256.0, PlayerEventState.MAX_TRACE_DISTANCE);
 	
 	private int suppressLeftTicks; 
 	private int suppressRightTicks; 
 	private boolean leftClick;
 	private boolean rightClick;
 	
-	private MovingObjectPosition hit;
+	/**
+	 * Trace for clicks which will be reported in onTick, aimed when the click is received but only traced in onTick
+	 */
+	private final Trace clickTrace = new Trace();
+	
+	/**
+	 * Trace used to check whether a right click actually hit anything
+	 */
+	private final Trace reachTrace = new Trace();
 	
 	private String locale = "en_US";
+	
+	/**
+	 * Position the player is moving to and the position requested by move listeners, reused for each movement packet
+	 */
+	private final MutablePosition moveTo = new MutablePosition();
+	private final MutablePosition moveTarget = new MutablePosition();
 
 	public PlayerEventState(EntityPlayerMP player, LiteLoaderEventBroker<?, ?> broker)
 	{
@@ -40,7 +125,7 @@ public class PlayerEventState implements IEventState
 	
 	public void setTraceDistance(int renderDistance)
 	{
-		this.traceDistance = renderDistance * 16.0;
+		this.traceDistance = Math.min(renderDistance * 16.0, PlayerEventState.MAX_TRACE_DISTANCE);
 	}
 	
 	public double getTraceDistance()
@@ -66,6 +151,16 @@ public class PlayerEventState implements IEventState
 		return this.playerRef.get();
 	}
 	
+	MutablePosition getMoveTo()
+	{
+		return this.moveTo;
+	}
+	
+	MutablePosition getMoveTarget()
+	{
+		return this.moveTarget;
+	}
+	
 	public void onSpawned()
 	{
 	}
@@ -75,12 +170,14 @@ public class PlayerEventState implements IEventState
 	{
 		if (this.leftClick && this.suppressLeftTicks == 0)
 		{
-			this.broker.onPlayerClickedAir(this.getPlayer(), MouseButton.LEFT, this.hit.getBlockPos(), this.hit.sideHit, this.hit.typeOfHit);
+			MovingObjectPosition hit = this.clickTrace.getResult();
+			if (hit != null) this.broker.onPlayerClickedAir(this.getPlayer(), MouseButton.LEFT, hit.getBlockPos(), hit.sideHit, hit.typeOfHit);
 		}
 		
 		if (this.rightClick && this.suppressRightTicks == 0)
 		{
-			this.broker.onPlayerClickedAir(this.getPlayer(), MouseButton.RIGHT, this.hit.getBlockPos(), this.hit.sideHit,  this.hit.typeOfHit);
+			MovingObjectPosition hit = this.clickTrace.getResult();
+			if (hit != null) this.broker.onPlayerClickedAir(this.getPlayer(), MouseButton.RIGHT, hit.getBlockPos(), hit.sideHit,  hit.typeOfHit);
 		}
 		
 		if (this.suppressLeftTicks > 0) this.suppressLeftTicks--;
@@ -88,11 +185,17 @@ public class PlayerEventState implements IEventState
 		
 		this.leftClick = false;
 		this.rightClick = false;
+		this.clickTrace.clear();
+		this.reachTrace.clear();
 	}
 
 	public boolean onPlayerInteract(InteractType action, EntityPlayerMP player, BlockPos position, EnumFacing side)
 	{
-		this.hit = EntityUtilities.rayTraceFromEntity(player, this.traceDistance, 0.0F);
+		if (action == InteractType.LEFT_CLICK || action == InteractType.RIGHT_CLICK || this.leftClick || this.rightClick)
+		{
+			// The trace is only needed if a click will be reported in onTick, the most recent interaction sets the aim
+			this.clickTrace.aim(player, this.traceDistance);
+		}
 
 		if (action == InteractType.LEFT_CLICK)
 		{
@@ -121,10 +224,11 @@ public class PlayerEventState implements IEventState
 			
 			if (position.toLong() == PlayerEventState.MISS)
 			{
-				MovingObjectPosition actualHit = EntityUtilities.rayTraceFromEntity(player, player.capabilities.isCreativeMode ? 5.0 : 4.5, 0.0F);
+				MovingObjectPosition actualHit = this.reachTrace.aim(player, player.capabilities.isCreativeMode ? 5.0 : 4.5).getResult();
 				if (actualHit.typeOfHit == MovingObjectType.MISS)
 				{
 					this.rightClick = true;
+					this.clickTrace.aim(player, this.traceDistance);
 					return true;
 				}
 			}
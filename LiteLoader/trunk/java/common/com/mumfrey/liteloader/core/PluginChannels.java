@@ -2,6 +2,8 @@ package com.mumfrey.liteloader.core;
 
 import io.netty.buffer.Unpooled;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,6 +31,17 @@ public abstract class PluginChannels<L extends CommonPluginChannelListener> impl
 	protected static final String CHANNEL_REGISTER = "REGISTER";
 	protected static final String CHANNEL_UNREGISTER = "UNREGISTER";
 	
+	/**
+	 * Channel used to carry several small messages in a single payload, only used when the remote host has registered
+	 * it since hosts which don't know about it expect one message per packet
+	 */
+	protected static final String CHANNEL_BATCH = "LL|Batch";
+	
+	/**
+	 * Version of the batch frame format, written as the first byte of each batch payload
+	 */
+	protected static final int BATCH_FORMAT = 1;
+	
 	/**
 	 * Number of faults for a specific listener before a warning is generated
 	 */
@@ -52,7 +65,31 @@ public abstract class PluginChannels<L extends CommonPluginChannelListener> impl
 	/**
 	 * Keep track of faulting listeners so that we can periodically log a message if a listener is throwing LOTS of exceptions
 	 */
-	protected final Map<L, Integer> faultingPluginChannelListeners = new HashMap<L, Integer>();
+	protected final Map<L, FaultCounter> faultingPluginChannelListeners = new HashMap<L, FaultCounter>();
+	
+	/**
+	 * Mutable fault counter for a listener, so that counting faults doesn't need to box a new value each time
+	 */
+	protected static final class FaultCounter
+	{
+		int faults;
+	}
+	
+	/**
+	 * A single message carried in a batch payload
+	 */
+	protected static final class BatchedMessage
+	{
+		final String channel;
+		
+		final PacketBuffer data;
+		
+		BatchedMessage(String channel, PacketBuffer data)
+		{
+			this.channel = channel;
+			this.data = data;
+		}
+	}
 	
 	/**
 	 * Package private
@@ -114,25 +151,176 @@ public abstract class PluginChannels<L extends CommonPluginChannelListener> impl
 		this.faultingPluginChannelListeners.clear();
 	}
 
+	/**
+	 * Called when a listener throws an exception whilst handling a message, logs a warning each time the
+	 * listener's fault count reaches the threshold
+	 * 
+	 * @param pluginChannelListener
+	 * @param channel
+	 * @param th
+	 */
+	protected void onListenerFault(L pluginChannelListener, String channel, Throwable th)
+	{
+		FaultCounter counter = this.faultingPluginChannelListeners.get(pluginChannelListener);
+		if (counter == null)
+		{
+			counter = new FaultCounter();
+			this.faultingPluginChannelListeners.put(pluginChannelListener, counter);
+		}
+		
+		if (++counter.faults >= PluginChannels.WARN_FAULT_THRESHOLD)
+		{
+			LiteLoaderLogger.warning("Plugin channel listener %s exceeded fault threshold on channel %s with %s", pluginChannelListener.getName(), channel, th.getClass().getSimpleName());
+			counter.faults = 0;
+		}
+	}
+	
+	/**
+	 * Get a read-only view of the supplied message data with its own reader index, so that each consumer of an
+	 * inbound message sees the whole payload regardless of how much previous consumers have read
+	 * 
+	 * @param data
+	 */
+	protected static PacketBuffer getReadOnlySlice(PacketBuffer data)
+	{
+		return data != null ? new PacketBuffer(Unpooled.unmodifiableBuffer(data.slice())) : null;
+	}
+
+	/**
+	 * True if the specified channel is reserved for use by the plugin channel protocol itself
+	 * 
+	 * @param channel
+	 */
+	protected static boolean isReservedChannel(String channel)
+	{
+		return PluginChannels.CHANNEL_REGISTER.equalsIgnoreCase(channel) || PluginChannels.CHANNEL_UNREGISTER.equalsIgnoreCase(channel)
+				|| PluginChannels.CHANNEL_BATCH.equalsIgnoreCase(channel);
+	}
+
 	/**
 	 * @param data
 	 */
 	protected void onRegisterPacketReceived(PacketBuffer data)
+	{
+		this.remotePluginChannels.addAll(PluginChannels.readChannelList(data));
+	}
+	
+	/**
+	 * Read the list of channels from a REGISTER or UNREGISTER packet
+	 * 
+	 * @param data
+	 * @return list of channels, empty if the data could not be decoded
+	 */
+	protected static List<String> readChannelList(PacketBuffer data)
 	{
 		try
 		{
 			byte[] bytes = new byte[data.readableBytes()];
 			data.readBytes(bytes);
 			String channels = new String(bytes, Charsets.UTF_8);
-			for (String channel : channels.split("\u0000"))
+			return Arrays.asList(channels.split("\u0000"));
+		}
+		catch (Exception ex)
+		{
+			LiteLoaderLogger.warning(ex, "Error decoding REGISTER packet from remote host %s", ex.getClass().getSimpleName());
+		}
+		
+		return Collections.<String>emptyList();
+	}
+	
+	/**
+	 * Write the supplied messages into a batch payload. Each message is written as the channel name and then the
+	 * message data, each prefixed with its length as a VarInt. The readable bytes of each message are copied without
+	 * moving its reader index.
+	 * 
+	 * @param messages
+	 */
+	protected static PacketBuffer writeBatch(List<BatchedMessage> messages)
+	{
+		PacketBuffer batch = new PacketBuffer(Unpooled.buffer());
+		batch.writeByte(PluginChannels.BATCH_FORMAT);
+		
+		for (BatchedMessage message : messages)
+		{
+			byte[] channel = message.channel.getBytes(Charsets.UTF_8);
+			PluginChannels.writeVarInt(batch, channel.length);
+			batch.writeBytes(channel);
+			
+			int length = message.data.readableBytes();
+			PluginChannels.writeVarInt(batch, length);
+			batch.writeBytes(message.data, message.data.readerIndex(), length);
+		}
+		
+		return batch;
+	}
+	
+	/**
+	 * Read the messages from a batch payload, the data of each message is a slice of the supplied buffer
+	 * 
+	 * @param data
+	 * @return list of messages, empty if the batch could not be decoded
+	 */
+	protected static List<BatchedMessage> readBatch(PacketBuffer data)
+	{
+		try
+		{
+			int format = data.readUnsignedByte();
+			if (format != PluginChannels.BATCH_FORMAT)
 			{
-				this.remotePluginChannels.add(channel);
+				LiteLoaderLogger.warning("Ignoring batched plugin channel messages from remote host with unsupported format %d", format);
+				return Collections.<BatchedMessage>emptyList();
 			}
+			
+			List<BatchedMessage> messages = new ArrayList<BatchedMessage>();
+			while (data.isReadable())
+			{
+				byte[] channel = new byte[PluginChannels.readLength(data)];
+				data.readBytes(channel);
+				PacketBuffer messageData = new PacketBuffer(data.readSlice(PluginChannels.readLength(data)));
+				messages.add(new BatchedMessage(new String(channel, Charsets.UTF_8), messageData));
+			}
+			
+			return messages;
 		}
 		catch (Exception ex)
 		{
-			LiteLoaderLogger.warning(ex, "Error decoding REGISTER packet from remote host %s", ex.getClass().getSimpleName());
+			LiteLoaderLogger.warning(ex, "Error decoding batched plugin channel messages from remote host %s", ex.getClass().getSimpleName());
+		}
+		
+		return Collections.<BatchedMessage>emptyList();
+	}
+	
+	private static void writeVarInt(PacketBuffer data, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			data.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
 		}
+		
+		data.writeByte(value);
+	}
+	
+	/**
+	 * Read a VarInt length and check that there are at least that many bytes remaining
+	 * 
+	 * @param data
+	 */
+	private static int readLength(PacketBuffer data)
+	{
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7)
+		{
+			int b = data.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				if (value < 0 || value > data.readableBytes()) throw new IndexOutOfBoundsException("Invalid length " + value);
+				return value;
+			}
+		}
+		
+		throw new IllegalArgumentException("VarInt is too long");
 	}
 
 	/**
@@ -153,6 +341,9 @@ public abstract class PluginChannels<L extends CommonPluginChannelListener> impl
 				separator = true;
 			}
 			
+			// Advertise that we can unpack batched messages
+			channelList.append("\u0000").append(PluginChannels.CHANNEL_BATCH);
+			
 			PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
 			buffer.writeBytes(channelList.toString().getBytes(Charsets.UTF_8));
 			return buffer;
@@ -175,7 +366,7 @@ public abstract class PluginChannels<L extends CommonPluginChannelListener> impl
 		{
 			for (String channel : channels)
 			{
-				if (channel.length() > 16 || channel.toUpperCase().equals(CHANNEL_REGISTER) || channel.toUpperCase().equals(CHANNEL_UNREGISTER))
+				if (channel.length() > 16 || PluginChannels.isReservedChannel(channel))
 					continue;
 				
 				if (!this.pluginChannels.containsKey(channel))
@@ -221,6 +412,16 @@ public abstract class PluginChannels<L extends CommonPluginChannelListener> impl
 			return channels.isRemoteChannelRegistered(channel);
 		}
 		
+		/**
+		 * True if this policy allows outbound traffic on a channel with the specified registration state
+		 * 
+		 * @param channelRegistered True if the channel is registered by the remote host
+		 */
+		public boolean allows(boolean channelRegistered)
+		{
+			return this == ChannelPolicy.DISPATCH_ALWAYS || channelRegistered;
+		}
+		
 		/**
 		 * True if this policy does not throw an exception for unregistered outbound channels
 		 */
@@ -1,12 +1,22 @@
 package com.mumfrey.liteloader.core;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.network.INetHandler;
 import net.minecraft.network.NetHandlerPlayServer;
 import net.minecraft.network.PacketBuffer;
 import net.minecraft.network.play.client.C17PacketCustomPayload;
 import net.minecraft.network.play.server.S3FPacketCustomPayload;
+import net.minecraft.server.MinecraftServer;
 
+import com.google.common.base.Predicate;
 import com.mumfrey.liteloader.ServerPluginChannelListener;
 import com.mumfrey.liteloader.api.Listener;
 import com.mumfrey.liteloader.core.event.HandlerList;
@@ -24,6 +34,12 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 {
 	private static ServerPluginChannels instance;
 	
+	/**
+	 * Channels registered by each connected client, keyed by player UUID since the player entity is replaced on
+	 * respawn
+	 */
+	private final Map<UUID, Set<String>> playerChannels = new HashMap<UUID, Set<String>>();
+	
 	public ServerPluginChannels()
 	{
 		if (ServerPluginChannels.instance != null) throw new RuntimeException("Plugin Channels Startup Error", new InstantiationException("Only a single instance of ServerPluginChannels is allowed"));
@@ -72,6 +88,16 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 		super.addPluginChannelListener(pluginChannelListener);
 	}
 
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.core.PluginChannels#clearPluginChannels(net.minecraft.network.INetHandler)
+	 */
+	@Override
+	protected void clearPluginChannels(INetHandler netHandler)
+	{
+		super.clearPluginChannels(netHandler);
+		this.playerChannels.clear();
+	}
+	
 	void onServerStartup()
 	{
 		this.clearPluginChannels(null);
@@ -88,6 +114,34 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 		this.sendRegisteredPluginChannels(player);
 	}
 	
+	void onPlayerLogout(EntityPlayerMP player)
+	{
+		this.playerChannels.remove(player.getUniqueID());
+	}
+	
+	/**
+	 * Get the channels registered by the specified client
+	 * 
+	 * @param player
+	 */
+	public Set<String> getRemoteChannels(EntityPlayerMP player)
+	{
+		Set<String> channels = player != null ? this.playerChannels.get(player.getUniqueID()) : null;
+		return channels != null ? Collections.unmodifiableSet(channels) : Collections.<String>emptySet();
+	}
+	
+	/**
+	 * Check whether the specified client has registered a plugin channel
+	 * 
+	 * @param player
+	 * @param channel
+	 */
+	public boolean isRemoteChannelRegistered(EntityPlayerMP player, String channel)
+	{
+		Set<String> channels = player != null ? this.playerChannels.get(player.getUniqueID()) : null;
+		return channels != null && channels.contains(channel);
+	}
+	
 	/**
 	 * Callback for the plugin channel hook
 	 * 
@@ -114,7 +168,21 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 	{
 		if (PluginChannels.CHANNEL_REGISTER.equals(channel))
 		{
-			this.onRegisterPacketReceived(data);
+			this.onRegisterPacketReceived(sender, data);
+		}
+		else if (PluginChannels.CHANNEL_UNREGISTER.equals(channel))
+		{
+			this.onUnregisterPacketReceived(sender, data);
+		}
+		else if (PluginChannels.CHANNEL_BATCH.equals(channel))
+		{
+			for (BatchedMessage message : PluginChannels.readBatch(data))
+			{
+				if (!PluginChannels.isReservedChannel(message.channel))
+				{
+					this.onPluginChannelMessage(sender, message.channel, message.data);
+				}
+			}
 		}
 		else if (this.pluginChannels.containsKey(channel))
 		{
@@ -123,7 +191,7 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 				PermissionsManagerServer permissionsManager = LiteLoader.getServerPermissionsManager();
 				if (permissionsManager != null)
 				{
-					permissionsManager.onCustomPayload(sender, channel, data);
+					permissionsManager.onCustomPayload(sender, channel, PluginChannels.getReadOnlySlice(data));
 				}
 			}
 			catch (Exception ex) {}
@@ -132,6 +200,41 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 		}
 	}
 
+	/**
+	 * @param sender
+	 * @param data
+	 */
+	protected void onRegisterPacketReceived(EntityPlayerMP sender, PacketBuffer data)
+	{
+		List<String> channels = PluginChannels.readChannelList(data);
+		this.remotePluginChannels.addAll(channels);
+		
+		if (sender != null)
+		{
+			Set<String> senderChannels = this.playerChannels.get(sender.getUniqueID());
+			if (senderChannels == null)
+			{
+				senderChannels = new HashSet<String>();
+				this.playerChannels.put(sender.getUniqueID(), senderChannels);
+			}
+			
+			senderChannels.addAll(channels);
+		}
+	}
+	
+	/**
+	 * @param sender
+	 * @param data
+	 */
+	protected void onUnregisterPacketReceived(EntityPlayerMP sender, PacketBuffer data)
+	{
+		Set<String> senderChannels = sender != null ? this.playerChannels.get(sender.getUniqueID()) : null;
+		if (senderChannels != null)
+		{
+			senderChannels.removeAll(PluginChannels.readChannelList(data));
+		}
+	}
+
 	/**
 	 * @param sender
 	 * @param channel
@@ -143,24 +246,11 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 		{
 			try
 			{
-				pluginChannelListener.onCustomPayload(sender, channel, data);
-				throw new RuntimeException();
+				pluginChannelListener.onCustomPayload(sender, channel, PluginChannels.getReadOnlySlice(data));
 			}
 			catch (Exception ex)
 			{
-				int failCount = 1;
-				if (this.faultingPluginChannelListeners.containsKey(pluginChannelListener))
-					failCount = this.faultingPluginChannelListeners.get(pluginChannelListener).intValue() + 1;
-				
-				if (failCount >= PluginChannels.WARN_FAULT_THRESHOLD)
-				{
-					LiteLoaderLogger.warning("Plugin channel listener %s exceeded fault threshold on channel %s with %s", pluginChannelListener.getName(), channel, ex.getClass().getSimpleName());
-					this.faultingPluginChannelListeners.remove(pluginChannelListener);
-				}
-				else
-				{
-					this.faultingPluginChannelListeners.put(pluginChannelListener, Integer.valueOf(failCount));
-				}
+				this.onListenerFault(pluginChannelListener, channel, ex);
 			}
 		}
 	}
@@ -207,6 +297,40 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 		return false;
 	}
 	
+	/**
+	 * Send a message to all connected clients on a plugin channel
+	 * 
+	 * @param channel Channel to send, must not be a reserved channel name
+	 * @param data
+	 * @param policy
+	 * @return number of clients the message was sent to
+	 */
+	public static int sendToAll(String channel, PacketBuffer data, ChannelPolicy policy)
+	{
+		return ServerPluginChannels.broadcast(channel, data, null, policy);
+	}
+	
+	/**
+	 * Send a message to all connected clients matching the supplied filter on a plugin channel. The payload is
+	 * shared between all of the outbound packets rather than being copied for each recipient. Clients which have
+	 * not registered the channel are skipped unless the policy is DISPATCH_ALWAYS.
+	 * 
+	 * @param channel Channel to send, must not be a reserved channel name
+	 * @param data
+	 * @param filter Filter for recipients, can be null to send to all clients
+	 * @param policy
+	 * @return number of clients the message was sent to
+	 */
+	public static int broadcast(String channel, PacketBuffer data, Predicate<EntityPlayerMP> filter, ChannelPolicy policy)
+	{
+		if (ServerPluginChannels.instance != null)
+		{
+			return ServerPluginChannels.instance.sendToPlayers(channel, data, filter, policy);
+		}
+		
+		return 0;
+	}
+	
 	/**
 	 * Send a message to the specified client on a plugin channel
 	 * 
@@ -218,10 +342,9 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 	{
 		if (recipient == null) return false;
 		
-		if (channel == null || channel.length() > 16 || CHANNEL_REGISTER.equals(channel) || CHANNEL_UNREGISTER.equals(channel))
-			throw new RuntimeException("Invalid channel name specified"); 
+		ServerPluginChannels.validateChannel(channel);
 		
-		if (!policy.allows(this, channel))
+		if (!policy.allows(this.isRemoteChannelRegistered(recipient, channel)))
 		{
 			if (policy.isSilent()) return false;
 			throw new UnregisteredChannelException(channel);
@@ -231,6 +354,44 @@ public class ServerPluginChannels extends PluginChannels<ServerPluginChannelList
 		return ServerPluginChannels.dispatch(recipient, payload);
 	}
 	
+	/**
+	 * @param channel
+	 * @param data
+	 * @param filter
+	 * @param policy
+	 */
+	private int sendToPlayers(String channel, PacketBuffer data, Predicate<EntityPlayerMP> filter, ChannelPolicy policy)
+	{
+		ServerPluginChannels.validateChannel(channel);
+		
+		MinecraftServer server = MinecraftServer.getServer();
+		if (server == null || server.getConfigurationManager() == null) return 0;
+		
+		int sent = 0;
+		
+		for (Object player : server.getConfigurationManager().playerEntityList)
+		{
+			EntityPlayerMP recipient = (EntityPlayerMP)player;
+			if ((filter == null || filter.apply(recipient)) && policy.allows(this.isRemoteChannelRegistered(recipient, channel)))
+			{
+				// Each packet gets its own view of the data because encoding the packet consumes the readable bytes
+				S3FPacketCustomPayload payload = new S3FPacketCustomPayload(channel, new PacketBuffer(data.duplicate()));
+				if (ServerPluginChannels.dispatch(recipient, payload)) sent++;
+			}
+		}
+		
+		return sent;
+	}
+	
+	/**
+	 * @param channel
+	 */
+	private static void validateChannel(String channel)
+	{
+		if (channel == null || channel.length() > 16 || PluginChannels.isReservedChannel(channel))
+			throw new RuntimeException("Invalid channel name specified"); 
+	}
+	
 	/**
 	 * @param recipient
 	 * @param payload
@@ -16,6 +16,11 @@ public class DefaultClassValidator<T> implements ModClassValidator
 		this.superClass = superClass;
 	}
 
+	public Class<T> getSuperClass()
+	{
+		return this.superClass;
+	}
+
 	@Override
 	public boolean validateName(String className)
 	{
@@ -1,5 +1,6 @@
 package com.mumfrey.liteloader.core.api;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -19,11 +20,19 @@ import com.mumfrey.liteloader.util.log.LiteLoaderLogger.Verbosity;
 public class DefaultEnumeratorPlugin implements EnumeratorPlugin
 {
 	private LoaderEnvironment environment;
+	
+	/**
+	 * Prefilter used to avoid loading classes which can't be mod classes
+	 */
+	private ModClassScanner scanner;
 
 	@Override
 	public void init(LoaderEnvironment environment, LoaderProperties properties)
 	{
 		this.environment = environment;
+		
+		File configFolder = environment.getVersionedConfigFolder();
+		this.scanner = new ModClassScanner(configFolder != null ? new File(configFolder, "classindex") : null);
 	}
 	
 	@Override
@@ -119,17 +128,12 @@ public class DefaultEnumeratorPlugin implements EnumeratorPlugin
 		{
 			try
 			{
-				for (String fullClassName : container.getContainedClassNames())
+				for (String fullClassName : this.getCandidateClassNames(container, classloader, validator))
 				{
-					boolean isDefaultPackage = fullClassName.lastIndexOf('.') == -1;
-					String className = isDefaultPackage ? fullClassName : fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
-					if (validator.validateName(className))
+					Class<? extends T> clazz = DefaultEnumeratorPlugin.<T>checkClass(classloader, validator, fullClassName);
+					if (clazz != null && !classes.contains(clazz))
 					{
-						Class<? extends T> clazz = DefaultEnumeratorPlugin.<T>checkClass(classloader, validator, fullClassName);
-						if (clazz != null && !classes.contains(clazz))
-						{
-							classes.add(clazz);
-						}
+						classes.add(clazz);
 					}
 				}
 			}
@@ -147,6 +151,40 @@ public class DefaultEnumeratorPlugin implements EnumeratorPlugin
 		return classes;
 	}
 
+	/**
+	 * Get the names of classes in the container which pass the name check, if the validator is checking for a
+	 * specific super class then the class headers are also inspected so that we only load likely candidates
+	 * 
+	 * @param container
+	 * @param classloader
+	 * @param validator
+	 */
+	private List<String> getCandidateClassNames(LoadableMod<?> container, ClassLoader classloader, ModClassValidator validator)
+	{
+		List<String> candidateClassNames = new ArrayList<String>();
+		
+		for (String fullClassName : container.getContainedClassNames())
+		{
+			if (fullClassName.indexOf('$') > -1)
+				continue;
+			
+			boolean isDefaultPackage = fullClassName.lastIndexOf('.') == -1;
+			String className = isDefaultPackage ? fullClassName : fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
+			if (validator.validateName(className))
+			{
+				candidateClassNames.add(fullClassName);
+			}
+		}
+		
+		if (this.scanner != null && validator instanceof DefaultClassValidator && candidateClassNames.size() > 0)
+		{
+			Class<?> superClass = ((DefaultClassValidator<?>)validator).getSuperClass();
+			return this.scanner.findModClasses(container, classloader, superClass, candidateClassNames);
+		}
+		
+		return candidateClassNames;
+	}
+
 	@SuppressWarnings("unchecked")
 	private static <T> Class<? extends T> checkClass(ClassLoader classLoader, ModClassValidator validator, String className) throws OutdatedLoaderException
 	{
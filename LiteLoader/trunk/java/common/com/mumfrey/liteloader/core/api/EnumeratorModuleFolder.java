@@ -10,14 +10,21 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.minecraft.launchwrapper.LaunchClassLoader;
 
 import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mumfrey.liteloader.api.EnumeratorModule;
 import com.mumfrey.liteloader.common.LoadingProgress;
 import com.mumfrey.liteloader.core.LiteLoaderVersion;
 import com.mumfrey.liteloader.interfaces.LoadableFile;
+import com.mumfrey.liteloader.interfaces.LoadableFileIndex;
 import com.mumfrey.liteloader.interfaces.LoadableMod;
 import com.mumfrey.liteloader.interfaces.ModularEnumerator;
 import com.mumfrey.liteloader.interfaces.TweakContainer;
@@ -33,6 +40,11 @@ import com.mumfrey.liteloader.util.log.LiteLoaderLogger.Verbosity;
  */
 public class EnumeratorModuleFolder implements FilenameFilter, EnumeratorModule
 {
+	/**
+	 * Maximum number of threads to use when reading candidate files
+	 */
+	private static final int MAX_DISCOVERY_THREADS = 4;
+	
 	/**
 	 * Ordered sets used to sort mods by version/revision  
 	 */
@@ -147,9 +159,8 @@ public class EnumeratorModuleFolder implements FilenameFilter, EnumeratorModule
 	 */
 	private void findValidFiles(ModularEnumerator enumerator)
 	{
-		for (File file : this.directory.listFiles(this.getFilenameFilter()))
+		for (LoadableFile candidateFile : this.readCandidateFiles(this.directory.listFiles(this.getFilenameFilter()), enumerator.getFileIndex()))
 		{
-			LoadableFile candidateFile = new LoadableFile(file);
 			candidateFile.setForceInjection(this.forceInjection);
 			try
 			{
@@ -161,6 +172,72 @@ public class EnumeratorModuleFolder implements FilenameFilter, EnumeratorModule
 			}
 		}
 	}
+	
+	/**
+	 * Read the candidate files, reading jar metadata is the expensive part of discovery so the files are read in
+	 * parallel. The returned list is always in the same order as the supplied files so that the ordering of the
+	 * candidates (and thus the version ordering) is the same as when they are read sequentially.
+	 * 
+	 * @param files
+	 * @param fileIndex
+	 */
+	private List<LoadableFile> readCandidateFiles(File[] files, final LoadableFileIndex fileIndex)
+	{
+		List<LoadableFile> candidateFiles = new ArrayList<LoadableFile>(files.length);
+		
+		int threads = Math.min(Math.min(Runtime.getRuntime().availableProcessors(), EnumeratorModuleFolder.MAX_DISCOVERY_THREADS), files.length);
+		if (threads < 2)
+		{
+			for (File file : files)
+			{
+				candidateFiles.add(new LoadableFile(file, fileIndex));
+			}
+			
+			return candidateFiles;
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("LiteLoader Discovery %d").setDaemon(true).build());
+		
+		try
+		{
+			List<Future<LoadableFile>> futures = new ArrayList<Future<LoadableFile>>(files.length);
+			for (final File file : files)
+			{
+				futures.add(executor.submit(new Callable<LoadableFile>()
+				{
+					@Override
+					public LoadableFile call() throws Exception
+					{
+						return new LoadableFile(file, fileIndex);
+					}
+				}));
+			}
+			
+			for (int index = 0; index < files.length; index++)
+			{
+				try
+				{
+					candidateFiles.add(futures.get(index).get());
+				}
+				catch (InterruptedException ex)
+				{
+					Thread.currentThread().interrupt();
+					candidateFiles.add(new LoadableFile(files[index], fileIndex));
+				}
+				catch (ExecutionException ex)
+				{
+					LiteLoaderLogger.warning(ex.getCause(), "An error occurred whilst reading %s", files[index]);
+					candidateFiles.add(new LoadableFile(files[index], fileIndex));
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		
+		return candidateFiles;
+	}
 
 	/**
 	 * Check whether a particular file is valid, and add it to the candiates list if it appears to be acceptable
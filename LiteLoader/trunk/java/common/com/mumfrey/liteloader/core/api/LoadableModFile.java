@@ -434,6 +434,11 @@ public class LoadableModFile extends LoadableFile implements LoadableMod<File>
 		{
 			return LoadableModFile.enumerateDirectory(new ArrayList<String>(), this, "", 0);
 		}
+		
+		if (this.scannedClassNames != null)
+		{
+			return this.scannedClassNames;
+		}
 
 		return LoadableModFile.enumerateZipFile(this);
 	}
@@ -0,0 +1,344 @@
+package com.mumfrey.liteloader.core.api;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mumfrey.liteloader.interfaces.LoadableMod;
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
+
+/**
+ * Filters the candidate classes in a mod container by reading the class headers with a ClassReader instead of
+ * loading each class, only classes which implement the mod base type (or whose hierarchy cannot be resolved) are
+ * returned. Results for jar containers are stored in a small per-container index so that unchanged jars don't
+ * need to be scanned on subsequent launches.
+ *
+ * @author Adam Mummery-Smith
+ */
+public class ModClassScanner
+{
+	/**
+	 * Gson object for serialisation/deserialisation
+	 */
+	private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+	/**
+	 * Serialised scan results for a single container
+	 */
+	static class ContainerIndex
+	{
+		String location;
+		long size;
+		long lastModified;
+		String filter;
+		List<String> classes;
+
+		boolean isValidFor(File file, String filter)
+		{
+			return file.getAbsolutePath().equals(this.location) && file.length() == this.size && file.lastModified() == this.lastModified
+				&& filter.equals(this.filter) && this.classes != null;
+		}
+	}
+
+	/**
+	 * Folder to store container indexes in, can be null if indexing is not available
+	 */
+	private final File indexFolder;
+
+	/**
+	 * Resolved hierarchy results, keyed by internal class name. A null value means the hierarchy could not
+	 * be resolved
+	 */
+	private final Map<String, Boolean> resolved = new HashMap<String, Boolean>();
+
+	/**
+	 * Internal name of the type we are looking for, the resolved map is only valid for this type
+	 */
+	private String targetType;
+
+	private int scanned, indexed;
+
+	/**
+	 * @param indexFolder Folder to store container indexes in, can be null
+	 */
+	public ModClassScanner(File indexFolder)
+	{
+		this.indexFolder = indexFolder;
+	}
+
+	/**
+	 * Filter the supplied candidate class names from the container down to the ones which could be mod classes
+	 *
+	 * @param container Container which the classes belong to
+	 * @param classLoader Class loader to read class bytes from
+	 * @param superClass Class which mod classes must extend or implement
+	 * @param classNames Candidate class names (binary names), these should already be filtered by name
+	 */
+	public List<String> findModClasses(LoadableMod<?> container, ClassLoader classLoader, Class<?> superClass, List<String> classNames)
+	{
+		String targetType = superClass.getName().replace('.', '/');
+		if (!targetType.equals(this.targetType))
+		{
+			this.resolved.clear();
+			this.targetType = targetType;
+		}
+
+		File file = container.toFile();
+		String filter = targetType + ";" + classNames.hashCode();
+		File indexFile = this.getIndexFile(file);
+
+		ContainerIndex index = this.readIndex(indexFile);
+		if (index != null && index.isValidFor(file, filter))
+		{
+			this.indexed++;
+			return index.classes;
+		}
+
+		List<String> modClasses = new ArrayList<String>();
+		for (String className : classNames)
+		{
+			String internalName = className.replace('.', '/');
+			if (this.isCandidate(classLoader, internalName))
+			{
+				modClasses.add(className);
+			}
+		}
+
+		this.scanned++;
+		LiteLoaderLogger.debug("Class scan of %s found %d candidate(s) in %d class(es)", container.getName(), modClasses.size(), classNames.size());
+
+		if (indexFile != null)
+		{
+			index = new ContainerIndex();
+			index.location = file.getAbsolutePath();
+			index.size = file.length();
+			index.lastModified = file.lastModified();
+			index.filter = filter;
+			index.classes = modClasses;
+			this.writeIndex(indexFile, index);
+		}
+
+		return modClasses;
+	}
+
+	public int getScannedCount()
+	{
+		return this.scanned;
+	}
+
+	public int getIndexedCount()
+	{
+		return this.indexed;
+	}
+
+	/**
+	 * Check whether the specified class should be loaded, classes which we can't read are always loaded so that
+	 * the validator can make the final decision
+	 *
+	 * @param classLoader
+	 * @param internalName
+	 */
+	private boolean isCandidate(ClassLoader classLoader, String internalName)
+	{
+		ClassReader reader = ModClassScanner.readClassHeader(classLoader, internalName);
+		if (reader == null)
+		{
+			return true;
+		}
+
+		if ((reader.getAccess() & Opcodes.ACC_INTERFACE) != 0)
+		{
+			return false;
+		}
+
+		Boolean result = this.resolve(classLoader, internalName, reader);
+		return result == null || result.booleanValue();
+	}
+
+	/**
+	 * Determine whether the specified type is (or extends or implements) the target type, returns null if the
+	 * hierarchy can't be resolved
+	 *
+	 * @param classLoader
+	 * @param internalName
+	 */
+	private Boolean resolve(ClassLoader classLoader, String internalName)
+	{
+		if (internalName == null || internalName.startsWith("java/"))
+		{
+			return Boolean.FALSE;
+		}
+
+		if (internalName.equals(this.targetType))
+		{
+			return Boolean.TRUE;
+		}
+
+		if (this.resolved.containsKey(internalName))
+		{
+			return this.resolved.get(internalName);
+		}
+
+		return this.resolve(classLoader, internalName, ModClassScanner.readClassHeader(classLoader, internalName));
+	}
+
+	/**
+	 * @param classLoader
+	 * @param internalName
+	 * @param reader
+	 */
+	private Boolean resolve(ClassLoader classLoader, String internalName, ClassReader reader)
+	{
+		if (this.resolved.containsKey(internalName))
+		{
+			return this.resolved.get(internalName);
+		}
+
+		if (reader == null)
+		{
+			this.resolved.put(internalName, null);
+			return null;
+		}
+
+		// Guard against circular hierarchies in broken classes
+		this.resolved.put(internalName, Boolean.FALSE);
+
+		Boolean result = this.resolve(classLoader, reader.getSuperName());
+		for (String interfaceName : reader.getInterfaces())
+		{
+			if (result == Boolean.TRUE) break;
+
+			Boolean interfaceResult = this.resolve(classLoader, interfaceName);
+			if (interfaceResult != Boolean.FALSE)
+			{
+				result = interfaceResult;
+			}
+		}
+
+		this.resolved.put(internalName, result);
+		return result;
+	}
+
+	/**
+	 * Read the class header without defining the class, returns null if the class can't be read
+	 *
+	 * @param classLoader
+	 * @param internalName
+	 */
+	private static ClassReader readClassHeader(ClassLoader classLoader, String internalName)
+	{
+		InputStream stream = classLoader.getResourceAsStream(internalName + ".class");
+		if (stream == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return new ClassReader(stream);
+		}
+		catch (Exception ex)
+		{
+			return null;
+		}
+		finally
+		{
+			try
+			{
+				stream.close();
+			}
+			catch (IOException ex) {}
+		}
+	}
+
+	/**
+	 * Get the index file for the specified container file, only jar containers are indexed since we can't
+	 * cheaply detect changes to directory containers
+	 *
+	 * @param file
+	 */
+	private File getIndexFile(File file)
+	{
+		if (this.indexFolder == null || file == null || !file.isFile())
+		{
+			return null;
+		}
+
+		return new File(this.indexFolder, String.format("%s.%08x.json", file.getName(), file.getAbsolutePath().hashCode()));
+	}
+
+	/**
+	 * @param indexFile
+	 */
+	private ContainerIndex readIndex(File indexFile)
+	{
+		if (indexFile == null || !indexFile.isFile())
+		{
+			return null;
+		}
+
+		FileReader reader = null;
+
+		try
+		{
+			reader = new FileReader(indexFile);
+			return ModClassScanner.gson.fromJson(reader, ContainerIndex.class);
+		}
+		catch (Exception ex)
+		{
+			LiteLoaderLogger.debug("Discarding unreadable class index %s", indexFile.getName());
+			return null;
+		}
+		finally
+		{
+			try
+			{
+				if (reader != null) reader.close();
+			}
+			catch (IOException ex) {}
+		}
+	}
+
+	/**
+	 * @param indexFile
+	 * @param index
+	 */
+	private void writeIndex(File indexFile, ContainerIndex index)
+	{
+		if (!this.indexFolder.isDirectory() && !this.indexFolder.mkdirs())
+		{
+			return;
+		}
+
+		FileWriter writer = null;
+
+		try
+		{
+			writer = new FileWriter(indexFile);
+			ModClassScanner.gson.toJson(index, writer);
+		}
+		catch (IOException ex)
+		{
+			LiteLoaderLogger.debug(ex, "Error writing class index %s", indexFile.getName());
+		}
+		finally
+		{
+			try
+			{
+				if (writer != null) writer.close();
+			}
+			catch (IOException ex) {}
+		}
+	}
+}
@@ -31,6 +31,7 @@ import org.objectweb.asm.util.CheckClassAdapter;
 import com.mumfrey.liteloader.Priority;
 import com.mumfrey.liteloader.core.runtime.Obf;
 import com.mumfrey.liteloader.interfaces.FastIterableDeque;
+import com.mumfrey.liteloader.transformers.BakedClassCache;
 import com.mumfrey.liteloader.transformers.ByteCodeUtilities;
 import com.mumfrey.liteloader.util.SortableValue;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
@@ -170,6 +171,22 @@ public class HandlerList<T> extends LinkedList<T> implements FastIterableDeque<T
 		this.sorted = sorted;
 	}
 	
+	/**
+	 * Get the interface type for objects in this handler list
+	 */
+	protected Class<T> getType()
+	{
+		return this.type;
+	}
+	
+	/**
+	 * Get the logic operation applied to interface methods which return boolean
+	 */
+	protected ReturnLogicOp getLogicOp()
+	{
+		return this.logicOp;
+	}
+	
 	/**
 	 * True if the list will be sorted by priority on bake
 	 */
@@ -252,6 +269,14 @@ public class HandlerList<T> extends LinkedList<T> implements FastIterableDeque<T
 		}
 	}
 
+	/**
+	 * True if the list currently has a baked handler
+	 */
+	protected boolean isBaked()
+	{
+		return this.bakedHandler != null;
+	}
+
 	protected IHandlerListDecorator<T> getDecorator()
 	{
 		return null;
@@ -611,6 +636,11 @@ public class HandlerList<T> extends LinkedList<T> implements FastIterableDeque<T
 		 * Size of the handler list
 		 */
 		private int size;
+		
+		/**
+		 * Key for the baked class in the class cache, null if the class is not cacheable
+		 */
+		private String cacheKey;
 
 		/**
 		 * @param type
@@ -639,13 +669,17 @@ public class HandlerList<T> extends LinkedList<T> implements FastIterableDeque<T
 				this.decorator.prepare(sortedList);
 			}
 			
-			Class<BakedHandlerList<T>> handlerClass = null;
+			this.cacheKey = this.getCacheKey(sortedList);
+			Class<BakedHandlerList<T>> handlerClass = this.defineCachedClass();
 
 			try
 			{
-				// Inflect the class name and attempt to generate the class
-				String className = HandlerListClassLoader.getNextClassName(Obf.HandlerList.name, this.type.getSimpleName());
-				handlerClass = (Class<BakedHandlerList<T>>)this.loadClass(className);
+				if (handlerClass == null)
+				{
+					// Inflect the class name and attempt to generate the class
+					String className = HandlerListClassLoader.getNextClassName(Obf.HandlerList.name, this.type.getSimpleName());
+					handlerClass = (Class<BakedHandlerList<T>>)this.loadClass(className);
+				}
 			}
 			catch (ClassNotFoundException ex)
 			{
@@ -664,6 +698,58 @@ public class HandlerList<T> extends LinkedList<T> implements FastIterableDeque<T
 			}
 		}
 
+		/**
+		 * Get the key for this handler list in the class cache, the generated bytecode depends only on the
+		 * interface, logic op, template, decorator and list size but we also include the listener classes
+		 * so that decorators which use them don't need to worry about it.
+		 * 
+		 * @param sortedList
+		 */
+		private String getCacheKey(List<T> sortedList)
+		{
+			if (!BakedClassCache.isEnabled() || (this.decorator != null && !(this.decorator instanceof ICacheableHandlerListDecorator)))
+			{
+				return null;
+			}
+			
+			StringBuilder listeners = new StringBuilder();
+			for (T listener : sortedList)
+			{
+				listeners.append(listener.getClass().getName()).append(';');
+			}
+			
+			String decoratorKey = this.decorator != null ? ((ICacheableHandlerListDecorator<T>)this.decorator).getCacheKey() : "";
+			return BakedClassCache.getKey(Obf.HandlerList.name, this.type.getName(), BakedClassCache.getSourceStamp(this.type),
+					this.logicOp, this.getTemplate().name, decoratorKey, this.size, listeners);
+		}
+		
+		/**
+		 * Define the baked class from the class cache, returns null if the class is not cached or the cached
+		 * bytes could not be defined
+		 */
+		@SuppressWarnings("unchecked")
+		private Class<BakedHandlerList<T>> defineCachedClass()
+		{
+			byte[] bytes = BakedClassCache.get(this.cacheKey);
+			if (bytes == null)
+			{
+				return null;
+			}
+			
+			try
+			{
+				Class<BakedHandlerList<T>> handlerClass = (Class<BakedHandlerList<T>>)this.defineClass(null, bytes, 0, bytes.length);
+				LiteLoaderLogger.debug("Loaded baked listener list for %s with %d listeners from the class cache", this.type.getSimpleName(), this.size);
+				return handlerClass;
+			}
+			catch (LinkageError err)
+			{
+				LiteLoaderLogger.debug(err, "Discarding unusable cached listener list for %s", this.type.getSimpleName());
+				BakedClassCache.remove(this.cacheKey);
+				return null;
+			}
+		}
+
 		/**
 		 * Create an instance of the baked class
 		 * 
@@ -725,7 +811,9 @@ public class HandlerList<T> extends LinkedList<T> implements FastIterableDeque<T
 				}
 				
 				// Delegate to ClassLoader's usual behaviour to load the class we just generated
-				return this.defineClass(name, bytes, 0, bytes.length);
+				Class<?> handlerClass = this.defineClass(name, bytes, 0, bytes.length);
+				BakedClassCache.put(this.cacheKey, bytes);
+				return handlerClass;
 			}
 			catch (Throwable th)
 			{
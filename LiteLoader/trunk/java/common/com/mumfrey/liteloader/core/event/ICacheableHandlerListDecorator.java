@@ -0,0 +1,18 @@
+package com.mumfrey.liteloader.core.event;
+
+/**
+ * Handler list decorator whose generated bytecode can be stored in the class cache. Baked lists which use
+ * a decorator that doesn't implement this interface are never cached.
+ * 
+ * @author Adam Mummery-Smith
+ *
+ * @param <T>
+ */
+public interface ICacheableHandlerListDecorator<T> extends IHandlerListDecorator<T>
+{
+	/**
+	 * Get a string which describes everything the decorator contributes to the generated bytecode, called
+	 * after prepare()
+	 */
+	public abstract String getCacheKey();
+}
@@ -0,0 +1,83 @@
+package com.mumfrey.liteloader.core.event;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the listener interfaces which have at least one registered listener. Events which exist only to feed the
+ * listeners of particular interfaces can be guarded by those interfaces (see Event.setGuard()), the injected guard
+ * checks the flags here and skips the whole event, including allocating the EventInfo, while none of the interfaces
+ * have any listeners. Providers call activate() when they register a listener so that a hook is switched back on as
+ * soon as something needs it.
+ *
+ * @author Adam Mummery-Smith
+ */
+public final class InterfaceGuards
+{
+	/**
+	 * Maximum number of interfaces which can be used as guards
+	 */
+	public static final int MAX_GUARDS = 256;
+	
+	/**
+	 * Flags checked by the injected guards, indexed by the slot assigned to each interface
+	 */
+	public static final boolean[] active = new boolean[InterfaceGuards.MAX_GUARDS];
+	
+	/**
+	 * Slots allocated so far, by interface name
+	 */
+	private static final Map<String, Integer> slots = new HashMap<String, Integer>();
+	
+	private InterfaceGuards()
+	{
+	}
+	
+	/**
+	 * Get the slot for the specified interface, allocating one if the interface has not been seen before. Returns -1
+	 * if all of the slots are in use, in which case the interface can't be used as a guard.
+	 * 
+	 * @param interfaceName Fully qualified name of the interface
+	 */
+	public static synchronized int getSlot(String interfaceName)
+	{
+		Integer slot = InterfaceGuards.slots.get(interfaceName);
+		if (slot == null)
+		{
+			if (InterfaceGuards.slots.size() >= InterfaceGuards.MAX_GUARDS)
+			{
+				return -1;
+			}
+			
+			slot = Integer.valueOf(InterfaceGuards.slots.size());
+			InterfaceGuards.slots.put(interfaceName, slot);
+		}
+		
+		return slot.intValue();
+	}
+	
+	/**
+	 * Called when a listener is registered for the specified interface, enables any events guarded by the interface
+	 * 
+	 * @param interfaceType
+	 */
+	public static void activate(Class<?> interfaceType)
+	{
+		int slot = InterfaceGuards.getSlot(interfaceType.getName());
+		if (slot > -1)
+		{
+			InterfaceGuards.active[slot] = true;
+		}
+	}
+	
+	/**
+	 * Get whether any listeners have been registered for the specified interface
+	 * 
+	 * @param interfaceName Fully qualified name of the interface
+	 */
+	public static boolean isActive(String interfaceName)
+	{
+		int slot = InterfaceGuards.getSlot(interfaceName);
+		return slot < 0 || InterfaceGuards.active[slot];
+	}
+}
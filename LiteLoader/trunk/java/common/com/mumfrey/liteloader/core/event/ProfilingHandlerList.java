@@ -79,7 +79,7 @@ public class ProfilingHandlerList<T extends Listener> extends HandlerList<T>
 	/**
 	 * Decorator which adds the profiler section calls to the invokation lists
 	 */
-	static class ProfilingHandlerListDecorator<T extends Listener> implements IHandlerListDecorator<T>
+	static class ProfilingHandlerListDecorator<T extends Listener> implements ICacheableHandlerListDecorator<T>
 	{
 		private final Profiler profiler;
 		
@@ -114,6 +114,16 @@ public class ProfilingHandlerList<T extends Listener> extends HandlerList<T>
 			}
 		}
 
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.ICacheableHandlerListDecorator#getCacheKey()
+		 */
+		@Override
+		public String getCacheKey()
+		{
+			// Section names are baked into the generated code as constants
+			return this.names.toString();
+		}
+
 		/* (non-Javadoc)
 		 * @see com.mumfrey.liteloader.core.event.IHandlerListDecorator#createInstance(java.lang.Class)
 		 */
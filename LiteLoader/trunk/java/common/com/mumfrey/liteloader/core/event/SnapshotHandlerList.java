@@ -0,0 +1,413 @@
+package com.mumfrey.liteloader.core.event;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.minecraft.launchwrapper.Launch;
+
+import org.apache.commons.io.FileUtils;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import com.mumfrey.liteloader.core.runtime.Obf;
+import com.mumfrey.liteloader.transformers.ByteCodeUtilities;
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
+
+/**
+ * A HandlerList for lists whose membership changes frequently (for example lists of per-player state).
+ * Rather than rebaking a new class on every add or remove, the list dispatches from an immutable array
+ * snapshot which is swapped on each change, and only bakes the list into a class once membership has
+ * remained unchanged for the specified settle time. The snapshot dispatcher class is generated only once
+ * for each interface type and logic op and is shared by all lists of that type.
+ *
+ * @author Adam Mummery-Smith
+ *
+ * @param <T>
+ */
+public class SnapshotHandlerList<T> extends HandlerList<T>
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Default time (in milliseconds) that the list membership must remain unchanged before the list is baked
+	 */
+	public static final long DEFAULT_SETTLE_TIME = 5000L;
+
+	/**
+	 * Dispatcher constructors, keyed by interface type and logic op
+	 */
+	private static final Map<String, Constructor<?>> dispatchers = new HashMap<String, Constructor<?>>();
+
+	/**
+	 * Class loader for generated dispatchers, dispatchers are never unloaded so we only need one
+	 */
+	private static DispatcherClassLoader dispatcherClassLoader;
+
+	/**
+	 * Time (in milliseconds) that the list membership must remain unchanged before the list is baked
+	 */
+	private long settleTime;
+
+	/**
+	 * System time when the list membership was last changed
+	 */
+	private volatile long lastChanged;
+
+	/**
+	 * Current snapshot dispatcher, replaced whenever the list membership changes
+	 */
+	private volatile T snapshot;
+
+	/**
+	 * @param type
+	 */
+	public SnapshotHandlerList(Class<T> type)
+	{
+		this(type, ReturnLogicOp.AND_BREAK_ON_FALSE);
+	}
+
+	/**
+	 * @param type
+	 * @param logicOp Logical operation to apply to interface methods which return boolean
+	 */
+	public SnapshotHandlerList(Class<T> type, ReturnLogicOp logicOp)
+	{
+		this(type, logicOp, true);
+	}
+
+	/**
+	 * @param type
+	 * @param logicOp Logical operation to apply to interface methods which return boolean
+	 * @param sorted True to sort the list when baking (doesn't sort the underlying list)
+	 */
+	public SnapshotHandlerList(Class<T> type, ReturnLogicOp logicOp, boolean sorted)
+	{
+		this(type, logicOp, sorted, SnapshotHandlerList.DEFAULT_SETTLE_TIME);
+	}
+
+	/**
+	 * @param type
+	 * @param logicOp Logical operation to apply to interface methods which return boolean
+	 * @param sorted True to sort the list when baking (doesn't sort the underlying list)
+	 * @param settleTime Time in milliseconds that membership must remain unchanged before the list is baked
+	 */
+	public SnapshotHandlerList(Class<T> type, ReturnLogicOp logicOp, boolean sorted, long settleTime)
+	{
+		super(type, logicOp, sorted);
+		this.settleTime = Math.max(0L, settleTime);
+	}
+
+	/**
+	 * Get the time in milliseconds that membership must remain unchanged before the list is baked
+	 */
+	public long getSettleTime()
+	{
+		return this.settleTime;
+	}
+
+	/**
+	 * Set the time in milliseconds that membership must remain unchanged before the list is baked, a
+	 * value of zero bakes on the next call to all() just like a regular HandlerList
+	 */
+	public void setSettleTime(long settleTime)
+	{
+		this.settleTime = Math.max(0L, settleTime);
+	}
+
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.core.event.HandlerList#all()
+	 */
+	@Override
+	public T all()
+	{
+		if (this.isBaked() || System.currentTimeMillis() - this.lastChanged >= this.settleTime)
+		{
+			return super.all();
+		}
+
+		T snapshot = this.snapshot;
+		if (snapshot == null)
+		{
+			snapshot = this.createSnapshot();
+			this.snapshot = snapshot;
+		}
+
+		return snapshot;
+	}
+
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.core.event.HandlerList#invalidate()
+	 */
+	@Override
+	public void invalidate()
+	{
+		super.invalidate();
+		this.lastChanged = System.currentTimeMillis();
+		this.snapshot = this.createSnapshot();
+	}
+
+	/**
+	 * Create a new dispatcher for the current list membership
+	 */
+	@SuppressWarnings("unchecked")
+	protected T createSnapshot()
+	{
+		List<T> sortedList = this.getSortedList();
+		Object[] handlers = sortedList.toArray(new Object[sortedList.size()]);
+
+		try
+		{
+			return (T)SnapshotHandlerList.getDispatcherConstructor(this.getType(), this.getLogicOp()).newInstance(new Object[] { handlers });
+		}
+		catch (Exception ex)
+		{
+			throw new BakingFailedException(ex);
+		}
+	}
+
+	/**
+	 * Get (generating if necessary) the dispatcher constructor for the specified type and logic op
+	 */
+	private static synchronized Constructor<?> getDispatcherConstructor(Class<?> type, ReturnLogicOp logicOp) throws Exception
+	{
+		String key = type.getName() + "/" + logicOp.name();
+		Constructor<?> ctor = SnapshotHandlerList.dispatchers.get(key);
+		if (ctor == null)
+		{
+			if (SnapshotHandlerList.dispatcherClassLoader == null)
+			{
+				SnapshotHandlerList.dispatcherClassLoader = new DispatcherClassLoader();
+			}
+
+			Class<?> dispatcherClass = SnapshotHandlerList.dispatcherClassLoader.generate(type, logicOp);
+			ctor = dispatcherClass.getDeclaredConstructor(Object[].class);
+			ctor.setAccessible(true);
+			SnapshotHandlerList.dispatchers.put(key, ctor);
+		}
+
+		return ctor;
+	}
+
+	/**
+	 * Base class for generated snapshot dispatchers
+	 *
+	 * @author Adam Mummery-Smith
+	 */
+	public static abstract class Dispatcher
+	{
+		/**
+		 * Immutable handler snapshot, generated code iterates over this array
+		 */
+		protected final Object[] handlers;
+
+		protected Dispatcher(Object[] handlers)
+		{
+			this.handlers = handlers;
+		}
+	}
+
+	/**
+	 * ClassLoader which generates the snapshot dispatchers. Unlike the baked lists, the generated code
+	 * iterates over the handler array so that one class can serve any list membership.
+	 *
+	 * @author Adam Mummery-Smith
+	 */
+	static class DispatcherClassLoader extends URLClassLoader
+	{
+		private static final String HANDLERS_FIELD = "handlers";
+
+		private static final String HANDLERS_DESC = "[Ljava/lang/Object;";
+
+		/**
+		 * Unique index number, just to ensure no name clashes
+		 */
+		private int dispatcherIndex;
+
+		DispatcherClassLoader()
+		{
+			super(new URL[0], Launch.classLoader);
+		}
+
+		/**
+		 * Generate and define a new dispatcher class for the specified interface
+		 *
+		 * @param type Interface type
+		 * @param logicOp Logic operation to apply to interface methods which return boolean
+		 */
+		Class<?> generate(Class<?> type, ReturnLogicOp logicOp) throws Exception
+		{
+			String name = String.format("%s$Snapshot%s%d", Obf.HandlerList.name, type.getSimpleName(), this.dispatcherIndex++);
+			LiteLoaderLogger.debug("Generating snapshot dispatcher %s for %s", name, type.getName());
+
+			ClassNode classNode = new ClassNode();
+			classNode.version = Opcodes.V1_6;
+			classNode.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER;
+			classNode.name = name.replace('.', '/');
+			classNode.superName = Obf.SnapshotDispatcher.ref;
+			classNode.interfaces.add(Type.getInternalName(type));
+			classNode.sourceFile = name.substring(name.lastIndexOf('.') + 1) + ".java";
+
+			this.generateCtor(classNode);
+
+			Set<String> generatedMethods = new HashSet<String>();
+			for (Method interfaceMethod : type.getMethods())
+			{
+				String desc = Type.getMethodDescriptor(interfaceMethod);
+				if (generatedMethods.add(interfaceMethod.getName() + desc))
+				{
+					this.generateMethod(classNode, Type.getInternalName(type), interfaceMethod.getName(), desc, logicOp);
+				}
+			}
+
+			ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+			classNode.accept(classWriter);
+			byte[] bytes = classWriter.toByteArray();
+
+			if (HandlerListClassLoader.DUMP)
+			{
+				FileUtils.writeByteArrayToFile(new File(".classes/" + name.replace('.', '/') + ".class"), bytes);
+			}
+
+			return this.defineClass(name, bytes, 0, bytes.length);
+		}
+
+		/**
+		 * Generate the ctor, which just passes the handler array to the superclass
+		 *
+		 * @param classNode
+		 */
+		private void generateCtor(ClassNode classNode)
+		{
+			MethodNode ctor = new MethodNode(Opcodes.ACC_PUBLIC, Obf.constructor.name, "(" + DispatcherClassLoader.HANDLERS_DESC + ")V", null, null);
+			ctor.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+			ctor.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+			ctor.instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, Obf.SnapshotDispatcher.ref, Obf.constructor.name, ctor.desc, false));
+			ctor.instructions.add(new InsnNode(Opcodes.RETURN));
+			classNode.methods.add(ctor);
+		}
+
+		/**
+		 * Generate an interface method which iterates over the handler array and invokes each handler in turn
+		 *
+		 * @param classNode
+		 * @param typeRef
+		 * @param name
+		 * @param desc
+		 * @param logicOp
+		 */
+		private void generateMethod(ClassNode classNode, String typeRef, String name, String desc, ReturnLogicOp logicOp)
+		{
+			MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC, name, desc, null, null);
+			Type returnType = Type.getReturnType(desc);
+			Type[] args = Type.getArgumentTypes(desc);
+			boolean isBoolean = returnType.equals(Type.BOOLEAN_TYPE);
+
+			int handlersLocal = ByteCodeUtilities.getArgsSize(args) + 1;
+			int indexLocal = handlersLocal + 1;
+			int resultLocal = indexLocal + 1;
+
+			LabelNode loop = new LabelNode();
+			LabelNode next = new LabelNode();
+			LabelNode end = new LabelNode();
+
+			// Object[] handlers = this.handlers;
+			method.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+			method.instructions.add(new FieldInsnNode(Opcodes.GETFIELD, Obf.SnapshotDispatcher.ref, DispatcherClassLoader.HANDLERS_FIELD, DispatcherClassLoader.HANDLERS_DESC));
+			method.instructions.add(new VarInsnNode(Opcodes.ASTORE, handlersLocal));
+
+			if (isBoolean)
+			{
+				if (logicOp.isOr() && logicOp.assumeTrue())
+				{
+					// Empty list returns TRUE
+					LabelNode notEmpty = new LabelNode();
+					method.instructions.add(new VarInsnNode(Opcodes.ALOAD, handlersLocal));
+					method.instructions.add(new InsnNode(Opcodes.ARRAYLENGTH));
+					method.instructions.add(new JumpInsnNode(Opcodes.IFNE, notEmpty));
+					method.instructions.add(new InsnNode(Opcodes.ICONST_1));
+					method.instructions.add(new InsnNode(Opcodes.IRETURN));
+					method.instructions.add(notEmpty);
+				}
+
+				method.instructions.add(new InsnNode(logicOp.isOr() ? Opcodes.ICONST_0 : Opcodes.ICONST_1));
+				method.instructions.add(new VarInsnNode(Opcodes.ISTORE, resultLocal));
+			}
+
+			// for (int i = 0; i < handlers.length; i++)
+			method.instructions.add(new InsnNode(Opcodes.ICONST_0));
+			method.instructions.add(new VarInsnNode(Opcodes.ISTORE, indexLocal));
+			method.instructions.add(loop);
+			method.instructions.add(new VarInsnNode(Opcodes.ILOAD, indexLocal));
+			method.instructions.add(new VarInsnNode(Opcodes.ALOAD, handlersLocal));
+			method.instructions.add(new InsnNode(Opcodes.ARRAYLENGTH));
+			method.instructions.add(new JumpInsnNode(Opcodes.IF_ICMPGE, end));
+
+			// ((T)handlers[i]).method(args)
+			method.instructions.add(new VarInsnNode(Opcodes.ALOAD, handlersLocal));
+			method.instructions.add(new VarInsnNode(Opcodes.ILOAD, indexLocal));
+			method.instructions.add(new InsnNode(Opcodes.AALOAD));
+			method.instructions.add(new TypeInsnNode(Opcodes.CHECKCAST, typeRef));
+			ByteCodeUtilities.loadArgs(args, method.instructions, 1);
+			method.instructions.add(new MethodInsnNode(Opcodes.INVOKEINTERFACE, typeRef, name, desc, true));
+
+			if (isBoolean)
+			{
+				// Same semantics as the baked invokation chain
+				method.instructions.add(new JumpInsnNode(logicOp.isOr() ? Opcodes.IFEQ : Opcodes.IFNE, next));
+				method.instructions.add(new InsnNode(logicOp.isOr() ? Opcodes.ICONST_1 : Opcodes.ICONST_0));
+				method.instructions.add(logicOp.breakOnMatch() ? new InsnNode(Opcodes.IRETURN) : new VarInsnNode(Opcodes.ISTORE, resultLocal));
+			}
+			else if (returnType.getSize() > 0)
+			{
+				method.instructions.add(new InsnNode(returnType.getSize() == 1 ? Opcodes.POP : Opcodes.POP2));
+			}
+
+			method.instructions.add(next);
+			method.instructions.add(new IincInsnNode(indexLocal, 1));
+			method.instructions.add(new JumpInsnNode(Opcodes.GOTO, loop));
+			method.instructions.add(end);
+
+			if (isBoolean)
+			{
+				method.instructions.add(new VarInsnNode(Opcodes.ILOAD, resultLocal));
+			}
+			else
+			{
+				DispatcherClassLoader.pushDefaultValue(method.instructions, returnType);
+			}
+
+			method.instructions.add(new InsnNode(returnType.getOpcode(Opcodes.IRETURN)));
+			classNode.methods.add(method);
+		}
+
+		/**
+		 * Push the default value for the specified return type onto the stack
+		 *
+		 * @param insns
+		 * @param returnType
+		 */
+		private static void pushDefaultValue(InsnList insns, Type returnType)
+		{
+			switch (returnType.getSort())
+			{
+				case Type.VOID:   return;
+				case Type.OBJECT:
+				case Type.ARRAY:  insns.add(new InsnNode(Opcodes.ACONST_NULL)); return;
+				case Type.LONG:   insns.add(new InsnNode(Opcodes.LCONST_0));    return;
+				case Type.FLOAT:  insns.add(new InsnNode(Opcodes.FCONST_0));    return;
+				case Type.DOUBLE: insns.add(new InsnNode(Opcodes.DCONST_0));    return;
+				default:          insns.add(new InsnNode(Opcodes.ICONST_0));    return;
+			}
+		}
+	}
+}
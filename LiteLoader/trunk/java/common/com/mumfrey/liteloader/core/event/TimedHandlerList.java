@@ -0,0 +1,499 @@
+package com.mumfrey.liteloader.core.event;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.profiler.Profiler;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import com.mumfrey.liteloader.api.Listener;
+import com.mumfrey.liteloader.core.runtime.Obf;
+import com.mumfrey.liteloader.transformers.ByteCodeUtilities;
+import com.mumfrey.liteloader.transformers.ClassTransformer;
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
+
+/**
+ * A HandlerList which times every invokation of every listener using System.nanoTime() and keeps a rolling window of
+ * the times for each listener. Intended for tick lists, where a single slow mod can eat the whole 50ms tick, so it is
+ * always on: the overhead is two calls to nanoTime() and a few field updates per listener.
+ *
+ * If a listener takes longer than the budget (set via the liteloader.tickbudget property, in milliseconds, 0 to
+ * disable) a warning naming the listener is logged, at most once per window for each listener. If a profiler is
+ * supplied the invokations are also wrapped in profiler sections, as with ProfilingHandlerList.
+ *
+ * @author Adam Mummery-Smith
+ *
+ * @param <T>
+ */
+public class TimedHandlerList<T extends Listener> extends HandlerList<T>
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Budget for a single invokation of a single listener, in milliseconds
+	 */
+	public static final int BUDGET_MS = Integer.getInteger("liteloader.tickbudget", 10);
+
+	/**
+	 * Number of invokations in the rolling window, 100 ticks is 5 seconds of game time
+	 */
+	public static final int WINDOW = Math.max(1, Integer.getInteger("liteloader.tickbudget.window", 100));
+
+	private static final long BUDGET_NANOS = TimedHandlerList.BUDGET_MS * 1000000L;
+
+	/**
+	 * Timing for a single listener in a single list
+	 */
+	public static final class ListenerTiming
+	{
+		private final String listName;
+
+		private final String listenerName;
+
+		private final long[] window = new long[TimedHandlerList.WINDOW];
+
+		private int windowPos, windowSize;
+
+		private long windowTotal;
+
+		private long count, totalTime, maxTime, overruns;
+
+		/**
+		 * Overruns since the last warning, and the invokation count at the last warning
+		 */
+		private long unreportedOverruns, lastWarning = -TimedHandlerList.WINDOW;
+
+		ListenerTiming(String listName, Listener listener)
+		{
+			String name = listener.getName();
+			this.listName = listName;
+			this.listenerName = name != null ? name + " (" + listener.getClass().getName() + ")" : listener.getClass().getName();
+		}
+
+		synchronized void record(long elapsed)
+		{
+			if (elapsed < 0) elapsed = 0;
+
+			this.windowTotal += elapsed - this.window[this.windowPos];
+			this.window[this.windowPos] = elapsed;
+			this.windowPos = (this.windowPos + 1) % this.window.length;
+			if (this.windowSize < this.window.length) this.windowSize++;
+
+			this.count++;
+			this.totalTime += elapsed;
+			if (elapsed > this.maxTime) this.maxTime = elapsed;
+
+			if (TimedHandlerList.BUDGET_NANOS > 0 && elapsed > TimedHandlerList.BUDGET_NANOS)
+			{
+				this.overruns++;
+				this.unreportedOverruns++;
+
+				if (this.count - this.lastWarning >= this.window.length)
+				{
+					LiteLoaderLogger.warning("%s took %.2fms in %s, the budget is %dms (%d overruns since the last warning, %d total)",
+							this.listenerName, elapsed / 1000000.0, this.listName, TimedHandlerList.BUDGET_MS, this.unreportedOverruns, this.overruns);
+					this.lastWarning = this.count;
+					this.unreportedOverruns = 0;
+				}
+			}
+		}
+
+		/**
+		 * Get the name of the list, eg. Tickable
+		 */
+		public String getListName()
+		{
+			return this.listName;
+		}
+
+		/**
+		 * Get the name of the listener, this is the mod name and the class name
+		 */
+		public String getListenerName()
+		{
+			return this.listenerName;
+		}
+
+		public synchronized long getCount()
+		{
+			return this.count;
+		}
+
+		/**
+		 * Get the total time spent in this listener, in nanoseconds
+		 */
+		public synchronized long getTotalTime()
+		{
+			return this.totalTime;
+		}
+
+		/**
+		 * Get the longest single invokation of this listener, in nanoseconds
+		 */
+		public synchronized long getMaxTime()
+		{
+			return this.maxTime;
+		}
+
+		/**
+		 * Get the number of invokations which exceeded the budget
+		 */
+		public synchronized long getOverruns()
+		{
+			return this.overruns;
+		}
+
+		/**
+		 * Get the mean time of the invokations in the current window, in nanoseconds
+		 */
+		public synchronized long getWindowAverage()
+		{
+			return this.windowSize > 0 ? this.windowTotal / this.windowSize : 0;
+		}
+
+		/**
+		 * Get the longest invokation in the current window, in nanoseconds
+		 */
+		public synchronized long getWindowMax()
+		{
+			long max = 0;
+			for (int i = 0; i < this.windowSize; i++)
+			{
+				if (this.window[i] > max) max = this.window[i];
+			}
+
+			return max;
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.listName + " -> " + this.listenerName;
+		}
+	}
+
+	/**
+	 * All timed lists, for reporting
+	 */
+	private static final List<TimedHandlerList<?>> lists = new ArrayList<TimedHandlerList<?>>();
+
+	/**
+	 * Profiler to pass in to baked handler lists, can be null
+	 */
+	private final Profiler profiler;
+
+	/**
+	 * Timings for each listener which has been in this list
+	 */
+	private final Map<T, ListenerTiming> timings = new IdentityHashMap<T, ListenerTiming>();
+
+	/**
+	 * @param type
+	 * @param profiler Profiler to use, or null to only time the listeners
+	 */
+	public TimedHandlerList(Class<T> type, Profiler profiler)
+	{
+		super(type);
+		this.profiler = profiler;
+
+		synchronized (TimedHandlerList.lists)
+		{
+			TimedHandlerList.lists.add(this);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.core.event.HandlerList#getDecorator()
+	 */
+	@Override
+	protected IHandlerListDecorator<T> getDecorator()
+	{
+		return new TimedHandlerListDecorator<T>(this);
+	}
+
+	/**
+	 * Get the timing for the specified listener, creating it if necessary
+	 *
+	 * @param listener
+	 */
+	ListenerTiming getTiming(T listener)
+	{
+		synchronized (this.timings)
+		{
+			ListenerTiming timing = this.timings.get(listener);
+			if (timing == null)
+			{
+				timing = new ListenerTiming(this.getType().getSimpleName(), listener);
+				this.timings.put(listener, timing);
+			}
+
+			return timing;
+		}
+	}
+
+	/**
+	 * Get the timings for all listeners which have been in this list
+	 */
+	public List<ListenerTiming> getTimings()
+	{
+		synchronized (this.timings)
+		{
+			return new ArrayList<ListenerTiming>(this.timings.values());
+		}
+	}
+
+	/**
+	 * Get the timings for all listeners in all timed lists, slowest (by mean time in the current window) first
+	 */
+	public static List<ListenerTiming> getAllTimings()
+	{
+		List<ListenerTiming> timings = new ArrayList<ListenerTiming>();
+		synchronized (TimedHandlerList.lists)
+		{
+			for (TimedHandlerList<?> list : TimedHandlerList.lists)
+			{
+				timings.addAll(list.getTimings());
+			}
+		}
+
+		TimedHandlerList.sort(timings);
+		return timings;
+	}
+
+	private static void sort(List<ListenerTiming> timings)
+	{
+		final Map<ListenerTiming, Long> averages = new IdentityHashMap<ListenerTiming, Long>();
+		for (ListenerTiming timing : timings)
+		{
+			averages.put(timing, timing.getWindowAverage());
+		}
+
+		Collections.sort(timings, new Comparator<ListenerTiming>()
+		{
+			@Override
+			public int compare(ListenerTiming a, ListenerTiming b)
+			{
+				long aTime = averages.get(a), bTime = averages.get(b);
+				return aTime < bTime ? 1 : aTime > bTime ? -1 : 0;
+			}
+		});
+	}
+
+	/**
+	 * Log the timings for all listeners in all timed lists
+	 */
+	public static void dump()
+	{
+		List<ListenerTiming> timings = TimedHandlerList.getAllTimings();
+
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		LiteLoaderLogger.info("Tick listener timings, budget %dms, window %d ticks", TimedHandlerList.BUDGET_MS, TimedHandlerList.WINDOW);
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		for (ListenerTiming timing : timings)
+		{
+			LiteLoaderLogger.info("%9.3fms avg %9.3fms max (window) %9.3fms max %10d calls %6d overruns  %s", timing.getWindowAverage() / 1000000.0,
+					timing.getWindowMax() / 1000000.0, timing.getMaxTime() / 1000000.0, timing.getCount(), timing.getOverruns(), timing);
+		}
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+	}
+
+	/**
+	 * Decorator which adds the timing calls (and profiler section calls) to the invokation lists
+	 */
+	static class TimedHandlerListDecorator<T extends Listener> implements ICacheableHandlerListDecorator<T>
+	{
+		private final TimedHandlerList<T> list;
+
+		private final List<String> names = new ArrayList<String>();
+
+		private ListenerTiming[] timings;
+
+		protected TimedHandlerListDecorator(TimedHandlerList<T> list)
+		{
+			this.list = list;
+		}
+
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.IHandlerListDecorator#getTemplate()
+		 */
+		@Override
+		public Obf getTemplate()
+		{
+			return Obf.BakedTimedHandlerList;
+		}
+
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.IHandlerListDecorator#prepare(java.util.List)
+		 */
+		@Override
+		public void prepare(List<T> sortedList)
+		{
+			this.names.clear();
+			this.timings = new ListenerTiming[sortedList.size()];
+
+			for (int i = 0; i < sortedList.size(); i++)
+			{
+				T listener = sortedList.get(i);
+				String name = listener.getName();
+				this.names.add(name != null ? name : listener.getClass().getSimpleName());
+				this.timings[i] = this.list.getTiming(listener);
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.ICacheableHandlerListDecorator#getCacheKey()
+		 */
+		@Override
+		public String getCacheKey()
+		{
+			// Section names are baked into the generated code as constants, the profiler flag decides whether they are used
+			return this.names.toString() + (this.list.profiler != null);
+		}
+
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.IHandlerListDecorator#createInstance(java.lang.Class)
+		 */
+		@Override
+		public BakedHandlerList<T> createInstance(Class<BakedHandlerList<T>> handlerClass) throws Exception
+		{
+			Constructor<BakedHandlerList<T>> ctor = handlerClass.getDeclaredConstructor(Profiler.class, ListenerTiming[].class);
+			ctor.setAccessible(true);
+			return ctor.newInstance(this.list.profiler, this.timings);
+		}
+
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.IHandlerListDecorator#populateClass(java.lang.String, org.objectweb.asm.tree.ClassNode)
+		 */
+		@Override
+		public void populateClass(String name, ClassNode classNode)
+		{
+		}
+
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.IHandlerListDecorator#processCtor(org.objectweb.asm.tree.ClassNode, org.objectweb.asm.tree.MethodNode)
+		 */
+		@Override
+		public void processCtor(ClassNode classNode, MethodNode method)
+		{
+			// Actually replace the ctor code because it's easier
+			method.instructions.clear();
+			method.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+			method.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+			method.instructions.add(new VarInsnNode(Opcodes.ALOAD, 2));
+			method.instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, Obf.BakedTimedHandlerList.ref, Obf.constructor.name, method.desc, false));
+			method.instructions.add(new InsnNode(Opcodes.RETURN));
+		}
+
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.IHandlerListDecorator#preInvokeInterfaceMethod(int, org.objectweb.asm.tree.ClassNode, org.objectweb.asm.tree.MethodNode, org.objectweb.asm.Type[])
+		 */
+		@Override
+		public void preInvokeInterfaceMethod(int handlerIndex, ClassNode classNode, MethodNode method, Type[] args)
+		{
+			if (this.list.profiler != null)
+			{
+				// Call this.startSection
+				method.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+				method.instructions.add(new LdcInsnNode(this.names.get(handlerIndex)));
+				method.instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, classNode.superName, "startSection", "(Ljava/lang/String;)V", false));
+			}
+
+			// long startTime = System.nanoTime(), stored after the local used by the boolean invokation chain
+			method.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false));
+			method.instructions.add(new VarInsnNode(Opcodes.LSTORE, TimedHandlerListDecorator.getStartTimeVar(args)));
+		}
+
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.IHandlerListDecorator#postInvokeInterfaceMethod(int, org.objectweb.asm.tree.ClassNode, org.objectweb.asm.tree.MethodNode, org.objectweb.asm.Type[])
+		 */
+		@Override
+		public void postInvokeInterfaceMethod(int handlerIndex, ClassNode classNode, MethodNode method, Type[] args)
+		{
+			// Call this.record(handlerIndex, System.nanoTime() - startTime)
+			method.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+			method.instructions.add(handlerIndex > Short.MAX_VALUE ? new LdcInsnNode(Integer.valueOf(handlerIndex)) : new IntInsnNode(Opcodes.SIPUSH, handlerIndex));
+			method.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false));
+			method.instructions.add(new VarInsnNode(Opcodes.LLOAD, TimedHandlerListDecorator.getStartTimeVar(args)));
+			method.instructions.add(new InsnNode(Opcodes.LSUB));
+			method.instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, classNode.superName, "record", "(IJ)V", false));
+
+			if (this.list.profiler != null)
+			{
+				// Call this.endSection
+				method.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
+				method.instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, classNode.superName, "endSection", "()V", false));
+			}
+		}
+
+		/* (non-Javadoc)
+		 * @see com.mumfrey.liteloader.core.event.IHandlerListDecorator#populateInterfaceMethod(org.objectweb.asm.tree.ClassNode, org.objectweb.asm.tree.MethodNode)
+		 */
+		@Override
+		public void populateInterfaceMethod(ClassNode classNode, MethodNode method)
+		{
+		}
+
+		/**
+		 * @param args
+		 */
+		private static int getStartTimeVar(Type[] args)
+		{
+			return ByteCodeUtilities.getArgsSize(args) + 2;
+		}
+	}
+
+	/**
+	 * Template class for the timed handler lists
+	 *
+	 * @author Adam Mummery-Smith
+	 *
+	 * @param <T>
+	 */
+	public static abstract class BakedList<T> extends HandlerList.BakedHandlerList<T>
+	{
+		private final Profiler profiler;
+
+		private final ListenerTiming[] timings;
+
+		public BakedList(Profiler profiler, ListenerTiming[] timings)
+		{
+			this.profiler = profiler;
+			this.timings = timings;
+		}
+
+		@Override
+		public abstract T get();
+
+		@Override
+		public abstract BakedHandlerList<T> populate(List<T> listeners);
+
+		protected void startSection(String name)
+		{
+			this.profiler.startSection(name);
+		}
+
+		protected void endSection()
+		{
+			this.profiler.endSection();
+		}
+
+		protected void record(int handlerIndex, long elapsed)
+		{
+			this.timings[handlerIndex].record(elapsed);
+		}
+	}
+}
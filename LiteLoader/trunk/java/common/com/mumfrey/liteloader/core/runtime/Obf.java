@@ -23,8 +23,17 @@ public class Obf
 	public static final Obf                  HandlerList = new Obf("com.mumfrey.liteloader.core.event.HandlerList"                     );
 	public static final Obf             BakedHandlerList = new Obf("com.mumfrey.liteloader.core.event.HandlerList$BakedHandlerList"    );
 	public static final Obf    BakedProfilingHandlerList = new Obf("com.mumfrey.liteloader.core.event.ProfilingHandlerList$BakedList"  );
+	public static final Obf        BakedTimedHandlerList = new Obf("com.mumfrey.liteloader.core.event.TimedHandlerList$BakedList"      );
+	public static final Obf           SnapshotDispatcher = new Obf("com.mumfrey.liteloader.core.event.SnapshotHandlerList$Dispatcher" );
 	public static final Obf                 PacketEvents = new Obf("com.mumfrey.liteloader.core.PacketEvents"                          );
 	public static final Obf           PacketEventsClient = new Obf("com.mumfrey.liteloader.client.PacketEventsClient"                  );
+	public static final Obf             GameLoopListener = new Obf("com.mumfrey.liteloader.GameLoopListener"                         );
+	public static final Obf               RenderListener = new Obf("com.mumfrey.liteloader.RenderListener"                           );
+	public static final Obf            PreRenderListener = new Obf("com.mumfrey.liteloader.PreRenderListener"                        );
+	public static final Obf           PostRenderListener = new Obf("com.mumfrey.liteloader.PostRenderListener"                       );
+	public static final Obf            HUDRenderListener = new Obf("com.mumfrey.liteloader.HUDRenderListener"                        );
+	public static final Obf           ChatRenderListener = new Obf("com.mumfrey.liteloader.ChatRenderListener"                       );
+	public static final Obf         EntityRenderListener = new Obf("com.mumfrey.liteloader.EntityRenderListener"                     );
 	public static final Obf                   LoadingBar = new Obf("com.mumfrey.liteloader.client.gui.startup.LoadingBar"              );
 	public static final Obf                  GameProfile = new Obf("com.mojang.authlib.GameProfile"                                    );
 	public static final Obf                MinecraftMain = new Obf("net.minecraft.client.main.Main"                                    );
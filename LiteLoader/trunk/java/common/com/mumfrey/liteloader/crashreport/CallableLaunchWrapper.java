@@ -7,6 +7,8 @@ import net.minecraft.crash.CrashReport;
 import net.minecraft.launchwrapper.IClassTransformer;
 import net.minecraft.launchwrapper.Launch;
 
+import com.mumfrey.liteloader.transformers.TransformerProfiler;
+
 public class CallableLaunchWrapper implements Callable<String>
 {
 	final CrashReport crashReport;
@@ -39,7 +41,7 @@ public class CallableLaunchWrapper implements Callable<String>
 		for (IClassTransformer transformer : transformers)
 		{
 			sb.append("\n          - Transformer: ");
-			sb.append(transformer.getClass().getName());
+			sb.append(TransformerProfiler.unwrap(transformer).getClass().getName());
 		}
 		
 		return sb.toString();
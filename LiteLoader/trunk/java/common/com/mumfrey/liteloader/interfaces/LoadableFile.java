@@ -7,16 +7,22 @@ import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
-import java.util.jar.Attributes;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Files;
 import com.google.common.primitives.Ints;
 import com.mumfrey.liteloader.core.api.LoadableModFile;
@@ -24,6 +30,7 @@ import com.mumfrey.liteloader.launch.ClassPathUtilities;
 import com.mumfrey.liteloader.launch.InjectionStrategy;
 import com.mumfrey.liteloader.launch.LiteLoaderTweaker;
 import com.mumfrey.liteloader.launch.LoaderEnvironment;
+import com.mumfrey.liteloader.transformers.event.json.ModEvents;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
 
 import net.minecraft.launchwrapper.LaunchClassLoader;
@@ -33,6 +40,12 @@ public class LoadableFile extends File implements TweakContainer<File>
 	private static final Pattern versionPattern = Pattern.compile("([0-9]+\\.)+[0-9]+([_A-Z0-9]+)?");
 
 	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Files which are read into memory when the jar is first inspected, so that later consumers don't need to
+	 * open the jar again
+	 */
+	private static final Set<String> scannedFileNames = ImmutableSet.of(LoadableMod.METADATA_FILENAME, ModEvents.DEFINITION_FILENAME);
 
 	/**
 	 * True once this file has been injected into the class path 
@@ -72,16 +85,48 @@ public class LoadableFile extends File implements TweakContainer<File>
 	protected String author = "Unknown";
 
 	protected boolean hasEventTransformers;
+	
+	/**
+	 * Main attributes from the jar manifest, null if the jar has no manifest 
+	 */
+	protected Map<String, String> manifestAttributes = null;
+	
+	/**
+	 * Contents of the scanned files read when the jar was inspected, null if the jar has not been scanned
+	 */
+	protected Map<String, String> scannedContents = null;
+	
+	/**
+	 * Classes found when the jar was inspected, only retained if the jar contains mod metadata
+	 */
+	protected List<String> scannedClassNames = null;
 
 	/**
 	 * Create a new tweak container wrapping the specified file
 	 */
 	public LoadableFile(File parent)
+	{
+		this(parent, null);
+	}
+	
+	/**
+	 * Create a new tweak container wrapping the specified file, the jar metadata is read from the supplied index
+	 * instead of the file itself if the file has not changed since it was indexed
+	 * 
+	 * @param parent
+	 * @param index Index to read and store the jar metadata, can be null
+	 */
+	public LoadableFile(File parent, LoadableFileIndex index)
 	{
 		super(parent.getAbsolutePath());
 		this.displayName = this.getName();
 		this.guessVersionFromName();
-		this.readJarMetaData();
+		
+		if (index == null || !index.restore(this))
+		{
+			this.readJarMetaData();
+			if (index != null) index.store(this);
+		}
 	}
 	
 	/**
@@ -114,14 +159,17 @@ public class LoadableFile extends File implements TweakContainer<File>
 	
 	protected void assignJarMetaData(LoadableFile file)
 	{
-		this.modSystems        = file.modSystems;
-		this.tweakClassName    = file.tweakClassName;
-		this.classPathEntries  = file.classPathEntries;
-		this.tweakPriority     = file.tweakPriority;
-		this.displayName       = file.displayName;
-		this.version           = file.version;
-		this.author            = file.author;
-		this.injectionStrategy = file.injectionStrategy;
+		this.modSystems         = file.modSystems;
+		this.tweakClassName     = file.tweakClassName;
+		this.classPathEntries   = file.classPathEntries;
+		this.tweakPriority      = file.tweakPriority;
+		this.displayName        = file.displayName;
+		this.version            = file.version;
+		this.author             = file.author;
+		this.injectionStrategy  = file.injectionStrategy;
+		this.manifestAttributes = file.manifestAttributes;
+		this.scannedContents    = file.scannedContents;
+		this.scannedClassNames  = file.scannedClassNames;
 	}
 
 	/**
@@ -142,60 +190,16 @@ public class LoadableFile extends File implements TweakContainer<File>
 			if (jar.getManifest() != null)
 			{
 				LiteLoaderLogger.info("Inspecting jar metadata in '%s'", this.getName());
-				Attributes manifestAttributes = jar.getManifest().getMainAttributes();
-				
-				String modSystemList = manifestAttributes.getValue("ModType");
-				if (modSystemList != null)
-				{
-					for (String modSystem : modSystemList.split(","))
-					{
-						modSystem = modSystem.trim();
-						if (modSystem.length() > 0)
-						{
-							this.modSystems.add(modSystem);
-						}
-					}
-				}
-					
-				this.tweakClassName = manifestAttributes.getValue("TweakClass");
-				if (this.tweakClassName != null)
-				{
-					String classPath = manifestAttributes.getValue("Class-Path");
-					if (classPath != null)
-					{
-						this.classPathEntries = classPath.split(" ");
-					}
-				}
-
-				if (manifestAttributes.getValue("TweakOrder") != null)
+				Map<String, String> manifestAttributes = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+				for (Entry<Object, Object> attribute : jar.getManifest().getMainAttributes().entrySet())
 				{
-					Integer tweakOrder = Ints.tryParse(manifestAttributes.getValue("TweakOrder"));
-					if (tweakOrder != null)
-					{
-						this.tweakPriority = tweakOrder.intValue();
-					}
+					manifestAttributes.put(attribute.getKey().toString(), String.valueOf(attribute.getValue()));
 				}
 				
-				if (manifestAttributes.getValue("Implementation-Title") != null)
-					this.displayName = manifestAttributes.getValue("Implementation-Title");
-				
-				if (manifestAttributes.getValue("TweakName") != null)
-					this.displayName = manifestAttributes.getValue("TweakName");
-				
-				if (manifestAttributes.getValue("Implementation-Version") != null)
-					this.version = manifestAttributes.getValue("Implementation-Version");
-				
-				if (manifestAttributes.getValue("TweakVersion") != null)
-					this.version = manifestAttributes.getValue("TweakVersion");
-				
-				if (manifestAttributes.getValue("Implementation-Vendor") != null)
-					this.author = manifestAttributes.getValue("Implementation-Vendor");
-				
-				if (manifestAttributes.getValue("TweakAuthor") != null)
-					this.author = manifestAttributes.getValue("TweakAuthor");
-				
-				this.injectionStrategy = InjectionStrategy.parseStrategy(manifestAttributes.getValue("TweakInjectionStrategy"), InjectionStrategy.TOP);
+				this.parseManifestAttributes(manifestAttributes);
 			}
+			
+			this.scanJarContents(jar);
 		}
 		catch (Exception ex)
 		{
@@ -211,6 +215,109 @@ public class LoadableFile extends File implements TweakContainer<File>
 		}
 	}
 	
+	/**
+	 * Read tweak and mod system information from the jar manifest attributes
+	 * 
+	 * @param manifestAttributes Main attributes from the manifest, keys are case-insensitive
+	 */
+	protected void parseManifestAttributes(Map<String, String> manifestAttributes)
+	{
+		this.manifestAttributes = manifestAttributes;
+		
+		String modSystemList = manifestAttributes.get("ModType");
+		if (modSystemList != null)
+		{
+			for (String modSystem : modSystemList.split(","))
+			{
+				modSystem = modSystem.trim();
+				if (modSystem.length() > 0)
+				{
+					this.modSystems.add(modSystem);
+				}
+			}
+		}
+			
+		this.tweakClassName = manifestAttributes.get("TweakClass");
+		if (this.tweakClassName != null)
+		{
+			String classPath = manifestAttributes.get("Class-Path");
+			if (classPath != null)
+			{
+				this.classPathEntries = classPath.split(" ");
+			}
+		}
+
+		if (manifestAttributes.get("TweakOrder") != null)
+		{
+			Integer tweakOrder = Ints.tryParse(manifestAttributes.get("TweakOrder"));
+			if (tweakOrder != null)
+			{
+				this.tweakPriority = tweakOrder.intValue();
+			}
+		}
+		
+		if (manifestAttributes.get("Implementation-Title") != null)
+			this.displayName = manifestAttributes.get("Implementation-Title");
+		
+		if (manifestAttributes.get("TweakName") != null)
+			this.displayName = manifestAttributes.get("TweakName");
+		
+		if (manifestAttributes.get("Implementation-Version") != null)
+			this.version = manifestAttributes.get("Implementation-Version");
+		
+		if (manifestAttributes.get("TweakVersion") != null)
+			this.version = manifestAttributes.get("TweakVersion");
+		
+		if (manifestAttributes.get("Implementation-Vendor") != null)
+			this.author = manifestAttributes.get("Implementation-Vendor");
+		
+		if (manifestAttributes.get("TweakAuthor") != null)
+			this.author = manifestAttributes.get("TweakAuthor");
+		
+		this.injectionStrategy = InjectionStrategy.parseStrategy(manifestAttributes.get("TweakInjectionStrategy"), InjectionStrategy.TOP);
+	}
+	
+	/**
+	 * Read the metadata files and enumerate the classes in the jar whilst we have it open, this saves the
+	 * enumerator and the event loader from opening the file again for each lookup. If the scan fails then the
+	 * consumers fall back to reading the jar themselves.
+	 * 
+	 * @param jar
+	 */
+	private void scanJarContents(JarFile jar)
+	{
+		Map<String, String> contents = new HashMap<String, String>();
+		List<String> classNames = new ArrayList<String>();
+		
+		try
+		{
+			Enumeration<JarEntry> entries = jar.entries();
+			while (entries.hasMoreElements())
+			{
+				JarEntry entry = entries.nextElement();
+				String entryName = entry.getName();
+				if (entryName.endsWith(".class"))
+				{
+					if (entry.getSize() > 0)
+					{
+						classNames.add(entryName.substring(0, entryName.length() - 6).replace('/', '.'));
+					}
+				}
+				else if (LoadableFile.scannedFileNames.contains(entryName))
+				{
+					contents.put(entryName, LoadableModFile.zipEntryToString(jar, entry));
+				}
+			}
+		}
+		catch (IOException ex)
+		{
+			return;
+		}
+		
+		this.scannedContents = contents;
+		this.scannedClassNames = contents.containsKey(LoadableMod.METADATA_FILENAME) ? classNames : null;
+	}
+	
 	public Set<String> getModSystems()
 	{
 		return Collections.unmodifiableSet(this.modSystems);
@@ -415,6 +522,11 @@ public class LoadableFile extends File implements TweakContainer<File>
 	 */
 	public String getFileContents(String name, Charset charset)
 	{
+		if (this.scannedContents != null && LoadableFile.scannedFileNames.contains(name))
+		{
+			return this.scannedContents.get(name);
+		}
+		
 		return LoadableFile.getFileContents(this, name, charset);
 	}
 
@@ -0,0 +1,294 @@
+package com.mumfrey.liteloader.interfaces;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
+
+/**
+ * Serialisable (via GSON) index of the information read from mod jars during enumeration. Jars which have not
+ * changed since they were indexed are restored from the index without being opened. Entries are matched on the
+ * file path, size and modification time and a hash of the end of the file, which for a jar contains the central
+ * directory and thus the name and CRC of every entry.
+ *
+ * @author Adam Mummery-Smith
+ */
+public class LoadableFileIndex
+{
+	/**
+	 * Gson object for serialisation/deserialisation
+	 */
+	private static transient Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+	/**
+	 * Number of bytes at the end of the file to hash
+	 */
+	private static transient final int HASH_SAMPLE_SIZE = 65536;
+
+	/**
+	 * Indexed information for a single file
+	 */
+	static class IndexEntry
+	{
+		long size;
+		long lastModified;
+		long hash;
+		Map<String, String> manifest;
+		Map<String, String> contents;
+		List<String> classes;
+	}
+
+	/**
+	 * This is the node which gets serialised
+	 */
+	private Map<String, IndexEntry> files = new HashMap<String, IndexEntry>();
+
+	/**
+	 * Files which were looked up or stored this session, other entries are removed when the index is saved
+	 */
+	private transient Set<String> usedFiles = new HashSet<String>();
+
+	/**
+	 * File the index is stored in
+	 */
+	private transient File indexFile;
+
+	private transient boolean dirty;
+
+	private transient int hits, misses;
+
+	private LoadableFileIndex()
+	{
+		// Private because we are always instanced by the static createFrom() method below
+	}
+
+	/**
+	 * Try to restore the jar metadata for the specified file from the index, returns false if the file is not
+	 * indexed or has changed since it was indexed
+	 *
+	 * @param file
+	 */
+	public boolean restore(LoadableFile file)
+	{
+		if (!file.isFile())
+		{
+			return false;
+		}
+
+		String location = file.getAbsolutePath();
+		IndexEntry entry;
+
+		synchronized (this)
+		{
+			this.usedFiles.add(location);
+			entry = this.files.get(location);
+		}
+
+		if (entry == null || entry.size != file.length() || entry.lastModified != file.lastModified() || entry.hash != LoadableFileIndex.getHash(file))
+		{
+			synchronized (this)
+			{
+				this.misses++;
+			}
+
+			return false;
+		}
+
+		if (entry.manifest != null)
+		{
+			Map<String, String> manifestAttributes = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+			manifestAttributes.putAll(entry.manifest);
+			file.parseManifestAttributes(manifestAttributes);
+		}
+
+		file.scannedContents = entry.contents != null ? entry.contents : new HashMap<String, String>();
+		file.scannedClassNames = entry.classes;
+
+		synchronized (this)
+		{
+			this.hits++;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Store the jar metadata for the specified file in the index, only files which were scanned successfully are
+	 * stored
+	 *
+	 * @param file
+	 */
+	public void store(LoadableFile file)
+	{
+		if (!file.isFile() || file.scannedContents == null)
+		{
+			return;
+		}
+
+		IndexEntry entry = new IndexEntry();
+		entry.size = file.length();
+		entry.lastModified = file.lastModified();
+		entry.hash = LoadableFileIndex.getHash(file);
+		entry.manifest = file.manifestAttributes;
+		entry.contents = file.scannedContents;
+		entry.classes = file.scannedClassNames;
+
+		synchronized (this)
+		{
+			String location = file.getAbsolutePath();
+			this.usedFiles.add(location);
+			this.files.put(location, entry);
+			this.dirty = true;
+		}
+	}
+
+	public int getHits()
+	{
+		return this.hits;
+	}
+
+	public int getMisses()
+	{
+		return this.misses;
+	}
+
+	/**
+	 * Get a hash of the end of the file
+	 *
+	 * @param file
+	 */
+	private static long getHash(File file)
+	{
+		RandomAccessFile raf = null;
+
+		try
+		{
+			raf = new RandomAccessFile(file, "r");
+			long length = raf.length();
+			byte[] sample = new byte[(int)Math.min(length, LoadableFileIndex.HASH_SAMPLE_SIZE)];
+			raf.seek(length - sample.length);
+			raf.readFully(sample);
+
+			CRC32 crc = new CRC32();
+			crc.update(sample);
+			return crc.getValue();
+		}
+		catch (IOException ex)
+		{
+			return -1L;
+		}
+		finally
+		{
+			try
+			{
+				if (raf != null) raf.close();
+			}
+			catch (IOException ex) {}
+		}
+	}
+
+	/**
+	 * Create a new index, reading the existing index from the specified file if it exists
+	 *
+	 * @param file
+	 * @param ignoreExisting True to ignore the existing index and rebuild it from scratch
+	 */
+	public static LoadableFileIndex createFrom(File file, boolean ignoreExisting)
+	{
+		LoadableFileIndex instance = null;
+
+		if (file.exists() && !ignoreExisting)
+		{
+			FileReader reader = null;
+
+			try
+			{
+				reader = new FileReader(file);
+				instance = LoadableFileIndex.gson.fromJson(reader, LoadableFileIndex.class);
+			}
+			catch (Exception ex)
+			{
+				LiteLoaderLogger.warning("Could not read the mod file index from %s, the index will be rebuilt", file.getName());
+			}
+			finally
+			{
+				try
+				{
+					if (reader != null) reader.close();
+				}
+				catch (IOException ex) {}
+			}
+		}
+
+		if (instance == null || instance.files == null)
+		{
+			instance = new LoadableFileIndex();
+			instance.dirty = file.exists();
+		}
+
+		instance.usedFiles = new HashSet<String>();
+		instance.indexFile = file;
+		return instance;
+	}
+
+	/**
+	 * Save the index, entries for files which were not used this session are discarded
+	 */
+	public synchronized void save()
+	{
+		if (this.files.keySet().retainAll(this.usedFiles))
+		{
+			this.dirty = true;
+		}
+
+		if (!this.dirty)
+		{
+			return;
+		}
+
+		File tempFile = new File(this.indexFile.getParentFile(), this.indexFile.getName() + ".tmp");
+		FileWriter writer = null;
+
+		try
+		{
+			writer = new FileWriter(tempFile);
+			LoadableFileIndex.gson.toJson(this, writer);
+			writer.close();
+			writer = null;
+
+			if (!tempFile.renameTo(this.indexFile))
+			{
+				this.indexFile.delete();
+				tempFile.renameTo(this.indexFile);
+			}
+
+			this.dirty = false;
+		}
+		catch (IOException ex)
+		{
+			LiteLoaderLogger.warning(ex, "Could not write the mod file index to %s", this.indexFile.getName());
+		}
+		finally
+		{
+			try
+			{
+				if (writer != null) writer.close();
+			}
+			catch (IOException ex) {}
+
+			tempFile.delete();
+		}
+	}
+}
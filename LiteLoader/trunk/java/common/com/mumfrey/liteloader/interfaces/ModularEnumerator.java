@@ -53,4 +53,9 @@ public interface ModularEnumerator
 	 * @param mod
 	 */
 	public abstract void registerMod(ModInfo<LoadableMod<?>> mod);
+	
+	/**
+	 * Get the index of previously inspected mod files, only available during discovery
+	 */
+	public abstract LoadableFileIndex getFileIndex();
 }
\ No newline at end of file
@@ -1,16 +1,20 @@
 package com.mumfrey.liteloader.launch;
 
+import java.io.File;
 import java.lang.reflect.Field;
 import java.util.*;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.helpers.Booleans;
 
 import net.minecraft.launchwrapper.IClassTransformer;
 import net.minecraft.launchwrapper.LaunchClassLoader;
 import net.minecraft.launchwrapper.LogWrapper;
 
+import com.mumfrey.liteloader.transformers.ClassTransformerPipeline;
+import com.mumfrey.liteloader.transformers.TransformerProfiler;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger.Verbosity;
 
@@ -21,6 +25,16 @@ import com.mumfrey.liteloader.util.log.LiteLoaderLogger.Verbosity;
  */
 public class ClassTransformerManager
 {
+	/**
+	 * Set this system property to stop adjacent LiteLoader transformers being combined into shared ClassNode pipelines
+	 */
+	private static final boolean PIPELINE_DISABLED = Booleans.parseBoolean(System.getProperty("liteloader.debug.nopipeline"), false);
+	
+	/**
+	 * Set this system property to wrap all registered transformers in timing proxies
+	 */
+	private static final boolean PROFILE_TRANSFORMERS = Booleans.parseBoolean(System.getProperty("liteloader.debug.profiletransformers"), false);
+	
 	/**
 	 * Once the game is started we can no longer inject transformers
 	 */
@@ -50,6 +64,11 @@ public class ClassTransformerManager
 	
 	private String pendingTransformer;
 	
+	/**
+	 * Transformer profiler, only created if transformer profiling is enabled
+	 */
+	private TransformerProfiler profiler;
+	
 	class ThrowableObserver extends AbstractAppender
 	{
 		public ThrowableObserver()
@@ -164,6 +183,127 @@ public class ClassTransformerManager
 		}
 		
 		this.downstreamTransformers.clear();
+		
+		this.buildPipelines(classLoader);
+		
+		if (ClassTransformerManager.PROFILE_TRANSFORMERS)
+		{
+			this.profileTransformers(classLoader);
+		}
+	}
+	
+	/**
+	 * Get the transformer list from the class loader, the list is not exposed so we need to use reflection
+	 * 
+	 * @param classLoader
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<IClassTransformer> getTransformerList(LaunchClassLoader classLoader) throws NoSuchFieldException, IllegalAccessException
+	{
+		Field fTransformers = LaunchClassLoader.class.getDeclaredField("transformers");
+		fTransformers.setAccessible(true);
+		return (List<IClassTransformer>)fTransformers.get(classLoader);
+	}
+
+	/**
+	 * Combine runs of adjacent pipeline-compatible transformers into pipelines which share a single ClassNode, so that classes
+	 * touched by several of our transformers are only parsed and written once
+	 * 
+	 * @param classLoader
+	 */
+	private void buildPipelines(LaunchClassLoader classLoader)
+	{
+		if (ClassTransformerManager.PIPELINE_DISABLED)
+		{
+			return;
+		}
+		
+		try
+		{
+			List<IClassTransformer> transformers = ClassTransformerManager.getTransformerList(classLoader);
+			
+			List<IClassTransformer> pipelinedTransformers = ClassTransformerPipeline.buildPipelines(transformers);
+			if (pipelinedTransformers.size() < transformers.size())
+			{
+				transformers.clear();
+				transformers.addAll(pipelinedTransformers);
+				
+				for (IClassTransformer transformer : pipelinedTransformers)
+				{
+					if (transformer instanceof ClassTransformerPipeline)
+					{
+						LiteLoaderLogger.info(Verbosity.REDUCED, "Combined class transformers into %s", transformer);
+					}
+				}
+			}
+		}
+		catch (Exception ex)
+		{
+			LiteLoaderLogger.warning(ex, "Failed to build class transformer pipelines, transformers will run individually");
+		}
+	}
+	
+	/**
+	 * Wrap all registered transformers in timing proxies
+	 * 
+	 * @param classLoader
+	 */
+	private void profileTransformers(LaunchClassLoader classLoader)
+	{
+		try
+		{
+			List<IClassTransformer> transformers = ClassTransformerManager.getTransformerList(classLoader);
+			
+			if (this.profiler == null)
+			{
+				this.profiler = new TransformerProfiler();
+			}
+			
+			for (ListIterator<IClassTransformer> iter = transformers.listIterator(); iter.hasNext();)
+			{
+				iter.set(this.profiler.wrap(iter.next()));
+			}
+			
+			LiteLoaderLogger.info("Transformer profiling enabled for %d transformers", transformers.size());
+		}
+		catch (Exception ex)
+		{
+			LiteLoaderLogger.warning(ex, "Failed to wrap class transformers, transformer profiling will not be available");
+		}
+	}
+	
+	/**
+	 * Get the transformer profiler, returns null if transformer profiling is not enabled
+	 */
+	public TransformerProfiler getProfiler()
+	{
+		return this.profiler;
+	}
+	
+	/**
+	 * Log the transformer profile, if profiling is enabled
+	 */
+	public void dumpProfile()
+	{
+		if (this.profiler != null)
+		{
+			this.profiler.dump();
+		}
+	}
+	
+	/**
+	 * Write the transformer profile to the specified folder, if profiling is enabled
+	 * 
+	 * @param folder
+	 */
+	public void writeProfile(File folder)
+	{
+		if (this.profiler != null)
+		{
+			File reportFile = new File(folder, "liteloader.transformers.csv");
+			LiteLoaderLogger.info("Writing class transformer profile to %s", reportFile.getAbsolutePath());
+			this.profiler.writeReport(reportFile);
+		}
 	}
 
 	private synchronized void injectTransformer(LaunchClassLoader classLoader, String transformerClassName)
@@ -209,7 +349,7 @@ public class ClassTransformerManager
 	{
 		for (IClassTransformer transformer : classLoader.getTransformers())
 		{
-			if (transformer.getClass().getName().equals(transformerClassName))
+			if (TransformerProfiler.unwrap(transformer).getClass().getName().equals(transformerClassName))
 				return transformer;
 		}
 		
@@ -32,6 +32,15 @@ public class LiteLoaderTransformer extends ClassTransformer
 		return basicClass;
 	}
 
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.ClassTransformer#isPipelineCompatible()
+	 */
+	@Override
+	protected boolean isPipelineCompatible()
+	{
+		return true;
+	}
+
 	private byte[] transformMain(byte[] basicClass)
 	{
 		ClassNode classNode = this.readClass(basicClass, true);
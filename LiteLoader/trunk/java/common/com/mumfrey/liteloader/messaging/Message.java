@@ -18,9 +18,22 @@ public class Message
 	 */
 	private static final Pattern channelPattern = Pattern.compile("^[a-z0-9]([a-z0-9_\\-]*[a-z0-9])?:[a-z0-9]([a-z0-9_\\-]*[a-z0-9])?$", Pattern.CASE_INSENSITIVE);
 	
+	/**
+	 * Payload key used for messages constructed with a single value
+	 */
+	public static final String VALUE_KEY = "value";
+	
 	private final String channel, replyChannel;
 	private final Messenger sender;
-	private final Map<String, ?> payload;
+	
+	/**
+	 * Value for single-value messages, these don't allocate a payload map unless getPayload() is called
+	 */
+	private final Object value;
+	
+	private final boolean singleValue;
+	
+	private Map<String, ?> payload;
 	
 	Message(String channel, Object value, Messenger sender)
 	{
@@ -32,7 +45,8 @@ public class Message
 		Message.validateChannel(channel);
 		
 		this.channel = channel;
-		this.payload = ImmutableMap.<String, Object>of("value", value);
+		this.value = value;
+		this.singleValue = true;
 		this.sender = sender;
 		this.replyChannel = replyChannel;
 	}
@@ -47,6 +61,8 @@ public class Message
 		Message.validateChannel(channel);
 		
 		this.channel = channel;
+		this.value = null;
+		this.singleValue = false;
 		this.payload = payload != null ? ImmutableMap.copyOf(payload) : ImmutableMap.<String, String>of();
 		this.sender = sender;
 		this.replyChannel = replyChannel;
@@ -89,6 +105,11 @@ public class Message
 	 */
 	public Map<String, ?> getPayload()
 	{
+		if (this.payload == null)
+		{
+			this.payload = this.value != null ? ImmutableMap.<String, Object>of(Message.VALUE_KEY, this.value) : ImmutableMap.<String, Object>of();
+		}
+		
 		return this.payload;
 	}
 	
@@ -120,13 +141,13 @@ public class Message
 	@SuppressWarnings("unchecked")
 	public <T> T get(String key)
 	{
-		return (T)this.payload.get(key);
+		return (T)this.getRaw(key);
 	}
 	
 	@SuppressWarnings("unchecked")
 	public <T> T get(String key, T defaultValue)
 	{
-		Object value = this.payload.get(key);
+		Object value = this.getRaw(key);
 		if (value != null)
 		{
 			return (T)value;
@@ -134,12 +155,86 @@ public class Message
 		return defaultValue;
 	}
 	
+	private Object getRaw(String key)
+	{
+		if (this.singleValue)
+		{
+			return Message.VALUE_KEY.equals(key) ? this.value : null;
+		}
+		
+		return this.payload.get(key);
+	}
+	
 	/**
-	 * Gets the payload with the key "value", which is used with messages constructed using a string-only payload 
+	 * Gets the payload with the key "value", which is used with messages constructed using a single value payload 
 	 */
 	public <T> T getValue()
 	{
-		return this.get("value");
+		return this.get(Message.VALUE_KEY);
+	}
+	
+	/**
+	 * Get a numeric value from this message's payload, returns defaultValue if the key is not present or the value is
+	 * not a number
+	 * 
+	 * @param key
+	 * @param defaultValue
+	 */
+	public int getInt(String key, int defaultValue)
+	{
+		Object value = this.getRaw(key);
+		return value instanceof Number ? ((Number)value).intValue() : defaultValue;
+	}
+	
+	/**
+	 * Get a numeric value from this message's payload, returns defaultValue if the key is not present or the value is
+	 * not a number
+	 * 
+	 * @param key
+	 * @param defaultValue
+	 */
+	public long getLong(String key, long defaultValue)
+	{
+		Object value = this.getRaw(key);
+		return value instanceof Number ? ((Number)value).longValue() : defaultValue;
+	}
+	
+	/**
+	 * Get a numeric value from this message's payload, returns defaultValue if the key is not present or the value is
+	 * not a number
+	 * 
+	 * @param key
+	 * @param defaultValue
+	 */
+	public double getDouble(String key, double defaultValue)
+	{
+		Object value = this.getRaw(key);
+		return value instanceof Number ? ((Number)value).doubleValue() : defaultValue;
+	}
+	
+	/**
+	 * Get a boolean value from this message's payload, returns defaultValue if the key is not present or the value is
+	 * not a boolean
+	 * 
+	 * @param key
+	 * @param defaultValue
+	 */
+	public boolean getBoolean(String key, boolean defaultValue)
+	{
+		Object value = this.getRaw(key);
+		return value instanceof Boolean ? ((Boolean)value).booleanValue() : defaultValue;
+	}
+	
+	/**
+	 * Get a string value from this message's payload, non-string values are converted using toString()
+	 * 
+	 * @param key
+	 * @param defaultValue
+	 */
+	public String getString(String key, String defaultValue)
+	{
+		Object value = this.getRaw(key);
+		return value != null ? value.toString() : defaultValue;
 	}
 	
 	public static void validateChannel(String channel) throws IllegalArgumentException
@@ -1,11 +1,18 @@
 package com.mumfrey.liteloader.messaging;
 
-import java.util.Deque;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mumfrey.liteloader.api.InterfaceProvider;
 import com.mumfrey.liteloader.api.Listener;
 import com.mumfrey.liteloader.core.InterfaceRegistrationDelegate;
@@ -17,26 +24,178 @@ import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
  * Intra-mod messaging bus, allows mods to send arbitrary notifications to each other without having to
  * create an explicit dependency or resort to reflection
  * 
+ * Messages sent with {@code send} are dispatched immediately on the calling thread. Messages sent with {@code post}
+ * are added to a bounded queue for their channel and are delivered later, either on the game thread at the start of
+ * the next tick or on a worker thread depending on the channel's {@link Delivery}. Posting is safe from any thread,
+ * which allows mods to publish from network and worker threads without racing the game thread.
+ * 
  * @author Adam Mummery-Smith
  */
 public class MessageBus implements InterfaceProvider
 {
+	/**
+	 * Where posted messages are delivered
+	 */
+	public enum Delivery
+	{
+		/**
+		 * Messages are delivered on the game thread at the start of the next tick. The queues are only drained by the
+		 * client tick, so this is the client thread: messages are never delivered on the integrated server thread, and
+		 * on a runtime without a client tick they are not delivered at all. Use WORKER for channels which must be
+		 * delivered without a client.
+		 */
+		GAME_THREAD,
+		
+		/**
+		 * Messages are delivered on a message bus worker thread, messages on the same channel are still delivered in
+		 * order and never concurrently
+		 */
+		WORKER
+	}
+	
+	/**
+	 * Default maximum number of undelivered messages per channel, further messages are dropped
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+	
+	/**
+	 * Number of worker threads for channels using WORKER delivery
+	 */
+	private static final int WORKER_THREADS = 2;
+	
+	/**
+	 * Queue of posted messages for a single channel. Multiple threads may post to the queue but it is only ever drained
+	 * by one thread at a time: the first post to an idle queue schedules it (on the game thread or a worker) and the
+	 * queue is not scheduled again until that drain completes.
+	 */
+	private final class ChannelQueue implements Runnable
+	{
+		private final String channel;
+		
+		private final Queue<Message> messages = new ConcurrentLinkedQueue<Message>();
+		
+		private final AtomicInteger size = new AtomicInteger();
+		
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		
+		private final AtomicInteger dropped = new AtomicInteger();
+		
+		private volatile Delivery delivery = Delivery.GAME_THREAD;
+		
+		private volatile int capacity = MessageBus.DEFAULT_QUEUE_CAPACITY;
+		
+		ChannelQueue(String channel)
+		{
+			this.channel = channel;
+		}
+		
+		boolean offer(Message message)
+		{
+			if (this.size.incrementAndGet() > this.capacity)
+			{
+				this.size.decrementAndGet();
+				if (this.dropped.getAndIncrement() == 0)
+				{
+					LiteLoaderLogger.warning("MessageBus queue for channel %s is full, posted messages are being dropped", this.channel);
+				}
+				return false;
+			}
+			
+			this.messages.offer(message);
+			this.schedule();
+			return true;
+		}
+		
+		void schedule()
+		{
+			if (!this.scheduled.compareAndSet(false, true))
+			{
+				return;
+			}
+			
+			if (this.delivery == Delivery.WORKER)
+			{
+				try
+				{
+					MessageBus.this.getWorkers().execute(this);
+					return;
+				}
+				catch (Exception ex)
+				{
+					// Workers shut down, fall back to the game thread
+				}
+			}
+			
+			MessageBus.this.readyQueues.offer(this);
+		}
+		
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run()
+		{
+			// Only deliver the messages which are already queued, so that a messenger which posts on its own channel can't
+			// keep the queue busy forever
+			for (int count = this.size.get(); count > 0; count--)
+			{
+				Message message = this.messages.poll();
+				if (message == null) break;
+				
+				this.size.decrementAndGet();
+				
+				try
+				{
+					MessageBus.this.dispatchMessage(message);
+				}
+				catch (Exception ex)
+				{
+					LiteLoaderLogger.warning(ex, "Error delivering message on channel %s", this.channel);
+				}
+			}
+			
+			int dropped = this.dropped.getAndSet(0);
+			if (dropped > 0)
+			{
+				LiteLoaderLogger.warning("MessageBus dropped %d message(s) on channel %s because the queue was full", dropped, this.channel);
+			}
+			
+			this.scheduled.set(false);
+			if (this.size.get() > 0)
+			{
+				this.schedule();
+			}
+		}
+	}
+	
 	/**
 	 * Singleton
 	 */
-	private static MessageBus instance;
+	private static volatile MessageBus instance;
 	
 	/**
 	 * Messengers subscribed to each channel
 	 */
-	private final Map<String, FastIterable<Messenger>> messengers = new HashMap<String, FastIterable<Messenger>>();
+	private final ConcurrentMap<String, FastIterable<Messenger>> messengers = new ConcurrentHashMap<String, FastIterable<Messenger>>();
 	
 	/**
-	 * Pending messages dispatched pre-startup
+	 * Pending messages dispatched pre-startup, in the order they were sent
 	 */
-	private final Deque<Message> messageQueue = new LinkedList<Message>();
+	private final Queue<Message> messageQueue = new LinkedList<Message>();
+	
+	/**
+	 * Queues for posted messages, created on demand
+	 */
+	private final ConcurrentMap<String, ChannelQueue> channelQueues = new ConcurrentHashMap<String, ChannelQueue>();
+	
+	/**
+	 * Channel queues with messages waiting to be delivered on the game thread
+	 */
+	private final Queue<ChannelQueue> readyQueues = new ConcurrentLinkedQueue<ChannelQueue>();
+	
+	private ExecutorService workers;
 	
-	private boolean enableMessaging = false;
+	private volatile boolean enableMessaging = false;
 	
 	private MessageBus()
 	{
@@ -49,7 +208,13 @@ public class MessageBus implements InterfaceProvider
 	{
 		if (MessageBus.instance == null)
 		{
-			MessageBus.instance = new MessageBus();
+			synchronized (MessageBus.class)
+			{
+				if (MessageBus.instance == null)
+				{
+					MessageBus.instance = new MessageBus();
+				}
+			}
 		}
 		
 		return MessageBus.instance;
@@ -86,15 +251,101 @@ public class MessageBus implements InterfaceProvider
 	 */
 	public void onStartupComplete()
 	{
-		this.enableMessaging = true;
-		
-		while (this.messageQueue.size() > 0)
+		while (true)
 		{
-			Message msg = this.messageQueue.pop();
+			Message msg;
+			synchronized (this.messageQueue)
+			{
+				msg = this.messageQueue.poll();
+				if (msg == null)
+				{
+					// Only enable messaging once the queue is empty so that messages sent while we drain keep their order
+					this.enableMessaging = true;
+					break;
+				}
+			}
+			
 			this.dispatchMessage(msg);
 		}
 	}
 	
+	/**
+	 * Deliver messages posted to channels which use GAME_THREAD delivery, called on the client thread each tick
+	 */
+	public void onTick()
+	{
+		if (!this.enableMessaging)
+		{
+			return;
+		}
+		
+		for (int count = this.readyQueues.size(); count > 0; count--)
+		{
+			ChannelQueue queue = this.readyQueues.poll();
+			if (queue == null) break;
+			queue.run();
+		}
+	}
+	
+	/**
+	 * Set how messages posted on the specified channel are delivered
+	 * 
+	 * @param channel
+	 * @param delivery
+	 */
+	public void setChannelDelivery(String channel, Delivery delivery)
+	{
+		this.setChannelDelivery(channel, delivery, MessageBus.DEFAULT_QUEUE_CAPACITY);
+	}
+	
+	/**
+	 * Set how messages posted on the specified channel are delivered and the maximum number of undelivered messages
+	 * 
+	 * @param channel
+	 * @param delivery
+	 * @param capacity
+	 */
+	public void setChannelDelivery(String channel, Delivery delivery, int capacity)
+	{
+		if (delivery == null)
+		{
+			throw new IllegalArgumentException("Delivery cannot be null");
+		}
+		
+		if (capacity < 1)
+		{
+			throw new IllegalArgumentException("Capacity must be at least 1");
+		}
+		
+		Message.validateChannel(channel);
+		ChannelQueue queue = this.getChannelQueue(channel);
+		queue.delivery = delivery;
+		queue.capacity = capacity;
+	}
+	
+	private ChannelQueue getChannelQueue(String channel)
+	{
+		ChannelQueue queue = this.channelQueues.get(channel);
+		if (queue == null)
+		{
+			ChannelQueue newQueue = new ChannelQueue(channel);
+			queue = this.channelQueues.putIfAbsent(channel, newQueue);
+			if (queue == null) queue = newQueue;
+		}
+		
+		return queue;
+	}
+	
+	private synchronized ExecutorService getWorkers()
+	{
+		if (this.workers == null)
+		{
+			this.workers = Executors.newFixedThreadPool(MessageBus.WORKER_THREADS, new ThreadFactoryBuilder().setNameFormat("LiteLoader MessageBus Worker %d").setDaemon(true).build());
+		}
+		
+		return this.workers;
+	}
+	
 	public void registerMessenger(Messenger messenger)
 	{
 		List<String> messageChannels = messenger.getMessageChannels();
@@ -109,7 +360,11 @@ public class MessageBus implements InterfaceProvider
 			if (channel != null && Message.isValidChannel(channel))
 			{
 				LiteLoaderLogger.info("Listener %s is registering MessageBus channel %s", messenger.getName(), channel);
-				this.getMessengerList(channel).add(messenger);
+				FastIterable<Messenger> messengerList = this.getMessengerList(channel);
+				synchronized (messengerList)
+				{
+					messengerList.add(messenger);
+				}
 			}
 			else
 			{
@@ -123,13 +378,48 @@ public class MessageBus implements InterfaceProvider
 	 */
 	private void sendMessage(Message message)
 	{
-		if (this.enableMessaging)
+		if (this.enqueuePreStartup(message))
 		{
-			this.dispatchMessage(message);
 			return;
 		}
 		
-		this.messageQueue.push(message);
+		this.dispatchMessage(message);
+	}
+	
+	/**
+	 * @param message
+	 * @return true if the message was queued or delivered, false if the channel's queue is full
+	 */
+	private boolean postMessage(Message message)
+	{
+		if (this.enqueuePreStartup(message))
+		{
+			return true;
+		}
+		
+		return this.getChannelQueue(message.getChannel()).offer(message);
+	}
+	
+	/**
+	 * Queue the message to be dispatched at startup if messaging is not enabled yet
+	 * 
+	 * @param message
+	 */
+	private boolean enqueuePreStartup(Message message)
+	{
+		if (!this.enableMessaging)
+		{
+			synchronized (this.messageQueue)
+			{
+				if (!this.enableMessaging)
+				{
+					this.messageQueue.offer(message);
+					return true;
+				}
+			}
+		}
+		
+		return false;
 	}
 
 	/**
@@ -142,7 +432,14 @@ public class MessageBus implements InterfaceProvider
 			FastIterable<Messenger> messengerList = this.messengers.get(message.getChannel());
 			if (messengerList != null)
 			{
-				messengerList.all().receiveMessage(message);
+				Messenger messengers;
+				synchronized (messengerList)
+				{
+					// The baked handler is a snapshot, so it can be called outside the lock
+					messengers = messengerList.all();
+				}
+				
+				messengers.receiveMessage(message);
 			}
 		}
 		catch (StackOverflowError err)
@@ -162,8 +459,9 @@ public class MessageBus implements InterfaceProvider
 		FastIterable<Messenger> messengerList = this.messengers.get(channel);
 		if (messengerList == null)
 		{
-			messengerList = new HandlerList<Messenger>(Messenger.class);
-			this.messengers.put(channel, messengerList);
+			FastIterable<Messenger> newList = new HandlerList<Messenger>(Messenger.class);
+			messengerList = this.messengers.putIfAbsent(channel, newList);
+			if (messengerList == null) messengerList = newList;
 		}
 		
 		return messengerList;
@@ -192,6 +490,42 @@ public class MessageBus implements InterfaceProvider
 		MessageBus.getInstance().sendMessage(message);
 	}
 	
+	/**
+	 * Send a message with a numeric value on the specified channel, the value can be retrieved with getLong()
+	 * 
+	 * @param channel
+	 * @param value
+	 */
+	public static void send(String channel, long value)
+	{
+		Message message = new Message(channel, Long.valueOf(value), null);
+		MessageBus.getInstance().sendMessage(message);
+	}
+	
+	/**
+	 * Send a message with a numeric value on the specified channel, the value can be retrieved with getDouble()
+	 * 
+	 * @param channel
+	 * @param value
+	 */
+	public static void send(String channel, double value)
+	{
+		Message message = new Message(channel, Double.valueOf(value), null);
+		MessageBus.getInstance().sendMessage(message);
+	}
+	
+	/**
+	 * Send a message with a boolean value on the specified channel, the value can be retrieved with getBoolean()
+	 * 
+	 * @param channel
+	 * @param value
+	 */
+	public static void send(String channel, boolean value)
+	{
+		Message message = new Message(channel, Boolean.valueOf(value), null);
+		MessageBus.getInstance().sendMessage(message);
+	}
+	
 	/**
 	 * Send a message with a value on the specified channel from the specified sender
 	 * 
@@ -257,4 +591,104 @@ public class MessageBus implements InterfaceProvider
 		Message message = new Message(channel, payload, sender, replyChannel);
 		MessageBus.getInstance().sendMessage(message);
 	}
+	
+	/**
+	 * Post an empty message on the specified channel, the message is delivered asynchronously according to the channel's
+	 * delivery setting
+	 * 
+	 * @param channel
+	 * @return false if the channel's queue is full and the message was dropped
+	 */
+	public static boolean post(String channel)
+	{
+		return MessageBus.getInstance().postMessage(new Message(channel, null, null));
+	}
+	
+	/**
+	 * Post a message with a value on the specified channel
+	 * 
+	 * @param channel
+	 * @param value
+	 * @return false if the channel's queue is full and the message was dropped
+	 */
+	public static boolean post(String channel, String value)
+	{
+		return MessageBus.getInstance().postMessage(new Message(channel, value, null));
+	}
+	
+	/**
+	 * Post a message with a numeric value on the specified channel
+	 * 
+	 * @param channel
+	 * @param value
+	 * @return false if the channel's queue is full and the message was dropped
+	 */
+	public static boolean post(String channel, long value)
+	{
+		return MessageBus.getInstance().postMessage(new Message(channel, Long.valueOf(value), null));
+	}
+	
+	/**
+	 * Post a message with a numeric value on the specified channel
+	 * 
+	 * @param channel
+	 * @param value
+	 * @return false if the channel's queue is full and the message was dropped
+	 */
+	public static boolean post(String channel, double value)
+	{
+		return MessageBus.getInstance().postMessage(new Message(channel, Double.valueOf(value), null));
+	}
+	
+	/**
+	 * Post a message with a boolean value on the specified channel
+	 * 
+	 * @param channel
+	 * @param value
+	 * @return false if the channel's queue is full and the message was dropped
+	 */
+	public static boolean post(String channel, boolean value)
+	{
+		return MessageBus.getInstance().postMessage(new Message(channel, Boolean.valueOf(value), null));
+	}
+	
+	/**
+	 * Post a message with a value on the specified channel from the specified sender
+	 * 
+	 * @param channel
+	 * @param value
+	 * @param sender
+	 * @param replyChannel
+	 * @return false if the channel's queue is full and the message was dropped
+	 */
+	public static boolean post(String channel, String value, Messenger sender, String replyChannel)
+	{
+		return MessageBus.getInstance().postMessage(new Message(channel, value, sender, replyChannel));
+	}
+	
+	/**
+	 * Post a message with a supplied payload on the specified channel
+	 * 
+	 * @param channel
+	 * @param payload
+	 * @return false if the channel's queue is full and the message was dropped
+	 */
+	public static boolean post(String channel, Map<String, ?> payload)
+	{
+		return MessageBus.getInstance().postMessage(new Message(channel, payload, null));
+	}
+	
+	/**
+	 * Post a message with a supplied payload on the specified channel from the specified sender
+	 * 
+	 * @param channel
+	 * @param payload
+	 * @param sender
+	 * @param replyChannel
+	 * @return false if the channel's queue is full and the message was dropped
+	 */
+	public static boolean post(String channel, Map<String, ?> payload, Messenger sender, String replyChannel)
+	{
+		return MessageBus.getInstance().postMessage(new Message(channel, payload, sender, replyChannel));
+	}
 }
@@ -2,6 +2,7 @@ package com.mumfrey.liteloader.modconfig;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -11,6 +12,7 @@ import com.google.common.base.Strings;
 import com.google.common.io.Files;
 import com.mumfrey.liteloader.Configurable;
 import com.mumfrey.liteloader.LiteMod;
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
 
 /**
  * Registry where we keep the mod config panel classes and config file writers
@@ -34,6 +36,11 @@ public class ConfigManager
 	 */
 	private List<ExposableConfigWriter> configWriterList = new LinkedList<ExposableConfigWriter>();
 	
+	/**
+	 * Background writer for config files
+	 */
+	private final ConfigWriteService writeService = new ConfigWriteService();
+	
 	/**
 	 * Register a mod, adds the config panel class to the map if the mod implements Configurable
 	 */
@@ -89,7 +96,7 @@ public class ConfigManager
 				fileName = fileName.substring(7);
 		}
 		
-		ExposableConfigWriter configWriter = ExposableConfigWriter.create(exposable, strategy, fileName, aggressive);
+		ExposableConfigWriter configWriter = ExposableConfigWriter.create(exposable, strategy, fileName, aggressive, this.writeService);
 		if (configWriter != null)
 		{
 			this.configWriters.put(exposable, configWriter);
@@ -201,7 +208,7 @@ public class ConfigManager
 	}
 	
 	/**
-	 * Force all mod configs to be flushed to disk
+	 * Force all mod configs to be flushed to disk, blocks until all pending writes have completed
 	 */
 	public void syncConfig()
 	{
@@ -209,6 +216,43 @@ public class ConfigManager
 		{
 			writer.sync();
 		}
+		
+		this.writeService.flush();
+	}
+	
+	/**
+	 * Flush all mod configs to disk and stop the background writer, configs invalidated after this point are
+	 * written synchronously
+	 */
+	public void shutdown()
+	{
+		this.syncConfig();
+		this.writeService.shutdown();
+		this.logWriteStats();
+	}
+	
+	/**
+	 * Get the config writers, for inspecting write statistics
+	 */
+	public List<ExposableConfigWriter> getConfigWriters()
+	{
+		return Collections.unmodifiableList(this.configWriterList);
+	}
+	
+	/**
+	 * Log write statistics for all configs which have been written this session
+	 */
+	public void logWriteStats()
+	{
+		for (ExposableConfigWriter writer : this.configWriterList)
+		{
+			if (writer.getWriteCount() > 0)
+			{
+				LiteLoaderLogger.debug("Config %s: %d writes, %d coalesced, %.2fms serialising, %.2fms writing (max %.2fms)",
+						writer.getConfigFile().getName(), writer.getWriteCount(), writer.getCoalescedCount(),
+						writer.getSerialiseTime() / 1000000.0, writer.getWriteTime() / 1000000.0, writer.getMaxWriteTime() / 1000000.0);
+			}
+		}
 	}
 	
 	/**
@@ -0,0 +1,217 @@
+package com.mumfrey.liteloader.modconfig;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
+
+/**
+ * Background service which writes serialised configs to disk for ExposableConfigWriter. Configs are serialised
+ * on the calling thread and the resulting snapshot is queued here, if a config is invalidated again before its
+ * previous snapshot has been written then only the latest snapshot is written. Files are written to a temporary
+ * file first and then renamed over the original so that a crash mid-write does not leave a truncated config.
+ *
+ * @author Adam Mummery-Smith
+ */
+final class ConfigWriteService
+{
+	/**
+	 * Maximum time to wait for pending writes when flushing
+	 */
+	private static final long FLUSH_TIMEOUT_MS = 10000L;
+
+	/**
+	 * Snapshots waiting to be written, in the order they were first queued
+	 */
+	private final Map<ExposableConfigWriter, String> pending = new LinkedHashMap<ExposableConfigWriter, String>();
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("LiteLoader Config Writer").setDaemon(true).build());
+
+	/**
+	 * Queue a snapshot to be written for the specified writer, replaces any snapshot which is still pending
+	 *
+	 * @param writer
+	 * @param json
+	 */
+	void submit(final ExposableConfigWriter writer, String json)
+	{
+		synchronized (this.pending)
+		{
+			if (this.pending.put(writer, json) != null)
+			{
+				// A task for this writer is already queued and will pick up the new snapshot
+				writer.onWriteCoalesced();
+				return;
+			}
+		}
+
+		try
+		{
+			this.executor.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					ConfigWriteService.this.writePending(writer);
+				}
+			});
+		}
+		catch (Exception ex)
+		{
+			// Executor was shut down, write on the calling thread instead
+			this.writePending(writer);
+		}
+	}
+
+	/**
+	 * Write the pending snapshot for the specified writer, if there is one
+	 *
+	 * @param writer
+	 */
+	private void writePending(ExposableConfigWriter writer)
+	{
+		// Lock on the writer so that a synchronous flush can't race the writer thread for the same file
+		synchronized (writer)
+		{
+			String json;
+			synchronized (this.pending)
+			{
+				json = this.pending.remove(writer);
+			}
+
+			if (json != null)
+			{
+				long startTime = System.nanoTime();
+				if (ConfigWriteService.writeAtomic(writer.getConfigFile(), json))
+				{
+					writer.onWriteCompleted(System.nanoTime() - startTime);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Block until all writes which are currently queued have completed
+	 */
+	void flush()
+	{
+		try
+		{
+			// The executor is single-threaded so once this task runs all previously queued writes are complete
+			this.executor.submit(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+				}
+			}).get(ConfigWriteService.FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException ex)
+		{
+			LiteLoaderLogger.warning("Timed out waiting for config writes to complete, writing remaining configs synchronously");
+		}
+		catch (Exception ex)
+		{
+			// Executor is shut down or we were interrupted, remaining writes are handled below
+		}
+
+		// Write anything which is still outstanding on the calling thread
+		while (true)
+		{
+			ExposableConfigWriter writer;
+			synchronized (this.pending)
+			{
+				if (this.pending.isEmpty()) break;
+				writer = this.pending.keySet().iterator().next();
+			}
+
+			this.writePending(writer);
+		}
+	}
+
+	/**
+	 * Flush pending writes and stop the writer thread
+	 */
+	void shutdown()
+	{
+		this.flush();
+		this.executor.shutdown();
+	}
+
+	/**
+	 * Write the specified string to a temporary file alongside the target file, sync it to disk and then move it
+	 * over the target file. The existing file is moved aside rather than deleted and is only removed once the new file
+	 * is in place, if the move fails the existing file is restored and the temporary file is kept.
+	 *
+	 * @param file
+	 * @param contents
+	 */
+	static boolean writeAtomic(File file, String contents)
+	{
+		File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+		FileOutputStream stream = null;
+		boolean written = false;
+
+		try
+		{
+			stream = new FileOutputStream(tempFile);
+			OutputStreamWriter writer = new OutputStreamWriter(stream);
+			writer.write(contents);
+			writer.flush();
+			stream.getFD().sync();
+			stream.close();
+			stream = null;
+			written = true;
+
+			if (!tempFile.renameTo(file))
+			{
+				// renameTo can't replace an existing file on some platforms, so move the existing file out of the way first
+				File backupFile = new File(file.getParentFile(), file.getName() + ".bak");
+				backupFile.delete();
+				if (!file.renameTo(backupFile))
+				{
+					throw new IOException("Could not move " + file.getName() + " to " + backupFile.getName());
+				}
+
+				if (!tempFile.renameTo(file))
+				{
+					if (!backupFile.renameTo(file))
+					{
+						LiteLoaderLogger.warning("Could not restore %s from %s", file.getName(), backupFile.getName());
+					}
+
+					throw new IOException("Could not move " + tempFile.getName() + " to " + file.getName());
+				}
+
+				backupFile.delete();
+			}
+
+			return true;
+		}
+		catch (IOException ex)
+		{
+			LiteLoaderLogger.warning(ex, "Error writing config file %s", file.getName());
+			return false;
+		}
+		finally
+		{
+			try
+			{
+				if (stream != null) stream.close();
+			}
+			catch (IOException ex) {}
+
+			// A partially written file is no use to anyone, but a complete one is kept if it couldn't be moved into place
+			if (!written) tempFile.delete();
+		}
+	}
+}
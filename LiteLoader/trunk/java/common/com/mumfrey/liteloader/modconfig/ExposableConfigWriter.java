@@ -2,7 +2,6 @@ package com.mumfrey.liteloader.modconfig;
 
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Type;
 
@@ -47,6 +46,11 @@ public final class ExposableConfigWriter implements InstanceCreator<Exposable>
 	 */
 	private final Gson gson;
 	
+	/**
+	 * Service which writes serialised snapshots to disk, null to write synchronously
+	 */
+	private final ConfigWriteService writeService;
+	
 	/**
 	 * True if a config write has been requested but anti-hammer has prevented the write from occurring
 	 */
@@ -62,16 +66,28 @@ public final class ExposableConfigWriter implements InstanceCreator<Exposable>
 	 */
 	private Object readWriteLock = new Object();
 	
+	/**
+	 * Write statistics, updated by the write service
+	 */
+	private volatile int writeCount, coalescedCount;
+	
+	/**
+	 * Time spent serialising and writing, in nanoseconds
+	 */
+	private volatile long serialiseTime, writeTime, maxWriteTime;
+	
 	/**
 	 * @param exposable
 	 * @param configFile
+	 * @param writeService
 	 */
-	private ExposableConfigWriter(Exposable exposable, File configFile, boolean versioned, boolean aggressive)
+	private ExposableConfigWriter(Exposable exposable, File configFile, boolean versioned, boolean aggressive, ConfigWriteService writeService)
 	{
 		this.exposable = exposable;
 		this.configFile = configFile;
 		this.versioned = versioned;
 		this.aggressive = aggressive;
+		this.writeService = writeService;
 		
 		GsonBuilder gsonBuilder = new GsonBuilder();
 		gsonBuilder.setPrettyPrinting();
@@ -118,6 +134,74 @@ public final class ExposableConfigWriter implements InstanceCreator<Exposable>
 	{
 		return this.dirty;
 	}
+	
+	/**
+	 * Get the exposable this writer is serialising
+	 */
+	public Exposable getExposable()
+	{
+		return this.exposable;
+	}
+	
+	/**
+	 * Get the number of times the config has been written to disk
+	 */
+	public int getWriteCount()
+	{
+		return this.writeCount;
+	}
+	
+	/**
+	 * Get the number of writes which were superseded by a later write before reaching the disk
+	 */
+	public int getCoalescedCount()
+	{
+		return this.coalescedCount;
+	}
+	
+	/**
+	 * Get the total time spent serialising the config on the calling thread, in nanoseconds
+	 */
+	public long getSerialiseTime()
+	{
+		return this.serialiseTime;
+	}
+	
+	/**
+	 * Get the total time spent writing the config to disk, in nanoseconds
+	 */
+	public long getWriteTime()
+	{
+		return this.writeTime;
+	}
+	
+	/**
+	 * Get the longest time spent on a single write, in nanoseconds
+	 */
+	public long getMaxWriteTime()
+	{
+		return this.maxWriteTime;
+	}
+	
+	/**
+	 * Callback from the write service when a snapshot has been written to disk
+	 * 
+	 * @param elapsed
+	 */
+	void onWriteCompleted(long elapsed)
+	{
+		this.writeCount++;
+		this.writeTime += elapsed;
+		if (elapsed > this.maxWriteTime) this.maxWriteTime = elapsed;
+	}
+	
+	/**
+	 * Callback from the write service when a pending snapshot is replaced before being written
+	 */
+	void onWriteCoalesced()
+	{
+		this.coalescedCount++;
+	}
 
 	/* (non-Javadoc)
 	 * @see com.google.gson.InstanceCreator#createInstance(java.lang.reflect.Type)
@@ -184,17 +268,19 @@ public final class ExposableConfigWriter implements InstanceCreator<Exposable>
 	}
 
 	/**
-	 * Write the config to the file
+	 * Write the config to the file. The config is serialised on the calling thread so that the written file is a
+	 * consistent snapshot, the actual write is handed off to the write service.
 	 */
 	void write()
 	{
 		synchronized (this.readWriteLock)
 		{
-			FileWriter writer = null;
+			String json;
 			try
 			{
-				writer = new FileWriter(this.configFile);
-				this.gson.toJson(this.exposable, writer);
+				long startTime = System.nanoTime();
+				json = this.gson.toJson(this.exposable);
+				this.serialiseTime += System.nanoTime() - startTime;
 				
 				this.dirty = false;
 				this.lastWrite = System.currentTimeMillis();
@@ -202,17 +288,19 @@ public final class ExposableConfigWriter implements InstanceCreator<Exposable>
 			catch (Exception ex)
 			{
 				ex.printStackTrace();
+				return;
 			}
-			finally
+			
+			if (this.writeService != null)
 			{
-				try
-				{
-					if (writer != null)
-						writer.close();
-				}
-				catch (IOException ex)
+				this.writeService.submit(this, json);
+			}
+			else
+			{
+				long startTime = System.nanoTime();
+				if (ConfigWriteService.writeAtomic(this.configFile, json))
 				{
-					ex.printStackTrace();
+					this.onWriteCompleted(System.nanoTime() - startTime);
 				}
 			}
 		}
@@ -269,8 +357,9 @@ public final class ExposableConfigWriter implements InstanceCreator<Exposable>
 	 * @param exposable
 	 * @param strategy
 	 * @param fileName
+	 * @param writeService
 	 */
-	static ExposableConfigWriter create(Exposable exposable, ConfigStrategy strategy, String fileName, boolean aggressive)
+	static ExposableConfigWriter create(Exposable exposable, ConfigStrategy strategy, String fileName, boolean aggressive, ConfigWriteService writeService)
 	{
 		if (!fileName.toLowerCase().endsWith(".json"))
 			fileName = fileName + ".json";
@@ -286,7 +375,7 @@ public final class ExposableConfigWriter implements InstanceCreator<Exposable>
 			}
 		}
 		
-		ExposableConfigWriter writer = new ExposableConfigWriter(exposable, configFile, strategy == ConfigStrategy.Versioned, aggressive);
+		ExposableConfigWriter writer = new ExposableConfigWriter(exposable, configFile, strategy == ConfigStrategy.Versioned, aggressive, writeService);
 
 		return writer;
 	}
@@ -0,0 +1,180 @@
+package com.mumfrey.liteloader.permissions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable compiled form of a Permission tree, used by ServerPermissions once the permissions have been replicated.
+ * Node names are interned to integer segment IDs and each node stores its children as a sorted array of segment IDs,
+ * along with the node to use when no child matches (the wildcard child, or the node itself if it is a wildcard). This
+ * means a lookup is a single walk along the permission name without allocating substrings or scanning for wildcards,
+ * and returns exactly the same node as {@link Permission#getPermission}.
+ *
+ * @author Adam Mummery-Smith
+ */
+final class CompiledPermissions
+{
+	/**
+	 * A compiled permission node
+	 */
+	static final class Node
+	{
+		final boolean value;
+		
+		/**
+		 * Segment IDs of the children of this node, sorted
+		 */
+		int[] childSegments;
+		
+		Node[] children;
+		
+		/**
+		 * Node to use if no child matches the next segment, may be null
+		 */
+		Node fallback;
+		
+		Node(boolean value)
+		{
+			this.value = value;
+		}
+		
+		Node getChild(int segment)
+		{
+			int index = Arrays.binarySearch(this.childSegments, segment);
+			return index > -1 ? this.children[index] : null;
+		}
+	}
+	
+	/**
+	 * Interned node names, indexed by segment ID
+	 */
+	private final List<String> segments = new ArrayList<String>();
+	
+	/**
+	 * Open addressed hash table of segment IDs + 1, so that segments can be looked up without creating a substring
+	 */
+	private final int[] segmentTable;
+	
+	private final Node root;
+	
+	/**
+	 * @param root Root node of the tree to compile
+	 */
+	CompiledPermissions(Permission root)
+	{
+		Map<String, Integer> segmentIds = new HashMap<String, Integer>();
+		this.root = this.compile(root, segmentIds);
+		
+		int tableSize = Integer.highestOneBit(Math.max(this.segments.size(), 4) * 2) * 2;
+		this.segmentTable = new int[tableSize];
+		for (int id = 0; id < this.segments.size(); id++)
+		{
+			String segment = this.segments.get(id);
+			int slot = CompiledPermissions.hash(segment, 0, segment.length()) & (tableSize - 1);
+			while (this.segmentTable[slot] != 0)
+			{
+				slot = (slot + 1) & (tableSize - 1);
+			}
+			this.segmentTable[slot] = id + 1;
+		}
+	}
+	
+	private Node compile(Permission permission, Map<String, Integer> segmentIds)
+	{
+		Node node = new Node(permission.getValue());
+		
+		Node wildcard = null;
+		Map<Integer, Node> children = new HashMap<Integer, Node>();
+		for (Permission child : permission.getChildren())
+		{
+			Integer segment = segmentIds.get(child.getName());
+			if (segment == null)
+			{
+				segment = this.segments.size();
+				segmentIds.put(child.getName(), segment);
+				this.segments.add(child.getName());
+			}
+			
+			Node childNode = this.compile(child, segmentIds);
+			children.put(segment, childNode);
+			if (child.isWildcard()) wildcard = childNode;
+		}
+		
+		node.childSegments = new int[children.size()];
+		int index = 0;
+		for (Integer segment : children.keySet())
+		{
+			node.childSegments[index++] = segment;
+		}
+		Arrays.sort(node.childSegments);
+		
+		node.children = new Node[node.childSegments.length];
+		for (index = 0; index < node.childSegments.length; index++)
+		{
+			node.children[index] = children.get(node.childSegments[index]);
+		}
+		
+		node.fallback = wildcard != null ? wildcard : permission.isWildcard() ? node : null;
+		return node;
+	}
+	
+	/**
+	 * Find the node for the specified permission, returns null if the permission is not set
+	 * 
+	 * @param name
+	 */
+	Node find(String name)
+	{
+		Node node = this.root;
+		int length = name.length();
+		int start = 0;
+		
+		while (node != null)
+		{
+			int end = name.indexOf('.', start);
+			if (end < 0) end = length;
+			
+			int segment = this.getSegmentId(name, start, end);
+			Node child = segment > -1 ? node.getChild(segment) : null;
+			node = child != null ? child : node.fallback;
+			
+			if (end == length) break;
+			start = end + 1;
+		}
+		
+		return node;
+	}
+	
+	/**
+	 * Get the ID of the segment between start and end in the specified name, returns -1 if no node has that name
+	 */
+	private int getSegmentId(String name, int start, int end)
+	{
+		int mask = this.segmentTable.length - 1;
+		int length = end - start;
+		for (int slot = CompiledPermissions.hash(name, start, end) & mask; this.segmentTable[slot] != 0; slot = (slot + 1) & mask)
+		{
+			String segment = this.segments.get(this.segmentTable[slot] - 1);
+			if (segment.length() == length && name.regionMatches(start, segment, 0, length))
+			{
+				return this.segmentTable[slot] - 1;
+			}
+		}
+		
+		return -1;
+	}
+	
+	private static int hash(String name, int start, int end)
+	{
+		int hash = 0;
+		for (int pos = start; pos < end; pos++)
+		{
+			hash = 31 * hash + name.charAt(pos);
+		}
+		
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -1,5 +1,7 @@
 package com.mumfrey.liteloader.permissions;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Hashtable;
 import java.util.Map;
 
@@ -94,6 +96,14 @@ public class Permission
 		return this.nodeName;
 	}
 	
+	/**
+	 * Get the child nodes of this node (read only)
+	 */
+	public Collection<Permission> getChildren()
+	{
+		return Collections.unmodifiableCollection(this.childNodes.values());
+	}
+	
 	/**
 	 * Get the value of this permission node
 	 */
@@ -204,6 +214,32 @@ public class Permission
 		return permission;
 	}
 	
+	/**
+	 * Set the value of the immediate child with the specified name, creating it if necessary. Equivalent to calling
+	 * setPermission (or setPermissionAndValue if explicit is true) with a name which contains no separators, used when
+	 * building the tree one segment at a time
+	 * 
+	 * @param name
+	 * @param value
+	 * @param explicit
+	 */
+	Permission setChild(String name, boolean value, boolean explicit)
+	{
+		Permission child = this.childNodes.get(name);
+		
+		if (child == null || child.isWildcard())
+		{
+			child = new Permission(name, value);
+			this.childNodes.put(child.getName(), child);
+		}
+		else
+		{
+			child.setValue(explicit ? value : value | child.value);
+		}
+		
+		return child;
+	}
+	
 	/**
 	 * Check whether the specified permission is set
 	 * 
@@ -83,6 +83,11 @@ public class PermissionsManagerClient implements PermissionsManager, PluginChann
 	private int pendingRefreshTicks = 0;
 	
 	private int menuTicks = 0;
+	
+	/**
+	 * Wire format to use for queries, the server must reply in a newer format before we use it
+	 */
+	private int serverWireFormat = PermissionsWireFormat.LEGACY;
 
 	/**
 	 * Get a reference to the singleton instance of the client permissions manager
@@ -196,6 +201,7 @@ public class PermissionsManagerClient implements PermissionsManager, PluginChann
 	protected void clearServerPermissions()
 	{
 		this.serverPermissions.clear();
+		this.serverWireFormat = PermissionsWireFormat.LEGACY;
 		
 		for (Permissible permissible : this.permissibles)
 			permissible.onPermissionsCleared(this);
@@ -234,12 +240,12 @@ public class PermissionsManagerClient implements PermissionsManager, PluginChann
 			if (modPermissions != null)
 			{
 				ReplicatedPermissionsContainer query = new ReplicatedPermissionsContainer(modName, modVersion, modPermissions);
+				query.supportedFormat = PermissionsWireFormat.COMPACT;
 	
 				if (!query.modName.equals("all") || query.permissions.size() > 0)
 				{
-					byte[] data = query.getBytes();
 					PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
-					buffer.writeBytes(data);
+					PermissionsWireFormat.write(query, this.serverWireFormat, buffer);
 					ClientPluginChannels.sendMessage(ReplicatedPermissionsContainer.CHANNEL, buffer, ChannelPolicy.DISPATCH_ALWAYS);
 				}
 			}
@@ -317,6 +323,11 @@ public class PermissionsManagerClient implements PermissionsManager, PluginChann
 			if (modPermissions != null && modPermissions.getModName() != null)
 			{
 				this.serverPermissions.put(modPermissions.getModName(), modPermissions);
+				
+				if (modPermissions.getWireFormat() > this.serverWireFormat)
+				{
+					this.serverWireFormat = modPermissions.getWireFormat();
+				}
 	
 				Permissible permissible = this.registeredClientMods.get(modPermissions.getModName());
 				if (permissible != null) permissible.onPermissionsChanged(this);
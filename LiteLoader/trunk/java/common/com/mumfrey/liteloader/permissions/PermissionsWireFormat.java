@@ -0,0 +1,398 @@
+package com.mumfrey.liteloader.permissions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import net.eq2online.permissions.ReplicatedPermissionsContainer;
+import net.minecraft.network.PacketBuffer;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Reads and writes ReplicatedPermissionsContainers on the PERMISSIONSREPL channel. Containers are either Java serialised
+ * (the legacy format, understood by all servers) or written in a compact format directly to the buffer. The first byte
+ * of the payload identifies the format, a Java serialisation stream always begins with 0xAC whereas a compact payload
+ * begins with its version number.
+ *
+ * The compact format consists of the mod name (varint length followed by UTF-8), the mod version (float), the cache time
+ * in seconds and the highest format version supported by the sender (varints) followed by the number of permissions and
+ * the permissions themselves. The permissions are sorted and each is written as a flags byte (granted or denied), the
+ * number of characters shared with the previous permission and the remaining characters (varints).
+ *
+ * Clients advertise support for the compact format using the supportedFormat field of their (legacy) query, servers
+ * which don't know about the field ignore it and reply in the legacy format. Once a server has replied in the compact
+ * format the client sends subsequent queries in the compact format as well.
+ *
+ * @author Adam Mummery-Smith
+ */
+public final class PermissionsWireFormat
+{
+	/**
+	 * Java serialised container
+	 */
+	public static final int LEGACY = 0;
+
+	/**
+	 * Compact format, version 1
+	 */
+	public static final int COMPACT = 1;
+
+	/**
+	 * First byte of a Java serialisation stream (STREAM_MAGIC is 0xACED)
+	 */
+	private static final int LEGACY_STREAM_HEADER = 0xAC;
+
+	private static final int FLAG_GRANTED = 0x01;
+
+	private static final int FLAG_DENIED = 0x02;
+
+	/**
+	 * Longest mod name to accept, in bytes
+	 */
+	private static final int MAX_MOD_NAME_LENGTH = 1024;
+
+	/**
+	 * Longest permission to write or accept, in characters
+	 */
+	private static final int MAX_PERMISSION_LENGTH = 1024;
+
+	/**
+	 * Sorts permissions by name, ignoring the leading + or -
+	 */
+	private static final Comparator<String> permissionOrder = new Comparator<String>()
+	{
+		@Override
+		public int compare(String a, String b)
+		{
+			int aOffset = PermissionsWireFormat.getFlags(a) != 0 ? 1 : 0;
+			int bOffset = PermissionsWireFormat.getFlags(b) != 0 ? 1 : 0;
+			int aLength = a.length() - aOffset, bLength = b.length() - bOffset;
+
+			for (int pos = 0; pos < aLength && pos < bLength; pos++)
+			{
+				char aChar = a.charAt(aOffset + pos), bChar = b.charAt(bOffset + pos);
+				if (aChar != bChar) return aChar - bChar;
+			}
+
+			return aLength - bLength;
+		}
+	};
+
+	private PermissionsWireFormat()
+	{
+	}
+
+	/**
+	 * Get the format of the payload in the specified buffer, without consuming any data
+	 *
+	 * @param data
+	 */
+	public static int getFormat(PacketBuffer data)
+	{
+		if (data == null || data.readableBytes() == 0) return PermissionsWireFormat.LEGACY;
+
+		int header = data.getUnsignedByte(data.readerIndex());
+		return header == PermissionsWireFormat.LEGACY_STREAM_HEADER ? PermissionsWireFormat.LEGACY : header;
+	}
+
+	/**
+	 * Read a container in either format
+	 *
+	 * @param data
+	 * @return new container or null if the data could not be read
+	 */
+	public static ReplicatedPermissionsContainer read(PacketBuffer data)
+	{
+		return PermissionsWireFormat.read(data, null);
+	}
+
+	/**
+	 * Read a container in either format. If a root node is specified and the payload is in the compact format then the
+	 * permissions are added directly to the tree (without creating the intermediate permission strings) and only the
+	 * other fields of the returned container are populated. Permissions in the legacy format are always returned in the
+	 * container.
+	 *
+	 * @param data
+	 * @param root Root node to add compact permissions to, can be null
+	 * @return new container or null if the data could not be read
+	 */
+	public static ReplicatedPermissionsContainer read(PacketBuffer data, Permission root)
+	{
+		int format = PermissionsWireFormat.getFormat(data);
+
+		if (format == PermissionsWireFormat.LEGACY)
+		{
+			return ReplicatedPermissionsContainer.fromPacketBuffer(data);
+		}
+
+		if (format == PermissionsWireFormat.COMPACT)
+		{
+			try
+			{
+				return PermissionsWireFormat.readCompact(data, root);
+			}
+			catch (IndexOutOfBoundsException ex) {}
+			catch (IllegalArgumentException ex) {}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Write the specified container to the buffer in the specified format
+	 *
+	 * @param container
+	 * @param format Format to write, use LEGACY unless the remote host is known to support a newer format
+	 * @param data
+	 */
+	public static void write(ReplicatedPermissionsContainer container, int format, PacketBuffer data)
+	{
+		if (format < PermissionsWireFormat.COMPACT)
+		{
+			data.writeBytes(container.getBytes());
+			return;
+		}
+
+		data.writeByte(PermissionsWireFormat.COMPACT);
+		PermissionsWireFormat.writeString(data, container.modName != null ? container.modName : "");
+		data.writeFloat(container.modVersion != null ? container.modVersion : 0.0F);
+		PermissionsWireFormat.writeVarInt(data, (int)Math.max(Math.min(container.remoteCacheTimeSeconds, Integer.MAX_VALUE), Integer.MIN_VALUE));
+		PermissionsWireFormat.writeVarInt(data, container.supportedFormat);
+
+		List<String> permissions = new ArrayList<String>(container.permissions.size());
+		for (String permission : container.permissions)
+		{
+			if (permission != null && permission.length() <= PermissionsWireFormat.MAX_PERMISSION_LENGTH) permissions.add(permission);
+		}
+
+		// Stable sort, so the order of duplicate names is preserved
+		Collections.sort(permissions, PermissionsWireFormat.permissionOrder);
+
+		PermissionsWireFormat.writeVarInt(data, permissions.size());
+		String previous = "";
+		for (String permission : permissions)
+		{
+			int flags = PermissionsWireFormat.getFlags(permission);
+			int offset = flags != 0 ? 1 : 0;
+			int length = permission.length() - offset;
+
+			int shared = 0;
+			while (shared < length && shared < previous.length() && permission.charAt(offset + shared) == previous.charAt(shared))
+			{
+				shared++;
+			}
+
+			data.writeByte(flags);
+			PermissionsWireFormat.writeVarInt(data, shared);
+			PermissionsWireFormat.writeVarInt(data, length - shared);
+			for (int pos = offset + shared; pos < permission.length(); pos++)
+			{
+				PermissionsWireFormat.writeVarInt(data, permission.charAt(pos));
+			}
+
+			previous = permission.substring(offset);
+		}
+	}
+
+	/**
+	 * @param data
+	 * @param root
+	 */
+	private static ReplicatedPermissionsContainer readCompact(PacketBuffer data, Permission root)
+	{
+		data.readUnsignedByte();
+
+		ReplicatedPermissionsContainer container = new ReplicatedPermissionsContainer();
+		container.modName = PermissionsWireFormat.readString(data, PermissionsWireFormat.MAX_MOD_NAME_LENGTH);
+		container.modVersion = data.readFloat();
+		container.remoteCacheTimeSeconds = PermissionsWireFormat.readVarInt(data);
+		container.supportedFormat = PermissionsWireFormat.readVarInt(data);
+
+		// Each permission takes at least 3 bytes, reject counts which can't possibly be satisfied before allocating
+		int count = PermissionsWireFormat.readVarInt(data);
+		if (count < 0 || count > data.readableBytes() / 3) return null;
+
+		char[] name = new char[64];
+		int length = 0;
+
+		// Nodes created for each segment of the last permission added to the tree, sorted input means that consecutive
+		// permissions usually share most of their path so only the new segments need to be looked up
+		Permission[] path = new Permission[8];
+		int[] segmentEnds = new int[8];
+		int depth = 0;
+		int unchanged = 0;
+
+		for (int index = 0; index < count; index++)
+		{
+			int flags = data.readUnsignedByte();
+			int shared = PermissionsWireFormat.readVarInt(data);
+			int suffix = PermissionsWireFormat.readVarInt(data);
+			if (shared < 0 || shared > length || suffix < 0 || suffix > PermissionsWireFormat.MAX_PERMISSION_LENGTH - shared) return null;
+
+			length = shared + suffix;
+			if (length > name.length) name = PermissionsWireFormat.grow(name, length);
+
+			for (int pos = shared; pos < length; pos++)
+			{
+				int ch = PermissionsWireFormat.readVarInt(data);
+				if (ch < 0 || ch > Character.MAX_VALUE) return null;
+				name[pos] = (char)ch;
+			}
+
+			if (root == null)
+			{
+				String permission = new String(name, 0, length);
+				container.permissions.add(flags == PermissionsWireFormat.FLAG_GRANTED ? "+" + permission
+						: flags == PermissionsWireFormat.FLAG_DENIED ? "-" + permission : permission);
+				continue;
+			}
+
+			unchanged = Math.min(unchanged, shared);
+			if ((flags != PermissionsWireFormat.FLAG_GRANTED && flags != PermissionsWireFormat.FLAG_DENIED) || !PermissionsWireFormat.isValid(name, length))
+			{
+				continue;
+			}
+
+			// Reuse the nodes for leading segments which are the same as the previous permission
+			Permission parent = root;
+			int segment = 0, start = 0;
+			while (segment < depth && segmentEnds[segment] <= unchanged && segmentEnds[segment] < length && name[segmentEnds[segment]] == '.')
+			{
+				parent = path[segment];
+				start = segmentEnds[segment++] + 1;
+			}
+
+			while (start < length)
+			{
+				int end = start;
+				while (end < length && name[end] != '.') end++;
+
+				boolean last = end == length;
+				parent = parent.setChild(new String(name, start, end - start), last && flags == PermissionsWireFormat.FLAG_GRANTED, last);
+
+				if (segment == path.length)
+				{
+					path = PermissionsWireFormat.grow(path);
+					segmentEnds = PermissionsWireFormat.grow(segmentEnds);
+				}
+
+				path[segment] = parent;
+				segmentEnds[segment++] = end;
+				start = end + 1;
+			}
+
+			depth = segment;
+			unchanged = length;
+		}
+
+		return container;
+	}
+
+	/**
+	 * Check the permission against the same rules as ServerPermissions applies to legacy permissions: one or more
+	 * alphanumeric segments separated by dots, the last segment may also contain wildcards
+	 *
+	 * @param name
+	 * @param length
+	 */
+	private static boolean isValid(char[] name, int length)
+	{
+		int segmentLength = 0;
+		boolean wildcard = false;
+
+		for (int pos = 0; pos < length; pos++)
+		{
+			char ch = name[pos];
+			if (ch == '.')
+			{
+				if (segmentLength == 0 || wildcard) return false;
+				segmentLength = 0;
+				continue;
+			}
+
+			if (ch == '*')
+			{
+				wildcard = true;
+			}
+			else if (!((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9')))
+			{
+				return false;
+			}
+
+			segmentLength++;
+		}
+
+		return segmentLength > 0;
+	}
+
+	private static int getFlags(String permission)
+	{
+		if (permission.startsWith("+")) return PermissionsWireFormat.FLAG_GRANTED;
+		if (permission.startsWith("-")) return PermissionsWireFormat.FLAG_DENIED;
+		return 0;
+	}
+
+	private static char[] grow(char[] array, int minLength)
+	{
+		char[] newArray = new char[Math.max(minLength, array.length * 2)];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	private static Permission[] grow(Permission[] array)
+	{
+		Permission[] newArray = new Permission[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	private static int[] grow(int[] array)
+	{
+		int[] newArray = new int[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	private static void writeString(PacketBuffer data, String value)
+	{
+		byte[] bytes = value.getBytes(Charsets.UTF_8);
+		PermissionsWireFormat.writeVarInt(data, bytes.length);
+		data.writeBytes(bytes);
+	}
+
+	private static String readString(PacketBuffer data, int maxLength)
+	{
+		int length = PermissionsWireFormat.readVarInt(data);
+		if (length < 0 || length > maxLength) throw new IllegalArgumentException("String length " + length + " is out of range");
+
+		byte[] bytes = new byte[length];
+		data.readBytes(bytes);
+		return new String(bytes, Charsets.UTF_8);
+	}
+
+	private static void writeVarInt(PacketBuffer data, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			data.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+
+		data.writeByte(value);
+	}
+
+	private static int readVarInt(PacketBuffer data)
+	{
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7)
+		{
+			int b = data.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+
+		throw new IllegalArgumentException("VarInt is too long");
+	}
+}
@@ -1,5 +1,7 @@
 package com.mumfrey.liteloader.permissions;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -19,10 +21,26 @@ public class ServerPermissions implements ReplicatedPermissions
 	 */
 	private static final Pattern permissionPattern = Pattern.compile("^([\\+\\-])(([a-z0-9]+\\.)*[a-z0-9\\*]+)$", Pattern.CASE_INSENSITIVE);
 	
+	/**
+	 * Maximum number of lookups to cache, mods generally query a fixed set of permissions so this is only a safeguard
+	 */
+	private static final int MAX_CACHED_LOOKUPS = 1024;
+	
+	/**
+	 * Cached result for permissions which are not set
+	 */
+	private static final CompiledPermissions.Node NOT_SET = new CompiledPermissions.Node(false);
+	
 	protected String modName;
 	
 	/**
-	 * Root permission node
+	 * Wire format the permissions were received in
+	 */
+	protected int wireFormat;
+	
+	/**
+	 * Root permission node, this is compiled once the permissions have been read so changes made after construction
+	 * are not reflected in lookups
 	 */
 	protected Permission permissions = new Permission();
 	
@@ -46,6 +64,17 @@ public class ServerPermissions implements ReplicatedPermissions
 	 */
 	protected long refreshTime = 15L * 1000L;		// 15 seconds
 	
+	/**
+	 * Compiled form of the permissions tree, built once the permissions have been replicated
+	 */
+	private final CompiledPermissions compiledPermissions;
+	
+	/**
+	 * Results of previous lookups. The permissions can't change once they are replicated, the whole cache is discarded
+	 * along with this object when the permissions are replaced
+	 */
+	private final ConcurrentMap<String, CompiledPermissions.Node> lookupCache = new ConcurrentHashMap<String, CompiledPermissions.Node>();
+	
 	/**
 	 * @param data
 	 */
@@ -54,7 +83,9 @@ public class ServerPermissions implements ReplicatedPermissions
 		this.createdTime = System.currentTimeMillis();
 		this.validUntil = this.createdTime + this.cacheTime;
 		
-		ReplicatedPermissionsContainer response = ReplicatedPermissionsContainer.fromPacketBuffer(data);
+		// Compact payloads are decoded straight into the permissions tree, legacy payloads are parsed below
+		this.wireFormat = PermissionsWireFormat.getFormat(data);
+		ReplicatedPermissionsContainer response = PermissionsWireFormat.read(data, this.permissions);
 		
 		if (response != null)
 		{
@@ -76,6 +107,30 @@ public class ServerPermissions implements ReplicatedPermissions
 				}
 			}
 		}
+		
+		this.compiledPermissions = new CompiledPermissions(this.permissions);
+	}
+	
+	/**
+	 * Get the node for the specified permission, returns null if the permission is not set
+	 * 
+	 * @param permission
+	 */
+	private CompiledPermissions.Node lookup(String permission)
+	{
+		CompiledPermissions.Node node = this.lookupCache.get(permission);
+		if (node == null)
+		{
+			node = this.compiledPermissions.find(permission);
+			if (node == null) node = ServerPermissions.NOT_SET;
+			
+			if (this.lookupCache.size() < ServerPermissions.MAX_CACHED_LOOKUPS)
+			{
+				this.lookupCache.put(permission, node);
+			}
+		}
+		
+		return node != ServerPermissions.NOT_SET ? node : null;
 	}
 	
 	/**
@@ -86,13 +141,21 @@ public class ServerPermissions implements ReplicatedPermissions
 		return this.modName;
 	}
 	
+	/**
+	 * Get the wire format the permissions were received in
+	 */
+	public int getWireFormat()
+	{
+		return this.wireFormat;
+	}
+	
 	/* (non-Javadoc)
 	 * @see net.eq2online.permissions.Permissions#getPermissionSet(java.lang.String)
 	 */
 	@Override
 	public boolean getPermissionSet(String permission)
 	{
-		return this.permissions.getPermission(permission) != null;
+		return this.lookup(permission) != null;
 	}
 	
 	/* (non-Javadoc)
@@ -101,8 +164,8 @@ public class ServerPermissions implements ReplicatedPermissions
 	@Override
 	public boolean getHasPermission(String permission)
 	{
-		Permission perm = this.permissions.getPermission(permission);
-		return perm != null && perm.getValue();
+		CompiledPermissions.Node perm = this.lookup(permission);
+		return perm != null && perm.value;
 	}
 	
 	/* (non-Javadoc)
@@ -111,9 +174,9 @@ public class ServerPermissions implements ReplicatedPermissions
 	@Override
 	public boolean getHasPermission(String permission, boolean defaultValue)
 	{
-		Permission perm = this.permissions.getPermission(permission);
+		CompiledPermissions.Node perm = this.lookup(permission);
 
-		return perm != null ? perm.getValue() : defaultValue;  
+		return perm != null ? perm.value : defaultValue;  
 	}
 	
 	/* (non-Javadoc)
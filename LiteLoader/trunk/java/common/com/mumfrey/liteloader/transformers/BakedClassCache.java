@@ -0,0 +1,291 @@
+package com.mumfrey.liteloader.transformers;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import net.minecraft.launchwrapper.IClassTransformer;
+import net.minecraft.launchwrapper.Launch;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.core.helpers.Booleans;
+
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
+
+/**
+ * Content-addressed on-disk cache for classes which LiteLoader generates at runtime (baked handler lists and
+ * event proxies). Generators build a key from everything which contributes to the generated bytecode and can
+ * then define the cached bytes directly on subsequent launches instead of running ASM again. The cache is
+ * inert until init() is called by the bootstrap.
+ *
+ * @author Adam Mummery-Smith
+ */
+public final class BakedClassCache
+{
+	/**
+	 * Set this system property to disable the cache, for example when debugging generated code
+	 */
+	public static final boolean DISABLED = Booleans.parseBoolean(System.getProperty("liteloader.debug.nocache"), false);
+
+	private static final String CLASS_EXTENSION = ".class";
+
+	/**
+	 * Entries which haven't been used for this long are pruned when the cache is initialised
+	 */
+	private static final long MAX_ENTRY_AGE = 30L * 24L * 60L * 60L * 1000L;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Cache directory, null until the cache is initialised
+	 */
+	private static File cacheDir;
+
+	/**
+	 * Hash of the loader version and codebase, mixed into every key so that the cache is invalidated when the
+	 * loader or the transformer chain changes
+	 */
+	private static String loaderHash;
+
+	private static int hits, misses;
+
+	private BakedClassCache() {}
+
+	/**
+	 * Initialise the cache
+	 *
+	 * @param cacheDir Directory to store cached classes in
+	 * @param loaderVersion Loader version string
+	 */
+	public static synchronized void init(File cacheDir, String loaderVersion)
+	{
+		if (BakedClassCache.DISABLED || BakedClassCache.cacheDir != null)
+		{
+			return;
+		}
+
+		if (!cacheDir.isDirectory() && !cacheDir.mkdirs())
+		{
+			LiteLoaderLogger.warning("Could not create class cache directory %s, class caching will be disabled", cacheDir);
+			return;
+		}
+
+		BakedClassCache.loaderHash = BakedClassCache.hash(loaderVersion, BakedClassCache.getSourceStamp(BakedClassCache.class));
+		BakedClassCache.cacheDir = cacheDir;
+		BakedClassCache.prune();
+	}
+
+	/**
+	 * Remove stale entries from the cache
+	 */
+	private static void prune()
+	{
+		File[] entries = BakedClassCache.cacheDir.listFiles();
+		if (entries == null) return;
+
+		long oldest = System.currentTimeMillis() - BakedClassCache.MAX_ENTRY_AGE;
+		for (File entry : entries)
+		{
+			if (entry.isFile() && entry.lastModified() < oldest)
+			{
+				entry.delete();
+			}
+		}
+	}
+
+	/**
+	 * Get whether the cache has been initialised and is available
+	 */
+	public static boolean isEnabled()
+	{
+		return BakedClassCache.cacheDir != null;
+	}
+
+	/**
+	 * Generate a cache key from the supplied key components, the loader version hash and the current transformer
+	 * chain are included automatically. Returns null if the cache is not enabled.
+	 *
+	 * @param components Key components, all components which affect the generated bytecode must be supplied
+	 */
+	public static String getKey(Object... components)
+	{
+		if (!BakedClassCache.isEnabled())
+		{
+			return null;
+		}
+
+		StringBuilder key = new StringBuilder(BakedClassCache.loaderHash);
+		for (Object component : components)
+		{
+			key.append('|').append(component);
+		}
+
+		for (IClassTransformer transformer : Launch.classLoader.getTransformers())
+		{
+			transformer = TransformerProfiler.unwrap(transformer);
+			if (transformer instanceof ClassTransformerPipeline)
+			{
+				for (IClassTransformer participant : ((ClassTransformerPipeline)transformer).getTransformers())
+				{
+					key.append('|').append(participant.getClass().getName());
+				}
+				
+				continue;
+			}
+			
+			key.append('|').append(transformer.getClass().getName());
+		}
+
+		return BakedClassCache.hash(key.toString());
+	}
+
+	/**
+	 * Get cached class bytes for the specified key, returns null if the key is not cached
+	 *
+	 * @param key Cache key from getKey()
+	 */
+	public static synchronized byte[] get(String key)
+	{
+		if (key == null || !BakedClassCache.isEnabled())
+		{
+			return null;
+		}
+
+		File cachedFile = new File(BakedClassCache.cacheDir, key + BakedClassCache.CLASS_EXTENSION);
+		if (cachedFile.isFile())
+		{
+			try
+			{
+				byte[] bytes = FileUtils.readFileToByteArray(cachedFile);
+				cachedFile.setLastModified(System.currentTimeMillis());
+				BakedClassCache.hits++;
+				return bytes;
+			}
+			catch (IOException ex)
+			{
+				LiteLoaderLogger.debug(ex, "Error reading cached class %s", cachedFile.getName());
+				cachedFile.delete();
+			}
+		}
+
+		BakedClassCache.misses++;
+		return null;
+	}
+
+	/**
+	 * Store class bytes in the cache
+	 *
+	 * @param key Cache key from getKey()
+	 * @param bytes Generated class bytes
+	 */
+	public static synchronized void put(String key, byte[] bytes)
+	{
+		if (key == null || bytes == null || !BakedClassCache.isEnabled())
+		{
+			return;
+		}
+
+		File cachedFile = new File(BakedClassCache.cacheDir, key + BakedClassCache.CLASS_EXTENSION);
+		File tempFile = new File(BakedClassCache.cacheDir, key + ".tmp");
+
+		try
+		{
+			FileUtils.writeByteArrayToFile(tempFile, bytes);
+			if (!tempFile.renameTo(cachedFile))
+			{
+				cachedFile.delete();
+				tempFile.renameTo(cachedFile);
+			}
+		}
+		catch (IOException ex)
+		{
+			LiteLoaderLogger.debug(ex, "Error writing cached class %s", cachedFile.getName());
+		}
+		finally
+		{
+			tempFile.delete();
+		}
+	}
+
+	/**
+	 * Remove an entry from the cache, used when cached bytes turn out to be unusable
+	 *
+	 * @param key
+	 */
+	public static synchronized void remove(String key)
+	{
+		if (key != null && BakedClassCache.isEnabled())
+		{
+			new File(BakedClassCache.cacheDir, key + BakedClassCache.CLASS_EXTENSION).delete();
+		}
+	}
+
+	public static int getHits()
+	{
+		return BakedClassCache.hits;
+	}
+
+	public static int getMisses()
+	{
+		return BakedClassCache.misses;
+	}
+
+	/**
+	 * Get a string which changes whenever the container the specified class was loaded from changes
+	 *
+	 * @param clazz
+	 */
+	public static String getSourceStamp(Class<?> clazz)
+	{
+		try
+		{
+			CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+			URL location = codeSource != null ? codeSource.getLocation() : null;
+			if (location != null && "file".equals(location.getProtocol()))
+			{
+				File source = new File(location.toURI());
+				return String.format("%s:%d:%d", source.getAbsolutePath(), source.length(), source.lastModified());
+			}
+		}
+		catch (Exception ex) {}
+
+		return clazz.getName();
+	}
+
+	/**
+	 * @param components
+	 */
+	private static String hash(String... components)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			for (String component : components)
+			{
+				digest.update(component.getBytes("UTF-8"));
+				digest.update((byte)0);
+			}
+
+			byte[] hash = digest.digest();
+			char[] hex = new char[hash.length * 2];
+			for (int i = 0; i < hash.length; i++)
+			{
+				hex[i * 2]     = BakedClassCache.HEX[(hash[i] >> 4) & 0xF];
+				hex[i * 2 + 1] = BakedClassCache.HEX[hash[i] & 0xF];
+			}
+
+			return new String(hex);
+		}
+		catch (NoSuchAlgorithmException ex)
+		{
+			throw new RuntimeException(ex);
+		}
+		catch (IOException ex)
+		{
+			throw new RuntimeException(ex);
+		}
+	}
+}
@@ -3,8 +3,10 @@ package com.mumfrey.liteloader.transformers;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +34,24 @@ public abstract class ByteCodeUtilities
 {
 	private static Map<String, List<LocalVariableNode>> calculatedLocalVariables = new HashMap<String, List<LocalVariableNode>>();
 	
+	/**
+	 * Maximum number of method locals indexes to retain
+	 */
+	private static final int MAX_LOCALS_INDEXES = 32;
+	
+	/**
+	 * Locals indexes for recently inspected methods, keyed by method node identity and evicted least-recently-used first
+	 */
+	@SuppressWarnings("serial")
+	private static Map<MethodNode, LocalsIndex> localsIndexes = new LinkedHashMap<MethodNode, LocalsIndex>(16, 0.75F, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<MethodNode, LocalsIndex> eldest)
+		{
+			return this.size() > ByteCodeUtilities.MAX_LOCALS_INDEXES;
+		}
+	};
+	
 	private ByteCodeUtilities() {}
 
 	/**
@@ -204,77 +224,7 @@ public abstract class ByteCodeUtilities
 	 */
 	public static LocalVariableNode[] getLocalsAt(ClassNode classNode, MethodNode method, AbstractInsnNode node)
 	{
-		LocalVariableNode[] frame = new LocalVariableNode[method.maxLocals];
-		
-		// Initialise implicit "this" reference in non-static methods
-		if ((method.access & Opcodes.ACC_STATIC) == 0)
-		{
-			frame[0] = new LocalVariableNode("this", classNode.name, null, null, null, 0);
-		}
-		
-		for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext();)
-		{
-			AbstractInsnNode insn = iter.next();
-			if (insn instanceof FrameNode)
-			{
-				FrameNode frameNode = (FrameNode)insn;
-				
-				// localPos tracks the location in the frame node's locals list, which doesn't leave space for TOP entries
-				for (int localPos = 0, framePos = 0; framePos < frame.length; framePos++, localPos++)
-				{
-					// Get the local at the current position in the FrameNode's locals list
-					final Object localType = (localPos < frameNode.local.size()) ? frameNode.local.get(localPos) : null;
-					
-					if (localType instanceof String) // String refers to a reference type
-					{
-						frame[framePos] = ByteCodeUtilities.getLocalVariableAt(classNode, method, node, framePos);
-					}
-					else if (localType instanceof Integer) // Integer refers to a primitive type or other marker
-					{
-						boolean isMarkerType = localType == Opcodes.UNINITIALIZED_THIS || localType == Opcodes.TOP || localType == Opcodes.NULL;
-						boolean is32bitValue = localType == Opcodes.INTEGER || localType == Opcodes.FLOAT;
-						boolean is64bitValue = localType == Opcodes.DOUBLE || localType == Opcodes.LONG;
-						if (isMarkerType)
-						{
-							frame[framePos] = null;
-						}
-						else if (is32bitValue || is64bitValue)
-						{
-							frame[framePos] = ByteCodeUtilities.getLocalVariableAt(classNode, method, node, framePos);
-
-							if (is64bitValue)
-							{
-								framePos++;
-								frame[framePos] = null; // TOP
-							}
-						}
-						else
-						{
-							throw new RuntimeException("Unrecognised locals opcode " + localType + " in locals array at position " + localPos + " in " + classNode.name + "." + method.name + method.desc);
-						}
-					}
-					else if (localType == null)
-					{
-						frame[framePos] = null;
-					}
-					else
-					{
-						throw new RuntimeException("Invalid value " + localType + " in locals array at position " + localPos + " in " + classNode.name + "." + method.name + method.desc);
-					}
-				}
-			}
-			else if (insn instanceof VarInsnNode)
-			{
-				VarInsnNode varNode = (VarInsnNode)insn;
-				frame[varNode.var] = ByteCodeUtilities.getLocalVariableAt(classNode, method, node, varNode.var);
-			}
-			else if (insn == node)
-			{
-				break;
-			}
-		}
-		
-		return frame;
+		return ByteCodeUtilities.getLocalsIndex(classNode, method).getLocalsAt(classNode, node);
 	}
 
 	/**
@@ -289,23 +239,26 @@ public abstract class ByteCodeUtilities
 	 */
 	public static LocalVariableNode getLocalVariableAt(ClassNode classNode, MethodNode method, AbstractInsnNode node, int var)
 	{
-		LocalVariableNode localVariableNode = null;
-		
-		int pos = method.instructions.indexOf(node);
-
-		List<LocalVariableNode> localVariables = ByteCodeUtilities.getLocalVariableTable(classNode, method);
-		for (LocalVariableNode local : localVariables)
+		return ByteCodeUtilities.getLocalsIndex(classNode, method).getLocalVariableAt(method.instructions.indexOf(node), var);
+	}
+	
+	/**
+	 * Fetches or builds the locals index for the specified method, indexes are rebuilt if the method has been modified since the
+	 * index was built
+	 * 
+	 * @param classNode Containing class
+	 * @param method Method
+	 */
+	private static LocalsIndex getLocalsIndex(ClassNode classNode, MethodNode method)
+	{
+		LocalsIndex index = ByteCodeUtilities.localsIndexes.get(method);
+		if (index == null || !index.isValidFor(method))
 		{
-			if (local.index != var) continue;
-			int start = method.instructions.indexOf(local.start);
-			int end = method.instructions.indexOf(local.end);
-			if (localVariableNode == null || start < pos && end > pos)
-			{
-				localVariableNode = local;
-			}
+			index = new LocalsIndex(classNode, method);
+			ByteCodeUtilities.localsIndexes.put(method, index);
 		}
 		
-		return localVariableNode;
+		return index;
 	}
 
 	/**
@@ -628,7 +581,13 @@ public abstract class ByteCodeUtilities
 		
 		for (final IClassTransformer transformer : transformers)
 		{
-			if (transformer != source)
+			IClassTransformer target = TransformerProfiler.unwrap(transformer);
+			if (target instanceof ClassTransformerPipeline)
+			{
+				// The source transformer may be part of the pipeline
+				basicClass = ((ClassTransformerPipeline)target).transform(className, className, basicClass, source);
+			}
+			else if (target != source)
 			{
 				basicClass = transformer.transform(className, className, basicClass);
 			}
@@ -802,4 +761,313 @@ public abstract class ByteCodeUtilities
 		
 		return arg == null ? "" : arg.toString();
 	}
+	
+	/**
+	 * Index of the locals available at each position in a method, built with a single pass over the method so that lookups for each
+	 * injection point do not need to walk the method again. The liveness of each local slot is recorded only at instructions which
+	 * change it (stack map frames and VAR opcodes) and is found for a position using a binary search, entries in the local variable
+	 * table are pre-resolved to instruction positions and grouped by slot.
+	 * 
+	 * Results are identical to walking the method from the start for each query, including the behaviour that a FrameNode or
+	 * VarInsnNode passed as the target node does not terminate the walk.
+	 */
+	static final class LocalsIndex
+	{
+		private static final byte SLOT_EMPTY = 0;
+		private static final byte SLOT_LOCAL = 1;
+		private static final byte SLOT_THIS = 2;
+		
+		/**
+		 * Method instructions and size when the index was built, used to detect modifications
+		 */
+		private final InsnList instructions;
+		private final int size;
+		
+		/**
+		 * Initial slot states
+		 */
+		private final byte[] initialState;
+		
+		/**
+		 * Positions at which the slot states change, ascending, and the slot states after each change
+		 */
+		private int[] changePositions = new int[16];
+		private byte[][] changeStates = new byte[16][];
+		private int changeCount;
+		
+		/**
+		 * Slot states after the whole method has been walked
+		 */
+		private byte[] finalState;
+		
+		/**
+		 * Position at which the walk failed, and the error, queries which would walk past this point rethrow the error
+		 */
+		private int errorPosition = Integer.MAX_VALUE;
+		private RuntimeException error;
+		
+		/**
+		 * Local variable table entries for each slot, in table order, with their start and end positions
+		 */
+		private final LocalVariableNode[][] slotLocals;
+		private final int[][] slotStarts, slotEnds;
+		
+		LocalsIndex(ClassNode classNode, MethodNode method)
+		{
+			// Generating the local variable table inserts labels into the method, so do this before recording the size
+			List<LocalVariableNode> localVariables = ByteCodeUtilities.getLocalVariableTable(classNode, method);
+			
+			this.instructions = method.instructions;
+			this.size = method.instructions.size();
+			this.initialState = new byte[method.maxLocals];
+			
+			// Initialise implicit "this" reference in non-static methods
+			if ((method.access & Opcodes.ACC_STATIC) == 0 && method.maxLocals > 0)
+			{
+				this.initialState[0] = LocalsIndex.SLOT_THIS;
+			}
+			
+			this.slotLocals = new LocalVariableNode[method.maxLocals][];
+			this.slotStarts = new int[method.maxLocals][];
+			this.slotEnds = new int[method.maxLocals][];
+			this.indexLocalVariables(localVariables);
+			
+			this.walk(classNode, method);
+		}
+		
+		boolean isValidFor(MethodNode method)
+		{
+			return this.instructions == method.instructions && this.size == method.instructions.size();
+		}
+		
+		/**
+		 * @param localVariables
+		 */
+		private void indexLocalVariables(List<LocalVariableNode> localVariables)
+		{
+			int[] counts = new int[this.slotLocals.length];
+			for (LocalVariableNode local : localVariables)
+			{
+				if (local.index >= 0 && local.index < counts.length) counts[local.index]++;
+			}
+			
+			for (int slot = 0; slot < counts.length; slot++)
+			{
+				this.slotLocals[slot] = new LocalVariableNode[counts[slot]];
+				this.slotStarts[slot] = new int[counts[slot]];
+				this.slotEnds[slot] = new int[counts[slot]];
+				counts[slot] = 0;
+			}
+			
+			for (LocalVariableNode local : localVariables)
+			{
+				int slot = local.index;
+				if (slot < 0 || slot >= counts.length) continue;
+				int n = counts[slot]++;
+				this.slotLocals[slot][n] = local;
+				this.slotStarts[slot][n] = this.instructions.indexOf(local.start);
+				this.slotEnds[slot][n] = this.instructions.indexOf(local.end);
+			}
+		}
+		
+		/**
+		 * Walk the method once, recording the slot states at each position where they change
+		 * 
+		 * @param classNode
+		 * @param method
+		 */
+		private void walk(ClassNode classNode, MethodNode method)
+		{
+			byte[] state = this.initialState.clone();
+			int pos = 0;
+			
+			try
+			{
+				for (Iterator<AbstractInsnNode> iter = method.instructions.iterator(); iter.hasNext(); pos++)
+				{
+					AbstractInsnNode insn = iter.next();
+					if (insn instanceof FrameNode)
+					{
+						LocalsIndex.applyFrame(classNode, method, (FrameNode)insn, state);
+						this.recordChange(pos, state);
+					}
+					else if (insn instanceof VarInsnNode)
+					{
+						state[((VarInsnNode)insn).var] = LocalsIndex.SLOT_LOCAL;
+						this.recordChange(pos, state);
+					}
+				}
+			}
+			catch (RuntimeException ex)
+			{
+				this.errorPosition = pos;
+				this.error = ex;
+			}
+			
+			this.finalState = state;
+		}
+		
+		/**
+		 * Apply a stack map frame to the slot states
+		 * 
+		 * @param classNode
+		 * @param method
+		 * @param frameNode
+		 * @param state
+		 */
+		private static void applyFrame(ClassNode classNode, MethodNode method, FrameNode frameNode, byte[] state)
+		{
+			// localPos tracks the location in the frame node's locals list, which doesn't leave space for TOP entries
+			for (int localPos = 0, framePos = 0; framePos < state.length; framePos++, localPos++)
+			{
+				// Get the local at the current position in the FrameNode's locals list
+				final Object localType = (localPos < frameNode.local.size()) ? frameNode.local.get(localPos) : null;
+				
+				if (localType instanceof String) // String refers to a reference type
+				{
+					state[framePos] = LocalsIndex.SLOT_LOCAL;
+				}
+				else if (localType instanceof Integer) // Integer refers to a primitive type or other marker
+				{
+					boolean isMarkerType = localType == Opcodes.UNINITIALIZED_THIS || localType == Opcodes.TOP || localType == Opcodes.NULL;
+					boolean is32bitValue = localType == Opcodes.INTEGER || localType == Opcodes.FLOAT;
+					boolean is64bitValue = localType == Opcodes.DOUBLE || localType == Opcodes.LONG;
+					if (isMarkerType)
+					{
+						state[framePos] = LocalsIndex.SLOT_EMPTY;
+					}
+					else if (is32bitValue || is64bitValue)
+					{
+						state[framePos] = LocalsIndex.SLOT_LOCAL;
+
+						if (is64bitValue)
+						{
+							framePos++;
+							state[framePos] = LocalsIndex.SLOT_EMPTY; // TOP
+						}
+					}
+					else
+					{
+						throw new RuntimeException("Unrecognised locals opcode " + localType + " in locals array at position " + localPos + " in " + classNode.name + "." + method.name + method.desc);
+					}
+				}
+				else if (localType == null)
+				{
+					state[framePos] = LocalsIndex.SLOT_EMPTY;
+				}
+				else
+				{
+					throw new RuntimeException("Invalid value " + localType + " in locals array at position " + localPos + " in " + classNode.name + "." + method.name + method.desc);
+				}
+			}
+		}
+		
+		/**
+		 * @param pos
+		 * @param state
+		 */
+		private void recordChange(int pos, byte[] state)
+		{
+			if (this.changeCount > 0 && Arrays.equals(this.changeStates[this.changeCount - 1], state))
+			{
+				return;
+			}
+			
+			if (this.changeCount == this.changePositions.length)
+			{
+				this.changePositions = Arrays.copyOf(this.changePositions, this.changeCount * 2);
+				this.changeStates = Arrays.copyOf(this.changeStates, this.changeCount * 2);
+			}
+			
+			this.changePositions[this.changeCount] = pos;
+			this.changeStates[this.changeCount] = state.clone();
+			this.changeCount++;
+		}
+		
+		/**
+		 * Get the slot states at the specified node
+		 * 
+		 * @param node
+		 * @param pos
+		 */
+		private byte[] getStateAt(AbstractInsnNode node, int pos)
+		{
+			// Frame and VAR nodes don't terminate the walk, so the state is that at the end of the method
+			if (node instanceof FrameNode || node instanceof VarInsnNode)
+			{
+				if (this.error != null) throw this.error;
+				return this.finalState;
+			}
+			
+			if (this.errorPosition < pos) throw this.error;
+			
+			// Find the last change strictly before the node
+			int low = 0, high = this.changeCount - 1, found = -1;
+			while (low <= high)
+			{
+				int mid = (low + high) >>> 1;
+				if (this.changePositions[mid] < pos)
+				{
+					found = mid;
+					low = mid + 1;
+				}
+				else
+				{
+					high = mid - 1;
+				}
+			}
+			
+			return found < 0 ? this.initialState : this.changeStates[found];
+		}
+		
+		/**
+		 * @param classNode
+		 * @param node
+		 */
+		LocalVariableNode[] getLocalsAt(ClassNode classNode, AbstractInsnNode node)
+		{
+			int pos = this.instructions.indexOf(node);
+			byte[] state = this.getStateAt(node, pos);
+			LocalVariableNode[] frame = new LocalVariableNode[state.length];
+			
+			for (int slot = 0; slot < state.length; slot++)
+			{
+				if (state[slot] == LocalsIndex.SLOT_THIS)
+				{
+					frame[slot] = new LocalVariableNode("this", classNode.name, null, null, null, 0);
+				}
+				else if (state[slot] == LocalsIndex.SLOT_LOCAL)
+				{
+					frame[slot] = this.getLocalVariableAt(pos, slot);
+				}
+			}
+			
+			return frame;
+		}
+		
+		/**
+		 * Get the local variable table entry for the specified slot at the specified position. This is the last entry in table order
+		 * which strictly spans the position, or the first entry for the slot if no other entry spans it.
+		 * 
+		 * @param pos
+		 * @param var
+		 */
+		LocalVariableNode getLocalVariableAt(int pos, int var)
+		{
+			if (var < 0 || var >= this.slotLocals.length) return null;
+			
+			LocalVariableNode[] locals = this.slotLocals[var];
+			int[] starts = this.slotStarts[var], ends = this.slotEnds[var];
+			
+			for (int n = locals.length - 1; n > 0; n--)
+			{
+				if (starts[n] < pos && ends[n] > pos)
+				{
+					return locals[n];
+				}
+			}
+			
+			return locals.length > 0 ? locals[0] : null;
+		}
+	}
 }
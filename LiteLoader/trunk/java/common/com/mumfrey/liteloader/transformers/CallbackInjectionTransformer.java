@@ -121,6 +121,15 @@ public abstract class CallbackInjectionTransformer extends ClassTransformer
 		return basicClass;
 	}
 
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.ClassTransformer#isPipelineCompatible()
+	 */
+	@Override
+	protected boolean isPipelineCompatible()
+	{
+		return true;
+	}
+
 	/**
 	 * @param basicClass
 	 * @param profilerMappings
@@ -7,7 +7,8 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
 
 /**
- * Base class for transformers which work via ClassNode
+ * Base class for transformers which work via ClassNode. Transformers which only access the class via readClass() and
+ * writeClass() can opt in to running inside a ClassTransformerPipeline by overriding isPipelineCompatible().
  * 
  * @author Adam Mummery-Smith
  */
@@ -18,11 +19,38 @@ public abstract class ClassTransformer implements IClassTransformer
 	private ClassReader classReader;
 	private ClassNode classNode;
 	
+	/**
+	 * Get whether this transformer can share a ClassNode with other transformers in a ClassTransformerPipeline. Transformers which
+	 * return true must only read the incoming class via readClass() and must return either the result of writeClass() or the
+	 * unmodified input.
+	 */
+	protected boolean isPipelineCompatible()
+	{
+		return false;
+	}
+	
 	/**
 	 * @param basicClass
 	 */
 	protected final ClassNode readClass(byte[] basicClass, boolean cacheReader)
 	{
+		return this.readClass(basicClass, cacheReader, false);
+	}
+	
+	/**
+	 * @param basicClass
+	 * @param cacheReader
+	 * @param requireFrames True if the transformer relies on the stack map frames being accurate, when running in a pipeline
+	 *     this causes the class to be written and re-read first if it was modified by a previous transformer
+	 */
+	protected final ClassNode readClass(byte[] basicClass, boolean cacheReader, boolean requireFrames)
+	{
+		ClassNode sharedNode = ClassTransformerPipeline.getSharedNode(basicClass, requireFrames);
+		if (sharedNode != null)
+		{
+			return sharedNode;
+		}
+		
 		ClassReader classReader = new ClassReader(basicClass);
 		if (cacheReader) this.classReader = classReader;
 		
@@ -36,6 +64,13 @@ public abstract class ClassTransformer implements IClassTransformer
 	 */
 	protected final byte[] writeClass(ClassNode classNode)
 	{
+		// Defer writing to the pipeline if this is the shared node
+		byte[] sharedBytes = ClassTransformerPipeline.markModified(classNode);
+		if (sharedBytes != null)
+		{
+			return sharedBytes;
+		}
+		
 		// Use optimised writer for speed
 		if (this.classReader != null && this.classNode == classNode)
 		{
@@ -0,0 +1,355 @@
+package com.mumfrey.liteloader.transformers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.minecraft.launchwrapper.IClassTransformer;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+
+import com.mumfrey.liteloader.transformers.event.EventInjectionTransformer;
+
+/**
+ * Transformer which runs a sequence of adjacent LiteLoader transformers against a single shared ClassNode. Without the pipeline
+ * each ClassTransformer parses the incoming bytes and computes frames when writing them back out, which means a class touched by
+ * several of our transformers is parsed and frame-computed once per transformer. Inside the pipeline, readClass() returns the
+ * shared ClassNode and writeClass() simply marks it as modified, the class is only written (and frames computed) once after all
+ * of the participating transformers have run. Transformers outside the pipeline still receive byte arrays as normal.
+ *
+ * Only transformers which opt in via ClassTransformer.isPipelineCompatible() take part, since a transformer which inspects the
+ * raw bytes rather than using readClass() would see a stale copy of the class.
+ *
+ * @author Adam Mummery-Smith
+ */
+public final class ClassTransformerPipeline implements IClassTransformer
+{
+	/**
+	 * State of the class currently being transformed by a pipeline on this thread
+	 */
+	static final class Context
+	{
+		/**
+		 * Enclosing context, transformers can cause other classes to be loaded (and thus transformed) on the same thread
+		 */
+		final Context parent;
+
+		/**
+		 * Class bytes which were last handed to a transformer, reads and writes of these bytes go via the shared node
+		 */
+		byte[] bytes;
+
+		/**
+		 * Shared node, parsed on demand from bytes
+		 */
+		ClassNode node;
+
+		/**
+		 * True if the node has been modified since bytes were produced
+		 */
+		boolean dirty;
+
+		/**
+		 * Flags for the transformer currently running
+		 */
+		boolean read, written;
+
+		/**
+		 * Copy of the dirty node taken before it was handed to the transformer currently running, so that changes made
+		 * by a transformer which doesn't write the node can be rolled back
+		 */
+		ClassNode snapshot;
+
+		Context(Context parent, byte[] bytes)
+		{
+			this.parent = parent;
+			this.bytes = bytes;
+		}
+
+		ClassNode getNode(boolean requireFrames)
+		{
+			if (requireFrames && this.dirty)
+			{
+				this.bytes = ClassTransformerPipeline.writeNode(this.node);
+				this.node = null;
+				this.dirty = false;
+			}
+
+			if (this.node == null)
+			{
+				this.node = new ClassNode();
+				new ClassReader(this.bytes).accept(this.node, ClassReader.EXPAND_FRAMES);
+			}
+			else if (this.dirty && this.snapshot == null)
+			{
+				// Changes made by earlier transformers only exist in the node, so keep a copy to roll back to
+				this.snapshot = new ClassNode();
+				this.node.accept(this.snapshot);
+			}
+
+			this.read = true;
+			return this.node;
+		}
+
+		/**
+		 * Discard any changes made to the node by a transformer which read it but didn't write it
+		 */
+		void rollback()
+		{
+			this.node = this.dirty ? this.snapshot : null;
+		}
+
+		void reset(byte[] bytes)
+		{
+			this.bytes = bytes;
+			this.node = null;
+			this.dirty = false;
+		}
+
+		byte[] getBytes()
+		{
+			if (this.dirty)
+			{
+				this.bytes = ClassTransformerPipeline.writeNode(this.node);
+				this.node = null;
+				this.dirty = false;
+			}
+
+			return this.bytes;
+		}
+	}
+
+	private static final ThreadLocal<Context> context = new ThreadLocal<Context>();
+
+	/**
+	 * Transformers in this pipeline, in the order they were registered
+	 */
+	private final List<IClassTransformer> transformers;
+
+	public ClassTransformerPipeline(List<IClassTransformer> transformers)
+	{
+		this.transformers = Collections.unmodifiableList(new ArrayList<IClassTransformer>(transformers));
+	}
+
+	/**
+	 * Get the transformers in this pipeline
+	 */
+	public List<IClassTransformer> getTransformers()
+	{
+		return this.transformers;
+	}
+
+	/* (non-Javadoc)
+	 * @see net.minecraft.launchwrapper.IClassTransformer#transform(java.lang.String, java.lang.String, byte[])
+	 */
+	@Override
+	public byte[] transform(String name, String transformedName, byte[] basicClass)
+	{
+		return this.transform(name, transformedName, basicClass, null);
+	}
+
+	/**
+	 * Run the pipeline, skipping the specified transformer
+	 *
+	 * @param name
+	 * @param transformedName
+	 * @param basicClass
+	 * @param skip Transformer to skip, used when a transformer applies the transformer chain to another class
+	 */
+	public byte[] transform(String name, String transformedName, byte[] basicClass, IClassTransformer skip)
+	{
+		if (basicClass == null)
+		{
+			for (IClassTransformer transformer : this.transformers)
+			{
+				if (transformer != skip) basicClass = transformer.transform(name, transformedName, basicClass);
+			}
+
+			return basicClass;
+		}
+
+		Context ctx = new Context(ClassTransformerPipeline.context.get(), basicClass);
+		ClassTransformerPipeline.context.set(ctx);
+
+		try
+		{
+			for (IClassTransformer transformer : this.transformers)
+			{
+				if (transformer == skip) continue;
+
+				byte[] input = ctx.bytes;
+				ctx.read = ctx.written = false;
+				ctx.snapshot = null;
+
+				byte[] output = transformer.transform(name, transformedName, input);
+
+				if (output != ctx.bytes && output != input)
+				{
+					// Transformer produced bytes of its own, these supersede the shared node
+					ctx.reset(output);
+				}
+				else if (ctx.read && !ctx.written)
+				{
+					// Transformer read the node but didn't write it, discard any changes it made
+					ctx.rollback();
+				}
+			}
+
+			ctx.snapshot = null;
+
+			return ctx.getBytes();
+		}
+		finally
+		{
+			ClassTransformerPipeline.context.set(ctx.parent);
+		}
+	}
+
+	/**
+	 * Get the shared node for the specified bytes if they are the bytes currently being transformed by a pipeline on this thread,
+	 * returns null otherwise
+	 *
+	 * @param basicClass
+	 * @param requireFrames True if the stack map frames in the node must reflect changes made by previous transformers
+	 */
+	static ClassNode getSharedNode(byte[] basicClass, boolean requireFrames)
+	{
+		Context ctx = ClassTransformerPipeline.context.get();
+		if (ctx == null || basicClass == null || ctx.bytes != basicClass)
+		{
+			return null;
+		}
+
+		return ctx.getNode(requireFrames);
+	}
+
+	/**
+	 * If the specified node is the shared node of the pipeline running on this thread, mark it as modified and return the bytes to
+	 * hand back to the pipeline, returns null otherwise
+	 *
+	 * @param classNode
+	 */
+	static byte[] markModified(ClassNode classNode)
+	{
+		Context ctx = ClassTransformerPipeline.context.get();
+		if (ctx == null || ctx.node == null || ctx.node != classNode)
+		{
+			return null;
+		}
+
+		ctx.dirty = true;
+		ctx.written = true;
+		return ctx.bytes;
+	}
+
+	/**
+	 * @param classNode
+	 */
+	static byte[] writeNode(ClassNode classNode)
+	{
+		IsolatedClassWriter writer = new IsolatedClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+		classNode.accept(writer);
+		return writer.toByteArray();
+	}
+
+	/**
+	 * Get whether the specified transformer can run inside a pipeline
+	 *
+	 * @param transformer
+	 */
+	public static boolean canParticipate(IClassTransformer transformer)
+	{
+		if (transformer instanceof ClassTransformer)
+		{
+			return ((ClassTransformer)transformer).isPipelineCompatible();
+		}
+
+		if (transformer instanceof EventInjectionTransformer)
+		{
+			// Event injection transformers just register events, unless a subclass has overridden transform()
+			return ClassTransformerPipeline.inheritsTransform(transformer, EventInjectionTransformer.class);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Get whether the specified transformer uses the transform() method declared by the specified base class, used by base classes
+	 * which are pipeline compatible to check that a subclass has not replaced the transform logic
+	 *
+	 * @param transformer
+	 * @param baseClass
+	 */
+	public static boolean inheritsTransform(IClassTransformer transformer, Class<? extends IClassTransformer> baseClass)
+	{
+		try
+		{
+			return transformer.getClass().getMethod("transform", String.class, String.class, byte[].class).getDeclaringClass() == baseClass;
+		}
+		catch (NoSuchMethodException ex)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Replace runs of adjacent transformers which can participate in a pipeline with a single pipeline
+	 *
+	 * @param transformers
+	 * @return the new transformer list
+	 */
+	public static List<IClassTransformer> buildPipelines(List<IClassTransformer> transformers)
+	{
+		List<IClassTransformer> result = new ArrayList<IClassTransformer>();
+		List<IClassTransformer> run = new ArrayList<IClassTransformer>();
+
+		for (IClassTransformer transformer : transformers)
+		{
+			if (ClassTransformerPipeline.canParticipate(transformer))
+			{
+				run.add(transformer);
+				continue;
+			}
+
+			ClassTransformerPipeline.flushRun(run, result);
+			result.add(transformer);
+		}
+
+		ClassTransformerPipeline.flushRun(run, result);
+		return result;
+	}
+
+	/**
+	 * @param run
+	 * @param result
+	 */
+	private static void flushRun(List<IClassTransformer> run, List<IClassTransformer> result)
+	{
+		if (run.size() > 1)
+		{
+			result.add(new ClassTransformerPipeline(run));
+		}
+		else
+		{
+			result.addAll(run);
+		}
+
+		run.clear();
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder("ClassTransformerPipeline[");
+		String separator = "";
+		for (IClassTransformer transformer : this.transformers)
+		{
+			sb.append(separator).append(transformer.getClass().getName());
+			separator = ", ";
+		}
+
+		return sb.append(']').toString();
+	}
+}
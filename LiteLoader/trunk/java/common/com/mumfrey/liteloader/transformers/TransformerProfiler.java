@@ -0,0 +1,376 @@
+package com.mumfrey.liteloader.transformers;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.minecraft.launchwrapper.IClassTransformer;
+
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
+
+/**
+ * Collects timing and size metrics for class transformers. Each transformer is wrapped in a Proxy which records the number of
+ * invocations, the time spent, the bytes passed in and out and the number of classes actually modified, the time spent on each
+ * class by all transformers is also recorded so that the slowest classes can be reported.
+ *
+ * @author Adam Mummery-Smith
+ */
+public final class TransformerProfiler
+{
+	/**
+	 * Number of classes to include when logging the slowest classes
+	 */
+	private static final int SLOWEST_CLASSES_LOGGED = 20;
+
+	/**
+	 * Number of classes to include when writing the slowest classes to the report
+	 */
+	private static final int SLOWEST_CLASSES_REPORTED = 200;
+
+	/**
+	 * Timing proxy for a single transformer
+	 */
+	public static final class Proxy implements IClassTransformer
+	{
+		private final TransformerProfiler profiler;
+
+		private final IClassTransformer transformer;
+
+		private final String name;
+
+		private int invocations, modified;
+
+		private long totalTime, maxTime, bytesIn, bytesOut;
+
+		Proxy(TransformerProfiler profiler, IClassTransformer transformer)
+		{
+			this.profiler = profiler;
+			this.transformer = transformer;
+			this.name = transformer instanceof ClassTransformerPipeline ? transformer.toString() : transformer.getClass().getName();
+		}
+
+		/* (non-Javadoc)
+		 * @see net.minecraft.launchwrapper.IClassTransformer#transform(java.lang.String, java.lang.String, byte[])
+		 */
+		@Override
+		public byte[] transform(String name, String transformedName, byte[] basicClass)
+		{
+			long startTime = System.nanoTime();
+			byte[] transformedClass = basicClass;
+
+			try
+			{
+				transformedClass = this.transformer.transform(name, transformedName, basicClass);
+				return transformedClass;
+			}
+			finally
+			{
+				long elapsed = System.nanoTime() - startTime;
+				this.record(basicClass, transformedClass, elapsed);
+				this.profiler.recordClass(transformedName, this.name, elapsed);
+			}
+		}
+
+		private synchronized void record(byte[] basicClass, byte[] transformedClass, long elapsed)
+		{
+			this.invocations++;
+			this.totalTime += elapsed;
+			if (elapsed > this.maxTime) this.maxTime = elapsed;
+			if (basicClass != null) this.bytesIn += basicClass.length;
+			if (transformedClass != null) this.bytesOut += transformedClass.length;
+			if (transformedClass != basicClass) this.modified++;
+		}
+
+		/**
+		 * Get the wrapped transformer
+		 */
+		public IClassTransformer getTransformer()
+		{
+			return this.transformer;
+		}
+
+		public String getName()
+		{
+			return this.name;
+		}
+
+		public synchronized int getInvocations()
+		{
+			return this.invocations;
+		}
+
+		/**
+		 * Get the number of classes which this transformer returned different bytes for
+		 */
+		public synchronized int getModifiedCount()
+		{
+			return this.modified;
+		}
+
+		/**
+		 * Get the total time spent in this transformer, in nanoseconds
+		 */
+		public synchronized long getTotalTime()
+		{
+			return this.totalTime;
+		}
+
+		/**
+		 * Get the longest time spent transforming a single class, in nanoseconds
+		 */
+		public synchronized long getMaxTime()
+		{
+			return this.maxTime;
+		}
+
+		public synchronized long getBytesIn()
+		{
+			return this.bytesIn;
+		}
+
+		public synchronized long getBytesOut()
+		{
+			return this.bytesOut;
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.name;
+		}
+	}
+
+	/**
+	 * Time spent by all transformers on a single class
+	 */
+	public static final class ClassTiming
+	{
+		private final String className;
+
+		private long totalTime;
+
+		private String slowestTransformer;
+
+		private long slowestTransformerTime;
+
+		ClassTiming(String className)
+		{
+			this.className = className;
+		}
+
+		void add(String transformer, long elapsed)
+		{
+			this.totalTime += elapsed;
+			if (elapsed > this.slowestTransformerTime)
+			{
+				this.slowestTransformer = transformer;
+				this.slowestTransformerTime = elapsed;
+			}
+		}
+
+		public String getClassName()
+		{
+			return this.className;
+		}
+
+		/**
+		 * Get the total time spent transforming this class, in nanoseconds
+		 */
+		public long getTotalTime()
+		{
+			return this.totalTime;
+		}
+
+		/**
+		 * Get the transformer which spent the most time on this class
+		 */
+		public String getSlowestTransformer()
+		{
+			return this.slowestTransformer;
+		}
+
+		/**
+		 * Get the time spent by the slowest transformer on this class, in nanoseconds
+		 */
+		public long getSlowestTransformerTime()
+		{
+			return this.slowestTransformerTime;
+		}
+	}
+
+	/**
+	 * Proxies created by this profiler, in transformer order
+	 */
+	private final List<Proxy> proxies = new ArrayList<Proxy>();
+
+	/**
+	 * Per-class timings
+	 */
+	private final Map<String, ClassTiming> classTimings = new HashMap<String, ClassTiming>();
+
+	/**
+	 * Wrap the specified transformer in a timing proxy, transformers which are already wrapped are returned unchanged
+	 *
+	 * @param transformer
+	 */
+	public synchronized IClassTransformer wrap(IClassTransformer transformer)
+	{
+		if (transformer instanceof Proxy)
+		{
+			return transformer;
+		}
+
+		Proxy proxy = new Proxy(this, transformer);
+		this.proxies.add(proxy);
+		return proxy;
+	}
+
+	/**
+	 * If the specified transformer is a timing proxy return the transformer it wraps, otherwise return the transformer
+	 *
+	 * @param transformer
+	 */
+	public static IClassTransformer unwrap(IClassTransformer transformer)
+	{
+		return transformer instanceof Proxy ? ((Proxy)transformer).getTransformer() : transformer;
+	}
+
+	/**
+	 * @param className
+	 * @param transformer
+	 * @param elapsed
+	 */
+	synchronized void recordClass(String className, String transformer, long elapsed)
+	{
+		if (className == null) return;
+
+		ClassTiming timing = this.classTimings.get(className);
+		if (timing == null)
+		{
+			timing = new ClassTiming(className);
+			this.classTimings.put(className, timing);
+		}
+
+		timing.add(transformer, elapsed);
+	}
+
+	/**
+	 * Get the transformer proxies, slowest first
+	 */
+	public synchronized List<Proxy> getTransformerTimings()
+	{
+		List<Proxy> timings = new ArrayList<Proxy>(this.proxies);
+		Collections.sort(timings, new Comparator<Proxy>()
+		{
+			@Override
+			public int compare(Proxy a, Proxy b)
+			{
+				long aTime = a.getTotalTime(), bTime = b.getTotalTime();
+				return aTime < bTime ? 1 : aTime > bTime ? -1 : 0;
+			}
+		});
+
+		return timings;
+	}
+
+	/**
+	 * Get the classes which took the longest to transform, slowest first
+	 *
+	 * @param count Maximum number of classes to return
+	 */
+	public synchronized List<ClassTiming> getSlowestClasses(int count)
+	{
+		List<ClassTiming> timings = new ArrayList<ClassTiming>(this.classTimings.values());
+		Collections.sort(timings, new Comparator<ClassTiming>()
+		{
+			@Override
+			public int compare(ClassTiming a, ClassTiming b)
+			{
+				return a.totalTime < b.totalTime ? 1 : a.totalTime > b.totalTime ? -1 : 0;
+			}
+		});
+
+		return timings.size() > count ? new ArrayList<ClassTiming>(timings.subList(0, count)) : timings;
+	}
+
+	/**
+	 * Log the transformer timings and the slowest classes
+	 */
+	public void dump()
+	{
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		LiteLoaderLogger.info("Class transformer timings");
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		for (Proxy proxy : this.getTransformerTimings())
+		{
+			LiteLoaderLogger.info("%10.2fms (max %8.2fms) %6d calls %6d modified  %s", proxy.getTotalTime() / 1000000.0,
+					proxy.getMaxTime() / 1000000.0, proxy.getInvocations(), proxy.getModifiedCount(), proxy.getName());
+		}
+
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		LiteLoaderLogger.info("Slowest classes");
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		for (ClassTiming timing : this.getSlowestClasses(TransformerProfiler.SLOWEST_CLASSES_LOGGED))
+		{
+			LiteLoaderLogger.info("%10.2fms  %s (slowest: %s %.2fms)", timing.getTotalTime() / 1000000.0, timing.getClassName(),
+					timing.getSlowestTransformer(), timing.getSlowestTransformerTime() / 1000000.0);
+		}
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+	}
+
+	/**
+	 * Write the transformer timings followed by the slowest classes to the specified file as CSV
+	 *
+	 * @param file
+	 */
+	public void writeReport(File file)
+	{
+		PrintWriter writer = null;
+
+		try
+		{
+			writer = new PrintWriter(new FileWriter(file));
+			writer.println("transformer,invocations,modified,total_ms,max_ms,bytes_in,bytes_out");
+			for (Proxy proxy : this.getTransformerTimings())
+			{
+				writer.printf("%s,%d,%d,%.3f,%.3f,%d,%d%n", TransformerProfiler.csv(proxy.getName()), proxy.getInvocations(),
+						proxy.getModifiedCount(), proxy.getTotalTime() / 1000000.0, proxy.getMaxTime() / 1000000.0, proxy.getBytesIn(),
+						proxy.getBytesOut());
+			}
+
+			writer.println();
+			writer.println("class,total_ms,slowest_transformer,slowest_transformer_ms");
+			for (ClassTiming timing : this.getSlowestClasses(TransformerProfiler.SLOWEST_CLASSES_REPORTED))
+			{
+				writer.printf("%s,%.3f,%s,%.3f%n", TransformerProfiler.csv(timing.getClassName()), timing.getTotalTime() / 1000000.0,
+						TransformerProfiler.csv(timing.getSlowestTransformer()), timing.getSlowestTransformerTime() / 1000000.0);
+			}
+		}
+		catch (IOException ex)
+		{
+			LiteLoaderLogger.warning(ex, "Could not write transformer profile to %s", file.getName());
+		}
+		finally
+		{
+			if (writer != null) writer.close();
+		}
+	}
+
+	/**
+	 * Quote a CSV value if necessary
+	 *
+	 * @param value
+	 */
+	private static String csv(String value)
+	{
+		if (value == null) return "";
+		return value.indexOf(',') > -1 || value.indexOf('"') > -1 ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+	}
+}
@@ -25,6 +25,7 @@ import org.objectweb.asm.tree.VarInsnNode;
 import com.mumfrey.liteloader.core.runtime.Obf;
 import com.mumfrey.liteloader.transformers.ByteCodeUtilities;
 import com.mumfrey.liteloader.transformers.ClassTransformer;
+import com.mumfrey.liteloader.transformers.ClassTransformerPipeline;
 import com.mumfrey.liteloader.transformers.ObfProvider;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
 
@@ -523,6 +524,15 @@ public abstract class AccessorTransformer extends ClassTransformer
 		return basicClass;
 	}
 
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.ClassTransformer#isPipelineCompatible()
+	 */
+	@Override
+	protected boolean isPipelineCompatible()
+	{
+		return ClassTransformerPipeline.inheritsTransform(this, AccessorTransformer.class);
+	}
+
 	/**
 	 * Apply this transformer, used when this transformer is acting as a delegate via another transformer
 	 * (eg. an EventTransformer) and the parent transformer already has a ClassNode for the target class.
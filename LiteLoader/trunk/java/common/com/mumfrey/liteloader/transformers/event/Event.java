@@ -14,6 +14,7 @@ import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
 
+import com.mumfrey.liteloader.core.event.InterfaceGuards;
 import com.mumfrey.liteloader.core.runtime.Obf;
 import com.mumfrey.liteloader.transformers.ByteCodeUtilities;
 import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
@@ -63,6 +64,11 @@ public class Event implements Comparable<Event>
 	
 	private Set<MethodInfo> listeners = new HashSet<MethodInfo>();
 	
+	/**
+	 * Listener interfaces which guard this event, see setGuard()
+	 */
+	private String[] guardInterfaces;
+	
 	/**
 	 * Method this event is currently "attached" to, we "attach" at the beginning of a method injection in order to save
 	 * recalculating things like the return type and descriptor for each invokation, this means we need to calculate these
@@ -211,6 +217,21 @@ public class Event implements Comparable<Event>
 	{
 		return this.verbose;
 	}
+	
+	/**
+	 * Guard this event with the specified listener interfaces, the injected event is skipped unless at least one of
+	 * the interfaces has a registered listener (see InterfaceGuards). The guard is only injected if the event has a
+	 * single listener and is the only event at its injection point, since nothing else can be assumed to depend on the
+	 * same interfaces.
+	 * 
+	 * @param listenerInterfaces Fully qualified names of the listener interfaces
+	 * @return fluent interface
+	 */
+	public Event setGuard(String... listenerInterfaces)
+	{
+		this.guardInterfaces = listenerInterfaces != null && listenerInterfaces.length > 0 ? listenerInterfaces.clone() : null;
+		return this;
+	}
 
 	/**
 	 * Get whether this event is currently attached to a method
@@ -240,7 +261,9 @@ public class Event implements Comparable<Event>
 		this.methodMAXS       = method.maxStack;
 		this.methodIsStatic   = (method.access & Opcodes.ACC_STATIC) == Opcodes.ACC_STATIC;
 		this.eventInfoClass   = this.getEventInfoClassName();
-		this.eventDescriptor  = String.format("(L%s;%s)V", this.eventInfoClass, method.desc.substring(1, method.desc.indexOf(')')));
+		
+		String args = method.desc.substring(1, method.desc.indexOf(')'));
+		this.eventDescriptor  = this.hasEventInfo() ? String.format("(L%s;%s)V", this.eventInfoClass, args) : String.format("(%s)V", args);
 	}
 	
 	/**
@@ -314,6 +337,11 @@ public class Event implements Comparable<Event>
 		{
 			throw new IllegalStateException("Attempted to inject the event " + this.name + " but the event is not attached!");
 		}
+		
+		if (cancellable && !this.hasEventInfo())
+		{
+			throw new IllegalStateException("Attempted to inject the event " + this.name + " as cancellable but the event does not use an EventInfo!");
+		}
 	}
 
 	/**
@@ -323,11 +351,12 @@ public class Event implements Comparable<Event>
 	 *  
 	 * @param injectionPoint Point to inject code, new instructions will be injected directly ahead of the specifed insn
 	 * @param cancellable Cancellable flag, if true then the cancellation code (conditional return) will be injected as well
+	 * @param allowGuard True if the guard for this event (if any) may be injected, false if other events share the injection point
 	 * @param globalEventID Global event ID, used to map a callback to the relevant event handler delegate method in EventProxy
 	 * 
 	 * @return MethodNode for the event handler delegate
 	 */
-	final MethodNode inject(final AbstractInsnNode injectionPoint, boolean cancellable, final int globalEventID, final boolean captureLocals, final Type[] locals)
+	final MethodNode inject(final AbstractInsnNode injectionPoint, boolean cancellable, boolean allowGuard, final int globalEventID, final boolean captureLocals, final Type[] locals)
 	{
 		// Pre-flight checks
 		this.validate(injectionPoint, cancellable, globalEventID);
@@ -349,26 +378,33 @@ public class Event implements Comparable<Event>
 		
 		InsnList insns = new InsnList();
 		
-		boolean pushReturnValue = false;
+		// Allow subclasses to skip the event entirely (and avoid allocating the EventInfo) when nobody is listening
+		LabelNode skipEvent = new LabelNode();
+		boolean guarded = allowGuard && this.injectGuard(insns, skipEvent);
 		
-		// If this is a ReturnEventInfo AND we are right before a RETURN opcode (so we can expect the *original* return
-		// value to be on the stack, then we dup the return value into a local var so we can push it later when we invoke 
-		// the ReturnEventInfo ctor
-		if (injectionPoint instanceof InsnNode && injectionPoint.getOpcode() >= Opcodes.IRETURN && injectionPoint.getOpcode() < Opcodes.RETURN)
+		if (this.hasEventInfo())
 		{
-			pushReturnValue = true;
-			insns.add(new InsnNode(Opcodes.DUP));
-			insns.add(new VarInsnNode(this.methodReturnType.getOpcode(Opcodes.ISTORE), marshallVar));
+			boolean pushReturnValue = false;
+			
+			// If this is a ReturnEventInfo AND we are right before a RETURN opcode (so we can expect the *original* return
+			// value to be on the stack, then we dup the return value into a local var so we can push it later when we invoke 
+			// the ReturnEventInfo ctor
+			if (injectionPoint instanceof InsnNode && injectionPoint.getOpcode() >= Opcodes.IRETURN && injectionPoint.getOpcode() < Opcodes.RETURN)
+			{
+				pushReturnValue = true;
+				insns.add(new InsnNode(Opcodes.DUP));
+				insns.add(new VarInsnNode(this.methodReturnType.getOpcode(Opcodes.ISTORE), marshallVar));
+			}
+			
+			// Instance the EventInfo for this event
+			insns.add(new TypeInsnNode(Opcodes.NEW, this.eventInfoClass)); ctorMAXS++;
+			insns.add(new InsnNode(Opcodes.DUP)); ctorMAXS++; invokeMAXS++;
+			ctorMAXS += this.invokeEventInfoConstructor(insns, cancellable, pushReturnValue, marshallVar);
+			insns.add(new VarInsnNode(Opcodes.ASTORE, marshallVar));
+			insns.add(new VarInsnNode(Opcodes.ALOAD, marshallVar));
 		}
 		
-		// Instance the EventInfo for this event
-		insns.add(new TypeInsnNode(Opcodes.NEW, this.eventInfoClass)); ctorMAXS++;
-		insns.add(new InsnNode(Opcodes.DUP)); ctorMAXS++; invokeMAXS++;
-		ctorMAXS += this.invokeEventInfoConstructor(insns, cancellable, pushReturnValue, marshallVar);
-		insns.add(new VarInsnNode(Opcodes.ASTORE, marshallVar));
-		
 		// Call the event handler method in the proxy
-		insns.add(new VarInsnNode(Opcodes.ALOAD, marshallVar));
 		ByteCodeUtilities.loadArgs(arguments, insns, this.methodIsStatic ? 0 : 1);
 		if (doCaptureLocals)
 		{
@@ -382,6 +418,11 @@ public class Event implements Comparable<Event>
 			this.injectCancellationCode(insns, injectionPoint, marshallVar);
 		}
 		
+		if (guarded)
+		{
+			insns.add(skipEvent);
+		}
+		
 		// Inject our generated code into the method
 		this.method.instructions.insertBefore(injectionPoint, insns);
 		this.method.maxStack = Math.max(this.method.maxStack, Math.max(this.methodMAXS + ctorMAXS, this.methodMAXS + invokeMAXS));
@@ -402,6 +443,53 @@ public class Event implements Comparable<Event>
 		return eventDescriptor + ")V";
 	}
 
+	/**
+	 * Inject a guard condition ahead of the event code, the guard should jump to skipEvent if the event should not
+	 * be fired. The guard must leave the stack as it found it. The default implementation injects the interface guard
+	 * set by setGuard(), if any.
+	 * 
+	 * @param insns
+	 * @param skipEvent Label to jump to in order to skip the event
+	 * @return true if a guard was injected
+	 */
+	protected boolean injectGuard(InsnList insns, LabelNode skipEvent)
+	{
+		if (this.guardInterfaces == null || this.listeners.size() != 1)
+		{
+			return false;
+		}
+		
+		int[] slots = new int[this.guardInterfaces.length];
+		for (int i = 0; i < slots.length; i++)
+		{
+			slots[i] = InterfaceGuards.getSlot(this.guardInterfaces[i]);
+			if (slots[i] < 0) return false;
+		}
+		
+		// if (!InterfaceGuards.active[slot0] && !InterfaceGuards.active[slot1] ...) skip the event
+		LabelNode runEvent = new LabelNode();
+		for (int i = 0; i < slots.length; i++)
+		{
+			insns.add(new FieldInsnNode(Opcodes.GETSTATIC, Type.getInternalName(InterfaceGuards.class), "active", "[Z"));
+			insns.add(new IntInsnNode(Opcodes.SIPUSH, slots[i]));
+			insns.add(new InsnNode(Opcodes.BALOAD));
+			insns.add(new JumpInsnNode(i < slots.length - 1 ? Opcodes.IFNE : Opcodes.IFEQ, i < slots.length - 1 ? runEvent : skipEvent));
+		}
+		insns.add(runEvent);
+		
+		return true;
+	}
+	
+	/**
+	 * Get whether the handlers for this event receive an EventInfo. Events which return false are "direct" events, their
+	 * handlers receive only the method arguments (and captured locals) so no EventInfo is allocated when the event fires.
+	 * Direct events cannot be cancellable and cannot share an injection point with events which do use an EventInfo.
+	 */
+	protected boolean hasEventInfo()
+	{
+		return true;
+	}
+
 	protected int invokeEventInfoConstructor(InsnList insns, boolean cancellable, boolean pushReturnValue, int marshallVar)
 	{
 		int ctorMAXS = 0;
@@ -527,7 +615,7 @@ public class Event implements Comparable<Event>
 	 * 
 	 * @param eventName
 	 */
-	static Event getEvent(String eventName)
+	protected static Event getEvent(String eventName)
 	{
 		for (Event event : Event.events)
 			if (event.name.equalsIgnoreCase(eventName))
@@ -562,6 +650,9 @@ public class Event implements Comparable<Event>
 			// Args is used to inject appropriate LOAD opcodes to put the method arguments on the stack for each handler invokation
 			Type[] args = Type.getArgumentTypes(handlerMethod.desc);
 			
+			// When profiling, the start time of each listener invokation is stored in the first local after the args
+			int startTimeVar = ByteCodeUtilities.getArgsSize(args);
+			
 			// Add our generated method to the the class
 			classNode.methods.add(handlerMethod);
 			handlerCount++;
@@ -591,20 +682,36 @@ public class Event implements Comparable<Event>
 						insns.add(lineNumberLabel);
 						insns.add(new LineNumberNode(++lineNumber, lineNumberLabel));
 						
+						if (EventProfiler.ENABLED)
+						{
+							insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false));
+							insns.add(new VarInsnNode(Opcodes.LSTORE, startTimeVar));
+						}
+						
 						ByteCodeUtilities.loadArgs(args, insns, 0);
 						insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, listener.ownerRef, listener.getOrInflectName(event.name), handlerMethod.desc, false));
+						
+						if (EventProfiler.ENABLED)
+						{
+							// EventProfiler.record(listenerId, System.nanoTime() - startTime);
+							insns.add(new LdcInsnNode(Integer.valueOf(EventProfiler.register(event, listener))));
+							insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false));
+							insns.add(new VarInsnNode(Opcodes.LLOAD, startTimeVar));
+							insns.add(new InsnNode(Opcodes.LSUB));
+							insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Type.getInternalName(EventProfiler.class), "record", "(IJ)V", false));
+						}
 					}
 					
 					insns.add(tryCatchEnd); // }
 					insns.add(new JumpInsnNode(Opcodes.GOTO, tryCatchExit));
 					
 					insns.add(tryCatchHandler1); // catch (NoSuchMethodError err) {
-					insns.add(new VarInsnNode(Opcodes.ALOAD, 0));
+					event.loadErrorEventInfo(insns);
 					insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Obf.EventProxy.ref, "onMissingHandler", "(Ljava/lang/Error;Lcom/mumfrey/liteloader/transformers/event/EventInfo;)V", false));
 					insns.add(new JumpInsnNode(Opcodes.GOTO, tryCatchExit));
 					
 					insns.add(tryCatchHandler2); // } catch (NoClassDefFoundError err) {
-					insns.add(new VarInsnNode(Opcodes.ALOAD, 0));
+					event.loadErrorEventInfo(insns);
 					insns.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Obf.EventProxy.ref, "onMissingClass", "(Ljava/lang/Error;Lcom/mumfrey/liteloader/transformers/event/EventInfo;)V", false));
 					insns.add(new JumpInsnNode(Opcodes.GOTO, tryCatchExit));
 					
@@ -620,6 +727,89 @@ public class Event implements Comparable<Event>
 		return classNode;
 	}
 
+	/**
+	 * Push the EventInfo to pass to the missing handler callbacks in the proxy. Direct events have no EventInfo in the
+	 * handler so one is created, this only happens once the handler has already failed.
+	 * 
+	 * @param insns
+	 */
+	private void loadErrorEventInfo(InsnList insns)
+	{
+		if (this.hasEventInfo())
+		{
+			insns.add(new VarInsnNode(Opcodes.ALOAD, 0));
+			return;
+		}
+		
+		String eventInfoClass = EventInfo.class.getName().replace('.', '/');
+		insns.add(new TypeInsnNode(Opcodes.NEW, eventInfoClass));
+		insns.add(new InsnNode(Opcodes.DUP));
+		insns.add(new LdcInsnNode(this.name));
+		insns.add(new InsnNode(Opcodes.ACONST_NULL));
+		insns.add(new InsnNode(Opcodes.ICONST_0));
+		insns.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, eventInfoClass, Obf.constructor.name, EventInfo.getConstructorDescriptor(), false));
+	}
+
+	/**
+	 * Get a string which describes all of the handlers and listeners which will be generated into the next proxy
+	 * class by populateProxy(), used as the key when caching the generated proxy.
+	 */
+	static String getProxyDescriptor()
+	{
+		StringBuilder descriptor = new StringBuilder();
+		Map<MethodNode, List<Event>> handlerMethods = Event.proxyHandlerMethods.get(Event.proxyInnerClassIndex);
+		
+		for (Entry<MethodNode, List<Event>> handler : handlerMethods.entrySet())
+		{
+			descriptor.append(handler.getKey().name).append(handler.getKey().desc).append('{');
+			for (Event event : handler.getValue())
+			{
+				descriptor.append(event.name).append('[');
+				for (MethodInfo listener : event.listeners)
+				{
+					descriptor.append(listener.ownerRef).append('.').append(listener.getOrInflectName(event.name)).append(';');
+				}
+				descriptor.append(']');
+			}
+			descriptor.append('}');
+		}
+		
+		if (EventProfiler.ENABLED)
+		{
+			// Listener IDs are baked into profiled proxies, so the first ID must match for a cached proxy to be valid
+			descriptor.append("@profiled:").append(EventProfiler.getListenerCount());
+		}
+		
+		return descriptor.toString();
+	}
+	
+	/**
+	 * Called instead of populateProxy() when the proxy class was retrieved from the class cache 
+	 * 
+	 * @param proxyName
+	 */
+	static void onProxyLoadedFromCache(String proxyName)
+	{
+		LiteLoaderLogger.info("Loaded Event Handler Proxy Class %s from the class cache", proxyName);
+		
+		if (EventProfiler.ENABLED)
+		{
+			// Register the listeners in the same order as populateProxy() so that the IDs match the ones in the cached proxy
+			for (List<Event> handlerEvents : Event.proxyHandlerMethods.get(Event.proxyInnerClassIndex).values())
+			{
+				for (Event event : handlerEvents)
+				{
+					for (MethodInfo listener : event.listeners)
+					{
+						EventProfiler.register(event, listener);
+					}
+				}
+			}
+		}
+		
+		Event.proxyInnerClassIndex++;
+	}
+
 	private static List<Event> addMethodToActiveProxy(MethodNode handlerMethod)
 	{
 		while (Event.proxyHandlerMethods.size() < Event.proxyInnerClassIndex + 1)
@@ -65,12 +65,12 @@ public abstract class EventInjectionTransformer implements IClassTransformer
 		
 		if ("true".equals(System.getProperty("mcpenv")))
 		{
-			EventTransformer.addEvent(event, targetMethod.owner, targetMethod.sig, injectionPoint);
+			EventTransformer.addEvent(event, targetMethod.owner, targetMethod.name, targetMethod.desc, injectionPoint);
 		}
 		else
 		{
-			EventTransformer.addEvent(event, targetMethod.owner, targetMethod.sigSrg, injectionPoint);
-			EventTransformer.addEvent(event, targetMethod.ownerObf, targetMethod.sigObf, injectionPoint);
+			EventTransformer.addEvent(event, targetMethod.owner, targetMethod.nameSrg, targetMethod.desc, injectionPoint);
+			EventTransformer.addEvent(event, targetMethod.ownerObf, targetMethod.nameObf, targetMethod.descObf, injectionPoint);
 		}
 		
 		event.addPendingInjection(targetMethod);
@@ -0,0 +1,383 @@
+package com.mumfrey.liteloader.transformers.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.core.helpers.Booleans;
+
+import com.mumfrey.liteloader.transformers.ClassTransformer;
+import com.mumfrey.liteloader.util.log.LiteLoaderLogger;
+
+/**
+ * Records the time spent in each event listener. When profiling is enabled (via the liteloader.debug.profileevents
+ * property) the generated event proxy wraps each listener invokation with calls to System.nanoTime() and passes the
+ * elapsed time to {@code record}. Each listener is assigned an ID when the proxy is generated, the ID is baked into the
+ * proxy so recording is just an array lookup and a few atomic updates.
+ *
+ * Timings are kept in log-linear histograms (in the same style as HdrHistogram) so that percentiles can be reported
+ * to within a few percent without storing individual samples.
+ *
+ * @author Adam Mummery-Smith
+ */
+public final class EventProfiler
+{
+	public static final boolean ENABLED = Booleans.parseBoolean(System.getProperty("liteloader.debug.profileevents"), false);
+
+	/**
+	 * Number of listeners to include when logging
+	 */
+	private static final int TOP_LISTENERS_LOGGED = 20;
+
+	/**
+	 * Timing histogram for a single listener of a single event
+	 */
+	public static final class ListenerStats
+	{
+		/**
+		 * Each power of two is divided into 2^SUB_BUCKET_BITS linear buckets, which gives a precision of about 3%
+		 */
+		private static final int SUB_BUCKET_BITS = 5;
+
+		private static final int SUB_BUCKET_COUNT = 1 << ListenerStats.SUB_BUCKET_BITS;
+
+		/**
+		 * Values at or above 2^MAX_MAGNITUDE ns (about 68 seconds) are recorded in the last bucket
+		 */
+		private static final int MAX_MAGNITUDE = 36;
+
+		private static final long MAX_VALUE = (1L << ListenerStats.MAX_MAGNITUDE) - 1;
+
+		private static final int BUCKET_COUNT = ListenerStats.SUB_BUCKET_COUNT * (ListenerStats.MAX_MAGNITUDE - ListenerStats.SUB_BUCKET_BITS + 1);
+
+		private final String eventName;
+
+		private final String listenerName;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(ListenerStats.BUCKET_COUNT);
+
+		private final AtomicLong count = new AtomicLong();
+
+		private final AtomicLong totalTime = new AtomicLong();
+
+		private final AtomicLong maxTime = new AtomicLong();
+
+		ListenerStats(String eventName, String listenerName)
+		{
+			this.eventName = eventName;
+			this.listenerName = listenerName;
+		}
+
+		void record(long elapsed)
+		{
+			if (elapsed < 0) elapsed = 0;
+
+			this.buckets.incrementAndGet(ListenerStats.getBucket(elapsed));
+			this.count.incrementAndGet();
+			this.totalTime.addAndGet(elapsed);
+
+			long max = this.maxTime.get();
+			while (elapsed > max && !this.maxTime.compareAndSet(max, elapsed))
+			{
+				max = this.maxTime.get();
+			}
+		}
+
+		void reset()
+		{
+			for (int bucket = 0; bucket < ListenerStats.BUCKET_COUNT; bucket++)
+			{
+				this.buckets.set(bucket, 0);
+			}
+
+			this.count.set(0);
+			this.totalTime.set(0);
+			this.maxTime.set(0);
+		}
+
+		public String getEventName()
+		{
+			return this.eventName;
+		}
+
+		/**
+		 * Get the listener method, in the form class.method
+		 */
+		public String getListenerName()
+		{
+			return this.listenerName;
+		}
+
+		public long getCount()
+		{
+			return this.count.get();
+		}
+
+		/**
+		 * Get the total time spent in this listener, in nanoseconds
+		 */
+		public long getTotalTime()
+		{
+			return this.totalTime.get();
+		}
+
+		/**
+		 * Get the longest single invokation of this listener, in nanoseconds
+		 */
+		public long getMaxTime()
+		{
+			return this.maxTime.get();
+		}
+
+		/**
+		 * Get the specified percentile of the recorded times, in nanoseconds. The value returned is the upper bound of
+		 * the bucket containing the percentile, capped at the maximum recorded time.
+		 *
+		 * @param percentile Percentile to get, eg. 99.0
+		 */
+		public long getPercentile(double percentile)
+		{
+			long[] counts = new long[ListenerStats.BUCKET_COUNT];
+			long total = 0;
+			for (int bucket = 0; bucket < ListenerStats.BUCKET_COUNT; bucket++)
+			{
+				counts[bucket] = this.buckets.get(bucket);
+				total += counts[bucket];
+			}
+
+			if (total == 0) return 0;
+
+			long target = Math.max(1, (long)Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * total));
+			long seen = 0;
+			for (int bucket = 0; bucket < ListenerStats.BUCKET_COUNT; bucket++)
+			{
+				seen += counts[bucket];
+				if (seen >= target)
+				{
+					return Math.min(ListenerStats.getBucketUpperBound(bucket), this.getMaxTime());
+				}
+			}
+
+			return this.getMaxTime();
+		}
+
+		/**
+		 * Values below SUB_BUCKET_COUNT get a bucket each, above that each power of two is split into SUB_BUCKET_COUNT
+		 * buckets of equal width
+		 *
+		 * @param value
+		 */
+		static int getBucket(long value)
+		{
+			if (value < ListenerStats.SUB_BUCKET_COUNT) return (int)value;
+			if (value > ListenerStats.MAX_VALUE) value = ListenerStats.MAX_VALUE;
+
+			int shift = (63 - Long.numberOfLeadingZeros(value)) - ListenerStats.SUB_BUCKET_BITS;
+			return (shift + 1) * ListenerStats.SUB_BUCKET_COUNT + (int)(value >>> shift) - ListenerStats.SUB_BUCKET_COUNT;
+		}
+
+		/**
+		 * @param bucket
+		 */
+		static long getBucketUpperBound(int bucket)
+		{
+			if (bucket < ListenerStats.SUB_BUCKET_COUNT) return bucket;
+
+			int shift = bucket / ListenerStats.SUB_BUCKET_COUNT - 1;
+			long subBucket = ListenerStats.SUB_BUCKET_COUNT + bucket % ListenerStats.SUB_BUCKET_COUNT;
+			return ((subBucket + 1) << shift) - 1;
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.eventName + " -> " + this.listenerName;
+		}
+	}
+
+	/**
+	 * Stats for each listener, indexed by the listener ID baked into the proxy. Replaced (never modified) when listeners
+	 * are registered so that record() can read it without locking
+	 */
+	private static volatile ListenerStats[] listeners = new ListenerStats[0];
+
+	private EventProfiler()
+	{
+	}
+
+	/**
+	 * Register a listener invokation which is being generated into the proxy, returns the ID to pass to record()
+	 *
+	 * @param event
+	 * @param listener
+	 */
+	static synchronized int register(Event event, MethodInfo listener)
+	{
+		ListenerStats[] listeners = Arrays.copyOf(EventProfiler.listeners, EventProfiler.listeners.length + 1);
+		listeners[listeners.length - 1] = new ListenerStats(event.getName(), listener.ownerRef.replace('/', '.') + "." + listener.getOrInflectName(event.getName()));
+		EventProfiler.listeners = listeners;
+		return listeners.length - 1;
+	}
+
+	/**
+	 * Called by the generated event proxy after each listener returns
+	 *
+	 * @param listenerId ID returned by register()
+	 * @param elapsed Time spent in the listener, in nanoseconds
+	 */
+	public static void record(int listenerId, long elapsed)
+	{
+		ListenerStats[] listeners = EventProfiler.listeners;
+		if (listenerId >= 0 && listenerId < listeners.length)
+		{
+			listeners[listenerId].record(elapsed);
+		}
+	}
+
+	/**
+	 * Get the number of listener invokations which have been registered
+	 */
+	public static int getListenerCount()
+	{
+		return EventProfiler.listeners.length;
+	}
+
+	/**
+	 * Get stats for all registered listeners, in registration order
+	 */
+	public static List<ListenerStats> getListenerStats()
+	{
+		return Collections.unmodifiableList(Arrays.asList(EventProfiler.listeners));
+	}
+
+	/**
+	 * Get the listeners with the highest value for the specified percentile, slowest first
+	 *
+	 * @param percentile Percentile to compare, eg. 99.0
+	 * @param count Maximum number of listeners to return
+	 */
+	public static List<ListenerStats> getSlowestByPercentile(double percentile, int count)
+	{
+		List<ListenerStats> stats = EventProfiler.getCalledListeners();
+		long[] times = new long[stats.size()];
+		for (int i = 0; i < times.length; i++)
+		{
+			times[i] = stats.get(i).getPercentile(percentile);
+		}
+
+		return EventProfiler.getSlowest(stats, times, count);
+	}
+
+	/**
+	 * Get the listeners with the highest total time, slowest first
+	 *
+	 * @param count Maximum number of listeners to return
+	 */
+	public static List<ListenerStats> getSlowestByTotalTime(int count)
+	{
+		List<ListenerStats> stats = EventProfiler.getCalledListeners();
+		long[] times = new long[stats.size()];
+		for (int i = 0; i < times.length; i++)
+		{
+			times[i] = stats.get(i).getTotalTime();
+		}
+
+		return EventProfiler.getSlowest(stats, times, count);
+	}
+
+	/**
+	 * Sort the supplied stats by the supplied times (which are snapshotted first since the stats are live) and return
+	 * the first count entries
+	 *
+	 * @param stats
+	 * @param times
+	 * @param count
+	 */
+	private static List<ListenerStats> getSlowest(List<ListenerStats> stats, final long[] times, int count)
+	{
+		List<Integer> order = new ArrayList<Integer>();
+		for (int i = 0; i < times.length; i++)
+		{
+			order.add(i);
+		}
+
+		Collections.sort(order, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer a, Integer b)
+			{
+				long aTime = times[a], bTime = times[b];
+				return aTime < bTime ? 1 : aTime > bTime ? -1 : 0;
+			}
+		});
+
+		List<ListenerStats> slowest = new ArrayList<ListenerStats>();
+		for (int i = 0; i < order.size() && i < count; i++)
+		{
+			slowest.add(stats.get(order.get(i)));
+		}
+
+		return slowest;
+	}
+
+	private static List<ListenerStats> getCalledListeners()
+	{
+		List<ListenerStats> called = new ArrayList<ListenerStats>();
+		for (ListenerStats stats : EventProfiler.listeners)
+		{
+			if (stats.getCount() > 0) called.add(stats);
+		}
+
+		return called;
+	}
+
+	/**
+	 * Clear all recorded timings
+	 */
+	public static void reset()
+	{
+		for (ListenerStats stats : EventProfiler.listeners)
+		{
+			stats.reset();
+		}
+	}
+
+	/**
+	 * Log the slowest listeners by p99 and by total time
+	 */
+	public static void dump()
+	{
+		if (!EventProfiler.ENABLED)
+		{
+			LiteLoaderLogger.info("Event profiling is not enabled, start the game with -Dliteloader.debug.profileevents=true");
+			return;
+		}
+
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		LiteLoaderLogger.info("Event listener timings, slowest by p99");
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		for (ListenerStats stats : EventProfiler.getSlowestByPercentile(99.0, EventProfiler.TOP_LISTENERS_LOGGED))
+		{
+			EventProfiler.dump(stats);
+		}
+
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		LiteLoaderLogger.info("Event listener timings, slowest by total time");
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+		for (ListenerStats stats : EventProfiler.getSlowestByTotalTime(EventProfiler.TOP_LISTENERS_LOGGED))
+		{
+			EventProfiler.dump(stats);
+		}
+		LiteLoaderLogger.info(ClassTransformer.HORIZONTAL_RULE);
+	}
+
+	private static void dump(ListenerStats stats)
+	{
+		LiteLoaderLogger.info("%10.2fms total %9.1fus p50 %9.1fus p99 %9.1fus max %8d calls  %s", stats.getTotalTime() / 1000000.0,
+				stats.getPercentile(50.0) / 1000.0, stats.getPercentile(99.0) / 1000.0, stats.getMaxTime() / 1000.0, stats.getCount(), stats);
+	}
+}
@@ -1,11 +1,14 @@
 package com.mumfrey.liteloader.transformers.event;
 
+import java.util.Arrays;
+
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.InsnNode;
 import org.objectweb.asm.tree.MethodNode;
 
 import com.mumfrey.liteloader.core.runtime.Obf;
+import com.mumfrey.liteloader.transformers.BakedClassCache;
 import com.mumfrey.liteloader.transformers.ClassTransformer;
 
 /**
@@ -45,8 +48,18 @@ public class EventProxyTransformer extends ClassTransformer
 
 	private byte[] transformEventProxy(String transformedName, byte[] basicClass, int proxyIndex)
 	{
+		String cacheKey = BakedClassCache.getKey(Obf.EventProxy.name, transformedName, proxyIndex, Event.getProxyDescriptor(), Arrays.hashCode(basicClass));
+		byte[] cachedBytes = BakedClassCache.get(cacheKey);
+		if (cachedBytes != null)
+		{
+			Event.onProxyLoadedFromCache(transformedName);
+			return cachedBytes;
+		}
+		
 		ClassNode classNode = this.getProxyByteCode(transformedName, basicClass, proxyIndex);
-		return this.writeClass(Event.populateProxy(classNode, proxyIndex == 0 ? 1 : proxyIndex));
+		byte[] bytes = this.writeClass(Event.populateProxy(classNode, proxyIndex == 0 ? 1 : proxyIndex));
+		BakedClassCache.put(cacheKey, bytes);
+		return bytes;
 	}
 
 	private ClassNode getProxyByteCode(String transformedName, byte[] basicClass, int proxyIndex)
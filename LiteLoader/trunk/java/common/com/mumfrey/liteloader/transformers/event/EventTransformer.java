@@ -3,9 +3,9 @@ package com.mumfrey.liteloader.transformers.event;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -17,6 +17,7 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.LocalVariableNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.util.CheckClassAdapter;
@@ -67,6 +68,12 @@ public final class EventTransformer extends ClassTransformer
 	 */
 	private static Map<String, Map<String, Map<Event, InjectionPoint>>> eventMappings = new HashMap<String, Map<String, Map<Event, InjectionPoint>>>();
 	
+	/**
+	 * Injection plans for each target class, these index the same event maps as eventMappings but by method name and
+	 * then descriptor, so that methods can be matched without building a signature string for every method in the class
+	 */
+	private static Map<String, InjectionPlan> injectionPlans = new HashMap<String, InjectionPlan>();
+	
 	private static AccessorTransformer accessorTransformer;
 	
 	private int globalEventID = 0;
@@ -158,26 +165,85 @@ public final class EventTransformer extends ClassTransformer
 		{
 			return this.events.iterator().next();
 		}
-
-		public void addEventsToHandler(MethodNode handler)
+		
+		/**
+		 * Split the events into groups which can share a handler: events which use an EventInfo first, followed by
+		 * events which don't. Events without an EventInfo only get the direct fast path when they are alone at this
+		 * point, otherwise they get their own handler call after the EventInfo chain.
+		 */
+		public List<Set<Event>> getHandlerGroups()
 		{
+			Set<Event> eventInfoEvents = new TreeSet<Event>();
+			Set<Event> directEvents = new TreeSet<Event>();
 			for (Event event : this.events)
 			{
-				event.addToHandler(handler);
+				(event.hasEventInfo() ? eventInfoEvents : directEvents).add(event);
 			}
+			
+			List<Set<Event>> groups = new ArrayList<Set<Event>>(2);
+			if (eventInfoEvents.size() > 0) groups.add(eventInfoEvents);
+			if (directEvents.size() > 0) groups.add(directEvents);
+			return groups;
 		}
+	}
+	
+	/**
+	 * Events to inject into a single target class
+	 */
+	static final class InjectionPlan
+	{
+		/**
+		 * Method name -> method descriptor -> events to inject
+		 */
+		private final Map<String, Map<String, Map<Event, InjectionPoint>>> methods = new HashMap<String, Map<String, Map<Event, InjectionPoint>>>();
 
-		public boolean isCancellable()
+		void add(String methodName, String methodDesc, Map<Event, InjectionPoint> events)
 		{
-			boolean cancellable = false;
-			for (Event event : this.events)
-				cancellable |= event.isCancellable();
-			return cancellable;
+			Map<String, Map<Event, InjectionPoint>> descs = this.methods.get(methodName);
+			if (descs == null)
+			{
+				descs = new HashMap<String, Map<Event, InjectionPoint>>(4);
+				this.methods.put(methodName, descs);
+			}
+			
+			descs.put(methodDesc == null ? "" : methodDesc, events);
+		}
+		
+		/**
+		 * Get the events to inject into the specified method, returns null if there are none
+		 * 
+		 * @param method
+		 */
+		Map<Event, InjectionPoint> get(MethodNode method)
+		{
+			Map<String, Map<Event, InjectionPoint>> descs = this.methods.get(method.name);
+			return descs != null ? descs.get(method.desc) : null;
+		}
+		
+		/**
+		 * Get whether any of the injection points in this plan capture locals
+		 */
+		boolean captureLocals()
+		{
+			for (Map<String, Map<Event, InjectionPoint>> descs : this.methods.values())
+			{
+				for (Map<Event, InjectionPoint> methodInjections : descs.values())
+				{
+					for (InjectionPoint injectionPoint : methodInjections.values())
+					{
+						if (injectionPoint.captureLocals()) return true;
+					}
+				}
+			}
+			
+			return false;
 		}
 	}
 	
-	static void addEvent(Event event, String className, String signature, InjectionPoint injectionPoint)
+	static void addEvent(Event event, String className, String methodName, String methodDesc, InjectionPoint injectionPoint)
 	{
+		String signature = MethodInfo.generateSignature(methodName, methodDesc);
+		
 		Map<String, Map<Event, InjectionPoint>> mappings = EventTransformer.eventMappings.get(className);
 		if (mappings == null)
 		{
@@ -190,6 +256,15 @@ public final class EventTransformer extends ClassTransformer
 		{
 			events = new LinkedHashMap<Event, InjectionPoint>();
 			mappings.put(signature, events);
+			
+			InjectionPlan plan = EventTransformer.injectionPlans.get(className);
+			if (plan == null)
+			{
+				plan = new InjectionPlan();
+				EventTransformer.injectionPlans.put(className, plan);
+			}
+			
+			plan.add(methodName, methodDesc, events);
 		}
 		
 		events.put(event, injectionPoint);
@@ -217,9 +292,10 @@ public final class EventTransformer extends ClassTransformer
 	@Override
 	public final byte[] transform(String name, String transformedName, byte[] basicClass)
 	{
-		if (basicClass != null && EventTransformer.eventMappings.containsKey(transformedName))
+		InjectionPlan plan = basicClass != null ? EventTransformer.injectionPlans.get(transformedName) : null;
+		if (plan != null)
 		{
-			return this.injectEvents(name, transformedName, basicClass, EventTransformer.eventMappings.get(transformedName));
+			return this.injectEvents(name, transformedName, basicClass, plan);
 		}
 		
 		if (EventTransformer.accessorTransformer != null)
@@ -230,19 +306,29 @@ public final class EventTransformer extends ClassTransformer
 		return basicClass;
 	}
 
-	private byte[] injectEvents(String name, String transformedName, byte[] basicClass, Map<String, Map<Event, InjectionPoint>> mappings)
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.ClassTransformer#isPipelineCompatible()
+	 */
+	@Override
+	protected boolean isPipelineCompatible()
 	{
-		if (mappings == null) return basicClass;
+		// Dumping needs the bytes for each class as they leave this transformer
+		return !EventTransformer.DUMP;
+	}
+
+	private byte[] injectEvents(String name, String transformedName, byte[] basicClass, InjectionPlan plan)
+	{
+		if (plan == null) return basicClass;
 		
-		ClassNode classNode = this.readClass(basicClass, true);
+		// Locals capture relies on the stack map frames, so make sure they are current if we're running in a pipeline
+		ClassNode classNode = this.readClass(basicClass, true, plan.captureLocals());
 
 		for (MethodNode method : classNode.methods)
 		{
-			String signature = MethodInfo.generateSignature(method.name, method.desc);
-			Map<Event, InjectionPoint> methodInjections = mappings.get(signature);
+			Map<Event, InjectionPoint> methodInjections = plan.get(method);
 			if (methodInjections != null)
 			{
-				this.injectIntoMethod(classNode, signature, method, methodInjections);
+				this.injectIntoMethod(classNode, method, methodInjections);
 			}
 		}
 		
@@ -273,11 +359,10 @@ public final class EventTransformer extends ClassTransformer
 
 	/**
 	 * @param classNode
-	 * @param signature
 	 * @param method
 	 * @param methodInjections
 	 */
-	void injectIntoMethod(ClassNode classNode, String signature, MethodNode method, Map<Event, InjectionPoint> methodInjections)
+	void injectIntoMethod(ClassNode classNode, MethodNode method, Map<Event, InjectionPoint> methodInjections)
 	{
 		Map<AbstractInsnNode, Injection> injectionPoints = this.findInjectionPoints(classNode, method, methodInjections);
 		
@@ -301,15 +386,47 @@ public final class EventTransformer extends ClassTransformer
 	private Map<AbstractInsnNode, Injection> findInjectionPoints(ClassNode classNode, MethodNode method, Map<Event, InjectionPoint> methodInjections)
 	{
 		ReadOnlyInsnList insns = new ReadOnlyInsnList(method.instructions);
-		Collection<AbstractInsnNode> nodes = new ArrayList<AbstractInsnNode>(32);
-		Map<AbstractInsnNode, Injection> injectionPoints = new LinkedHashMap<AbstractInsnNode, Injection>();
+		int eventCount = methodInjections.size();
+		
+		@SuppressWarnings("unchecked")
+		List<AbstractInsnNode>[] eventNodes = new List[eventCount];
+		InjectionPoint.Scan[] scans = new InjectionPoint.Scan[eventCount];
+		boolean[] found = new boolean[eventCount];
+		int scanCount = 0;
+		
+		int eventIndex = 0;
 		for (Entry<Event, InjectionPoint> eventEntry : methodInjections.entrySet())
 		{
 			Event event = eventEntry.getKey();
 			event.attach(method);
 			InjectionPoint injectionPoint = eventEntry.getValue();
-			nodes.clear();
-			if (injectionPoint.find(method.desc, insns, nodes, event))
+			eventNodes[eventIndex] = new ArrayList<AbstractInsnNode>(8);
+			scans[eventIndex] = injectionPoint.beginScan(method.desc, insns, eventNodes[eventIndex], event);
+			if (scans[eventIndex] != null)
+			{
+				scanCount++;
+			}
+			else
+			{
+				found[eventIndex] = injectionPoint.find(method.desc, insns, eventNodes[eventIndex], event);
+			}
+			eventIndex++;
+		}
+		
+		if (scanCount > 0)
+		{
+			EventTransformer.scan(insns, scans, scanCount, found);
+		}
+		
+		// Merge the results in event order, so that the injection order is the same as if each point was searched separately
+		Map<AbstractInsnNode, Injection> injectionPoints = new LinkedHashMap<AbstractInsnNode, Injection>();
+		eventIndex = 0;
+		for (Entry<Event, InjectionPoint> eventEntry : methodInjections.entrySet())
+		{
+			Event event = eventEntry.getKey();
+			InjectionPoint injectionPoint = eventEntry.getValue();
+			List<AbstractInsnNode> nodes = eventNodes[eventIndex];
+			if (found[eventIndex++])
 			{
 				for (AbstractInsnNode node : nodes)
 				{
@@ -354,6 +471,40 @@ public final class EventTransformer extends ClassTransformer
 		return injectionPoints;
 	}
 
+	/**
+	 * Feed each insn in the list to all of the supplied scans, so that the method is only traversed once regardless of the
+	 * number of events being injected into it
+	 * 
+	 * @param insns
+	 * @param scans Scans to run, may contain nulls for events which are not scanned
+	 * @param scanCount Number of non-null scans
+	 * @param found Receives the result of each scan
+	 */
+	private static void scan(InsnList insns, InjectionPoint.Scan[] scans, int scanCount, boolean[] found)
+	{
+		InjectionPoint.Scan[] active = scans.clone();
+		
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null && scanCount > 0; insn = insn.getNext())
+		{
+			for (int i = 0; i < active.length; i++)
+			{
+				if (active[i] != null && !active[i].visit(insn))
+				{
+					active[i] = null;
+					scanCount--;
+				}
+			}
+		}
+		
+		for (int i = 0; i < scans.length; i++)
+		{
+			if (scans[i] != null)
+			{
+				found[i] = scans[i].finish();
+			}
+		}
+	}
+
 	/**
 	 * @param classNode
 	 * @param method
@@ -362,15 +513,33 @@ public final class EventTransformer extends ClassTransformer
 	 */
 	private void injectEventsAt(ClassNode classNode, MethodNode method, AbstractInsnNode injectionPoint, Injection injection)
 	{
-		Event head = injection.getHead();
-		
-		Verbosity verbosity = head.isVerbose() ? Verbosity.NORMAL : Verbosity.VERBOSE;
-		LiteLoaderLogger.info(verbosity, "Injecting %s[x%d] in %s in %s", head.getName(), injection.size(), method.name, ClassTransformer.getSimpleClassName(classNode));
-		
-		MethodNode handler = head.inject(injectionPoint, injection.isCancellable(), this.globalEventID, injection.captureLocals(), injection.getLocalTypes());
-		injection.addEventsToHandler(handler);
+		List<Set<Event>> groups = injection.getHandlerGroups();
+		if (groups.size() > 1)
+		{
+			LiteLoaderLogger.info("Events with and without an EventInfo share an injection point for %s in %s in %s, they will be injected separately",
+					injection.getHead().getName(), method.name, ClassTransformer.getSimpleClassName(classNode));
+		}
 		
-		this.globalEventID++;
+		for (Set<Event> events : groups)
+		{
+			Event head = events.iterator().next();
+			
+			Verbosity verbosity = head.isVerbose() ? Verbosity.NORMAL : Verbosity.VERBOSE;
+			LiteLoaderLogger.info(verbosity, "Injecting %s[x%d] in %s in %s", head.getName(), events.size(), method.name, ClassTransformer.getSimpleClassName(classNode));
+			
+			boolean cancellable = false;
+			for (Event event : events)
+				cancellable |= event.isCancellable();
+			
+			// A guard on the head event would also skip any other events in the group, so guards only apply to lone events
+			MethodNode handler = head.inject(injectionPoint, cancellable, events.size() == 1, this.globalEventID, injection.captureLocals(), injection.getLocalTypes());
+			for (Event event : events)
+			{
+				event.addToHandler(handler);
+			}
+			
+			this.globalEventID++;
+		}
 	}
 
 	public static void dumpInjectionState()
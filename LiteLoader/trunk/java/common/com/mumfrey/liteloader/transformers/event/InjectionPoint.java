@@ -1,5 +1,6 @@
 package com.mumfrey.liteloader.transformers.event;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
@@ -25,10 +26,60 @@ import com.google.common.base.Joiner;
  * a separate functional contract and the InjectionPoint's lifespan is not linked to the discovery lifespan, therefore
  * it is important that the InjectionPoint implementation is fully STATELESS.
  * 
+ * Injection points may optionally implement {@code createScan} as well as {@code find}, this allows the EventTransformer
+ * to evaluate the injection points for all of the events in a method in a single pass over the method's insns. Any
+ * per-search state must be kept in the returned Scan and not in the injection point itself.
+ * 
  * @author Adam Mummery-Smith
  */
 public abstract class InjectionPoint
 {	
+	/**
+	 * A single search for injection points which is fed the insns of the method one at a time, this allows the searches for
+	 * several injection points to be carried out with a single pass over the method
+	 * 
+	 * @author Adam Mummery-Smith
+	 */
+	public static abstract class Scan
+	{
+		/**
+		 * Collection of nodes to populate
+		 */
+		protected final Collection<AbstractInsnNode> nodes;
+		
+		protected boolean found;
+		
+		protected Scan(Collection<AbstractInsnNode> nodes)
+		{
+			this.nodes = nodes;
+		}
+		
+		/**
+		 * Inspect the next insn in the method
+		 * 
+		 * @param insn
+		 * @return false if this scan does not need to see any further insns
+		 */
+		public abstract boolean visit(AbstractInsnNode insn);
+		
+		/**
+		 * Called when the scan has finished visiting insns, either because the end of the method was reached or because
+		 * visit() returned false
+		 * 
+		 * @return true if one or more injection points were found
+		 */
+		public boolean finish()
+		{
+			return this.found;
+		}
+		
+		protected void add(AbstractInsnNode insn)
+		{
+			this.nodes.add(insn);
+			this.found = true;
+		}
+	}
+	
 	/**
 	 * Capture locals as well as args
 	 */
@@ -36,6 +87,11 @@ public abstract class InjectionPoint
 	
 	protected boolean logLocals;
 	
+	/**
+	 * Whether this injection point supports scanning, determined on first use, see supportsScan()
+	 */
+	private Boolean supportsScan;
+	
 	/**
 	 * Find injection points in the supplied insn list
 	 * 
@@ -47,6 +103,85 @@ public abstract class InjectionPoint
 	 */
 	public abstract boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event);
 	
+	/**
+	 * Create a scan which finds the same injection points as {@code find} but is fed the insns one at a time, return null
+	 * (the default) if this injection point does not support scanning.
+	 * 
+	 * @param desc Method descriptor
+	 * @param insns Insn list which will be scanned
+	 * @param nodes Collection of nodes to populate
+	 * @param event Event being injected here
+	 */
+	protected InjectionPoint.Scan createScan(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	{
+		return null;
+	}
+	
+	/**
+	 * Get a scan for this injection point, returns null if the injection point does not support scanning or if a subclass
+	 * has overridden {@code find} without also overriding {@code createScan}, in which case {@code find} must be called
+	 * instead.
+	 * 
+	 * @param desc Method descriptor
+	 * @param insns Insn list which will be scanned
+	 * @param nodes Collection of nodes to populate
+	 * @param event Event being injected here
+	 */
+	public final InjectionPoint.Scan beginScan(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	{
+		if (this.supportsScan == null)
+		{
+			this.supportsScan = Boolean.valueOf(InjectionPoint.supportsScan(this.getClass()));
+		}
+		
+		return this.supportsScan.booleanValue() ? this.createScan(desc, insns, nodes, event) : null;
+	}
+	
+	/**
+	 * Run the supplied scan over the whole insn list, for use by implementations of {@code find} 
+	 * 
+	 * @param scan
+	 * @param insns
+	 * @return true if one or more injection points were found
+	 */
+	protected static boolean scan(InjectionPoint.Scan scan, InsnList insns)
+	{
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext())
+		{
+			if (!scan.visit(insn)) break;
+		}
+		
+		return scan.finish();
+	}
+	
+	/**
+	 * A class supports scanning if its most derived createScan() is declared in the same class as, or a subclass of, the
+	 * class which declares its most derived find()
+	 * 
+	 * @param type
+	 */
+	private static boolean supportsScan(Class<? extends InjectionPoint> type)
+	{
+		for (Class<?> clazz = type; clazz != null && clazz != InjectionPoint.class; clazz = clazz.getSuperclass())
+		{
+			if (InjectionPoint.declaresMethod(clazz, "createScan")) return true;
+			if (InjectionPoint.declaresMethod(clazz, "find")) return false;
+		}
+		
+		return false;
+	}
+	
+	private static boolean declaresMethod(Class<?> clazz, String name)
+	{
+		for (Method method : clazz.getDeclaredMethods())
+		{
+			Class<?>[] params = method.getParameterTypes();
+			if (name.equals(method.getName()) && params.length == 4 && params[1] == InsnList.class && params[3] == Event.class) return true;
+		}
+		
+		return false;
+	}
+	
 	/**
 	 * Set whether this injection point should capture local variables as well as method arguments
 	 * 
@@ -1,7 +1,6 @@
 package com.mumfrey.liteloader.transformers.event.inject;
 
 import java.util.Collection;
-import java.util.ListIterator;
 
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
@@ -52,6 +51,74 @@ public class BeforeInvoke extends InjectionPoint
 		}
 	}
 	
+	/**
+	 * State for a single search
+	 */
+	private final class InvokeScan extends InjectionPoint.Scan
+	{
+		private final String desc;
+		
+		private final InsnList insns;
+		
+		private int ordinal = 0;
+		
+		InvokeScan(String desc, InsnList insns, Collection<AbstractInsnNode> nodes)
+		{
+			super(nodes);
+			this.desc = desc;
+			this.insns = insns;
+			
+			if (BeforeInvoke.this.logging)
+			{
+				LiteLoaderLogger.debug(ClassTransformer.HORIZONTAL_RULE);
+				LiteLoaderLogger.debug(BeforeInvoke.this.className + " is searching for an injection point in method with descriptor %s", desc);
+			}
+		}
+		
+		@Override
+		public boolean visit(AbstractInsnNode insn)
+		{
+			if (BeforeInvoke.this.matchesInsn(insn))
+			{
+				String className = BeforeInvoke.this.className;
+				boolean logging = BeforeInvoke.this.logging;
+				InsnInfo nodeInfo = new InsnInfo(insn);
+				
+				if (logging) LiteLoaderLogger.debug(className + " is considering insn NAME=%s DESC=%s OWNER=%s", nodeInfo.name, nodeInfo.desc, nodeInfo.owner);
+				
+				int index = BeforeInvoke.arrayIndexOf(BeforeInvoke.this.methodNames, nodeInfo.name, -1);
+				if (index > -1 && logging) LiteLoaderLogger.debug(className + "   found a matching insn, checking owner/signature...");
+				
+				int ownerIndex = BeforeInvoke.arrayIndexOf(BeforeInvoke.this.methodOwners, nodeInfo.owner, index);
+				int descIndex = BeforeInvoke.arrayIndexOf(BeforeInvoke.this.methodSignatures, nodeInfo.desc, index);
+				if (index > -1 && ownerIndex == index && descIndex == index)
+				{
+					if (logging) LiteLoaderLogger.debug(className + "     found a matching insn, checking preconditions...");
+					if (BeforeInvoke.this.matchesInsn(nodeInfo, this.ordinal))
+					{
+						if (logging) LiteLoaderLogger.debug(className + "         found a matching insn at ordinal %d", this.ordinal);
+						this.add(insn);
+						
+						if (BeforeInvoke.this.ordinal == this.ordinal)
+							return false;
+					}
+					
+					this.ordinal++;
+				}
+			}
+			
+			BeforeInvoke.this.inspectInsn(this.desc, this.insns, insn);
+			return true;
+		}
+		
+		@Override
+		public boolean finish()
+		{
+			if (BeforeInvoke.this.logging) LiteLoaderLogger.debug(ClassTransformer.HORIZONTAL_RULE);
+			return this.found;
+		}
+	}
+	
 	/**
 	 * Method name(s) to search for, usually this will contain the different names of the method for different obfuscations (mcp, srg, notch)
 	 */
@@ -244,54 +311,16 @@ public class BeforeInvoke extends InjectionPoint
 	@Override
 	public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
 	{
-		int ordinal = 0;
-		boolean found = false;
-
-		if (this.logging)
-		{
-			LiteLoaderLogger.debug(ClassTransformer.HORIZONTAL_RULE);
-			LiteLoaderLogger.debug(this.className + " is searching for an injection point in method with descriptor %s", desc);
-		}
-		
-		ListIterator<AbstractInsnNode> iter = insns.iterator();
-		while (iter.hasNext())
-		{
-			AbstractInsnNode insn = iter.next();
-			
-			if (this.matchesInsn(insn))
-			{
-				InsnInfo nodeInfo = new InsnInfo(insn);
-				
-				if (this.logging) LiteLoaderLogger.debug(this.className + " is considering insn NAME=%s DESC=%s OWNER=%s", nodeInfo.name, nodeInfo.desc, nodeInfo.owner);
-				
-				int index = BeforeInvoke.arrayIndexOf(this.methodNames, nodeInfo.name, -1);
-				if (index > -1 && this.logging) LiteLoaderLogger.debug(this.className + "   found a matching insn, checking owner/signature...");
-				
-				int ownerIndex = BeforeInvoke.arrayIndexOf(this.methodOwners, nodeInfo.owner, index);
-				int descIndex = BeforeInvoke.arrayIndexOf(this.methodSignatures, nodeInfo.desc, index);
-				if (index > -1 && ownerIndex == index && descIndex == index)
-				{
-					if (this.logging) LiteLoaderLogger.debug(this.className + "     found a matching insn, checking preconditions...");
-					if (this.matchesInsn(nodeInfo, ordinal))
-					{
-						if (this.logging) LiteLoaderLogger.debug(this.className + "         found a matching insn at ordinal %d", ordinal);
-						nodes.add(insn);
-						found = true;
-						
-						if (this.ordinal == ordinal)
-							break;
-					}
-					
-					ordinal++;
-				}
-			}
-
-			this.inspectInsn(desc, insns, insn);
-		}
-		
-		if (this.logging) LiteLoaderLogger.debug(ClassTransformer.HORIZONTAL_RULE);
-		
-		return found;
+		return InjectionPoint.scan(new InvokeScan(desc, insns, nodes), insns);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.event.InjectionPoint#createScan(java.lang.String, org.objectweb.asm.tree.InsnList, java.util.Collection, com.mumfrey.liteloader.transformers.event.Event)
+	 */
+	@Override
+	protected InjectionPoint.Scan createScan(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	{
+		return new InvokeScan(desc, insns, nodes);
 	}
 
 	protected boolean matchesInsn(AbstractInsnNode insn)
@@ -1,7 +1,6 @@
 package com.mumfrey.liteloader.transformers.event.inject;
 
 import java.util.Collection;
-import java.util.ListIterator;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
@@ -44,30 +43,45 @@ public class BeforeNew extends InjectionPoint
 		}
 	}
 
-	@Override
-	public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	private final class NewScan extends InjectionPoint.Scan
 	{
-		boolean found = false;
-		int ordinal = 0;
+		private int ordinal = 0;
+
+		NewScan(Collection<AbstractInsnNode> nodes)
+		{
+			super(nodes);
+		}
 		
-		ListIterator<AbstractInsnNode> iter = insns.iterator();
-		while (iter.hasNext())
+		@Override
+		public boolean visit(AbstractInsnNode insn)
 		{
-			AbstractInsnNode insn = iter.next();
-			
-			if (insn instanceof TypeInsnNode && insn.getOpcode() == Opcodes.NEW && this.matchesOwner((TypeInsnNode)insn))
+			if (insn instanceof TypeInsnNode && insn.getOpcode() == Opcodes.NEW && BeforeNew.this.matchesOwner((TypeInsnNode)insn))
 			{
-				if (this.ordinal == -1 || this.ordinal == ordinal)
+				if (BeforeNew.this.ordinal == -1 || BeforeNew.this.ordinal == this.ordinal)
 				{
-					nodes.add(insn);
-					found = true;
+					this.add(insn);
 				}
 				
-				ordinal++;
+				this.ordinal++;
 			}
+			
+			return true;
 		}
-		
-		return found;
+	}
+
+	@Override
+	public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	{
+		return InjectionPoint.scan(new NewScan(nodes), insns);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.event.InjectionPoint#createScan(java.lang.String, org.objectweb.asm.tree.InsnList, java.util.Collection, com.mumfrey.liteloader.transformers.event.Event)
+	 */
+	@Override
+	protected InjectionPoint.Scan createScan(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	{
+		return new NewScan(nodes);
 	}
 
 	private boolean matchesOwner(TypeInsnNode insn)
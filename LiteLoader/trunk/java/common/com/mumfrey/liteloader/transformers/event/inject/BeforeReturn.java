@@ -1,7 +1,6 @@
 package com.mumfrey.liteloader.transformers.event.inject;
 
 import java.util.Collection;
-import java.util.ListIterator;
 
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -32,30 +31,47 @@ public class BeforeReturn extends InjectionPoint
 		this.ordinal = Math.max(-1, ordinal);
 	}
 
-	@Override
-	public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	private final class ReturnScan extends InjectionPoint.Scan
 	{
-		boolean found = false;
-		int returnOpcode = Type.getReturnType(desc).getOpcode(Opcodes.IRETURN);
-		int ordinal = 0;
+		private final int returnOpcode;
 		
-		ListIterator<AbstractInsnNode> iter = insns.iterator();
-		while (iter.hasNext())
+		private int ordinal = 0;
+
+		ReturnScan(String desc, Collection<AbstractInsnNode> nodes)
 		{
-			AbstractInsnNode insn = iter.next();
-			
-			if (insn instanceof InsnNode && insn.getOpcode() == returnOpcode)
+			super(nodes);
+			this.returnOpcode = Type.getReturnType(desc).getOpcode(Opcodes.IRETURN);
+		}
+		
+		@Override
+		public boolean visit(AbstractInsnNode insn)
+		{
+			if (insn instanceof InsnNode && insn.getOpcode() == this.returnOpcode)
 			{
-				if (this.ordinal == -1 || this.ordinal == ordinal)
+				if (BeforeReturn.this.ordinal == -1 || BeforeReturn.this.ordinal == this.ordinal)
 				{
-					nodes.add(insn);
-					found = true;
+					this.add(insn);
 				}
 				
-				ordinal++;
+				this.ordinal++;
 			}
+			
+			return true;
 		}
-		
-		return found;
+	}
+
+	@Override
+	public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	{
+		return InjectionPoint.scan(new ReturnScan(desc, nodes), insns);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.event.InjectionPoint#createScan(java.lang.String, org.objectweb.asm.tree.InsnList, java.util.Collection, com.mumfrey.liteloader.transformers.event.Event)
+	 */
+	@Override
+	protected InjectionPoint.Scan createScan(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	{
+		return new ReturnScan(desc, nodes);
 	}
 }
@@ -1,7 +1,6 @@
 package com.mumfrey.liteloader.transformers.event.inject;
 
 import java.util.Collection;
-import java.util.ListIterator;
 
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.InsnList;
@@ -39,29 +38,44 @@ public class JumpInsnPoint extends InjectionPoint
 		this.ordinal = ordinal;
 	}
 	
-	@Override
-	public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	private final class JumpScan extends InjectionPoint.Scan
 	{
-		boolean found = false;
-		int ordinal = 0;
+		private int ordinal = 0;
+
+		JumpScan(Collection<AbstractInsnNode> nodes)
+		{
+			super(nodes);
+		}
 		
-		ListIterator<AbstractInsnNode> iter = insns.iterator();
-		while (iter.hasNext())
+		@Override
+		public boolean visit(AbstractInsnNode insn)
 		{
-			AbstractInsnNode insn = iter.next();
-			
-			if (insn instanceof JumpInsnNode && (this.opCode == -1 || insn.getOpcode() == this.opCode))
+			if (insn instanceof JumpInsnNode && (JumpInsnPoint.this.opCode == -1 || insn.getOpcode() == JumpInsnPoint.this.opCode))
 			{
-				if (this.ordinal == -1 || this.ordinal == ordinal)
+				if (JumpInsnPoint.this.ordinal == -1 || JumpInsnPoint.this.ordinal == this.ordinal)
 				{
-					nodes.add(insn);
-					found = true;
+					this.add(insn);
 				}
 				
-				ordinal++;
+				this.ordinal++;
 			}
+			
+			return true;
 		}
-		
-		return found;
+	}
+	
+	@Override
+	public boolean find(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	{
+		return InjectionPoint.scan(new JumpScan(nodes), insns);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.mumfrey.liteloader.transformers.event.InjectionPoint#createScan(java.lang.String, org.objectweb.asm.tree.InsnList, java.util.Collection, com.mumfrey.liteloader.transformers.event.Event)
+	 */
+	@Override
+	protected InjectionPoint.Scan createScan(String desc, InsnList insns, Collection<AbstractInsnNode> nodes, Event event)
+	{
+		return new JumpScan(nodes);
 	}
 }
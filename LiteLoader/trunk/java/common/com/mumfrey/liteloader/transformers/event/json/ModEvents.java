@@ -62,7 +62,7 @@ public class ModEvents implements EnumerationObserver
 		}
 	}
 	
-	private static final String DEFINITION_FILENAME = "events.json";
+	public static final String DEFINITION_FILENAME = "events.json";
 	
 	private static Map<String, ModEventDefinition> events = new HashMap<String, ModEventDefinition>();
 	
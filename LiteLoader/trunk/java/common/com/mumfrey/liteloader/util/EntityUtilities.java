@@ -3,15 +3,27 @@ package com.mumfrey.liteloader.util;
 import net.minecraft.entity.Entity;
 import net.minecraft.util.MovingObjectPosition;
 import net.minecraft.util.Vec3;
+import net.minecraft.world.World;
 
 public abstract class EntityUtilities
 {
 	public static MovingObjectPosition rayTraceFromEntity(Entity entity, double traceDistance, float partialTicks)
 	{
-		Vec3 var4 = EntityUtilities.getPositionEyes(entity, partialTicks);
-		Vec3 var5 = entity.getLook(partialTicks);
-		Vec3 var6 = var4.addVector(var5.xCoord * traceDistance, var5.yCoord * traceDistance, var5.zCoord * traceDistance);
-		return entity.worldObj.rayTraceBlocks(var4, var6, false, false, true);
+		return EntityUtilities.rayTrace(entity.worldObj, EntityUtilities.getPositionEyes(entity, partialTicks), entity.getLook(partialTicks), traceDistance);
+	}
+	
+	/**
+	 * Trace from the specified origin along the specified look vector, in the same way as rayTraceFromEntity
+	 * 
+	 * @param world
+	 * @param origin
+	 * @param look
+	 * @param traceDistance
+	 */
+	public static MovingObjectPosition rayTrace(World world, Vec3 origin, Vec3 look, double traceDistance)
+	{
+		Vec3 end = origin.addVector(look.xCoord * traceDistance, look.yCoord * traceDistance, look.zCoord * traceDistance);
+		return world.rayTraceBlocks(origin, end, false, false, true);
 	}
 	
 	public static Vec3 getPositionEyes(Entity entity, float partialTicks)
@@ -0,0 +1,88 @@
+package com.mumfrey.liteloader.util;
+
+import net.minecraft.entity.Entity;
+
+/**
+ * Mutable counterpart to Position, used where a position is needed for every tick or packet so that a single
+ * instance can be reused instead of allocating a new Position each time
+ * 
+ * @author Adam Mummery-Smith
+ */
+public class MutablePosition
+{
+	public double x, y, z;
+	
+	public float yaw, pitch;
+	
+	/**
+	 * True if the position has been set since it was last cleared
+	 */
+	private boolean isSet;
+	
+	public MutablePosition()
+	{
+	}
+	
+	public MutablePosition(double x, double y, double z, float yaw, float pitch)
+	{
+		this.set(x, y, z, yaw, pitch);
+	}
+	
+	public boolean isSet()
+	{
+		return this.isSet;
+	}
+	
+	public MutablePosition set(double x, double y, double z, float yaw, float pitch)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.yaw = yaw;
+		this.pitch = pitch;
+		this.isSet = true;
+		return this;
+	}
+	
+	public MutablePosition set(Position position)
+	{
+		return this.set(position.xCoord, position.yCoord, position.zCoord, position.yaw, position.pitch);
+	}
+	
+	public MutablePosition set(Entity entity, boolean usePrevious)
+	{
+		return usePrevious ? this.set(entity.prevPosX, entity.prevPosY, entity.prevPosZ, entity.prevRotationYaw, entity.prevRotationPitch)
+				: this.set(entity.posX, entity.posY, entity.posZ, entity.rotationYaw, entity.rotationPitch);
+	}
+	
+	/**
+	 * Mark this position as not set, the coordinates are left unchanged
+	 */
+	public void clear()
+	{
+		this.isSet = false;
+	}
+	
+	/**
+	 * Get an immutable copy of this position
+	 */
+	public Position toPosition()
+	{
+		return new Position(this.x, this.y, this.z, this.yaw, this.pitch);
+	}
+	
+	public void applyTo(Entity entity)
+	{
+		entity.posX = this.x;
+		entity.posY = this.y;
+		entity.posZ = this.z;
+		entity.rotationYaw = this.yaw;
+		entity.rotationPitch = this.pitch;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "(" + this.x + ", " + this.y + ", " + this.z + ", " + this.yaw + ", " + this.pitch + ")";
+	}
+}
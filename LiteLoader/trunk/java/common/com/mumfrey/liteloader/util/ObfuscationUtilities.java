@@ -6,6 +6,7 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.BlockPos;
 
 import com.mumfrey.liteloader.core.runtime.Obf;
+import com.mumfrey.liteloader.transformers.TransformerProfiler;
 
 public class ObfuscationUtilities
 {
@@ -37,7 +38,7 @@ public class ObfuscationUtilities
 	public static boolean fmlIsPresent()
 	{
 		for (IClassTransformer transformer : Launch.classLoader.getTransformers())
-			if (transformer.getClass().getName().contains("fml")) return true;
+			if (TransformerProfiler.unwrap(transformer).getClass().getName().contains("fml")) return true;
 
 		return false;
 	}
@@ -27,6 +27,17 @@ public class PrivateFields<P, T>
 	 */
 	private final String fieldName;
 	
+	/**
+	 * Field resolved on first access, with accessibility already set
+	 */
+	private volatile Field field;
+	
+	/**
+	 * Separate field instance used by setFinal with the FINAL modifier removed, kept apart from the field used by
+	 * get and set because the reflection accessor is bound to the modifiers the first time a field is used
+	 */
+	private volatile Field finalField;
+	
 	private boolean errorReported = false;
 	
 	/**
@@ -40,6 +51,42 @@ public class PrivateFields<P, T>
 		this.fieldName = ObfuscationUtilities.getObfuscatedFieldName(obf);
 	}
 	
+	/**
+	 * Get the field, resolving it on the first call
+	 */
+	protected Field getField() throws NoSuchFieldException
+	{
+		Field field = this.field;
+		if (field == null)
+		{
+			field = this.parentClass.getDeclaredField(this.fieldName);
+			field.setAccessible(true);
+			this.field = field;
+		}
+		
+		return field;
+	}
+	
+	/**
+	 * Get the field with the FINAL modifier removed, resolving it on the first call
+	 */
+	protected Field getFinalField() throws NoSuchFieldException, IllegalAccessException
+	{
+		Field field = this.finalField;
+		if (field == null)
+		{
+			Field modifiers = Field.class.getDeclaredField("modifiers");
+			modifiers.setAccessible(true);
+			
+			field = this.parentClass.getDeclaredField(this.fieldName);
+			modifiers.setInt(field, field.getModifiers() & ~Modifier.FINAL);
+			field.setAccessible(true);
+			this.finalField = field;
+		}
+		
+		return field;
+	}
+	
 	/**
 	 * Get the current value of this field on the instance class supplied
 	 * 
@@ -51,9 +98,7 @@ public class PrivateFields<P, T>
 	{
 		try
 		{
-			Field field = this.parentClass.getDeclaredField(this.fieldName);
-			field.setAccessible(true);
-			return (T)field.get(instance);
+			return (T)this.getField().get(instance);
 		}
 		catch (Exception ex)
 		{
@@ -77,9 +122,7 @@ public class PrivateFields<P, T>
 	{
 		try
 		{
-			Field field = this.parentClass.getDeclaredField(this.fieldName);
-			field.setAccessible(true);
-			field.set(instance, value);
+			this.getField().set(instance, value);
 		}
 		catch (Exception ex)
 		{
@@ -104,13 +147,7 @@ public class PrivateFields<P, T>
 	{
 		try
 		{
-			Field modifiers = Field.class.getDeclaredField("modifiers");
-			modifiers.setAccessible(true);
-			
-			Field field = this.parentClass.getDeclaredField(this.fieldName);
-			modifiers.setInt(field, field.getModifiers() & ~Modifier.FINAL);
-			field.setAccessible(true);
-			field.set(instance, value);
+			this.getFinalField().set(instance, value);
 		}
 		catch (Exception ex)
 		{
@@ -1,7 +1,10 @@
 package net.eq2online.permissions;
 
 import java.io.*;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -39,6 +42,12 @@ public class ReplicatedPermissionsContainer implements Serializable
 	 */
 	public long remoteCacheTimeSeconds = 600L;	// 10 minutes
 	
+	/**
+	 * Highest wire format version understood by the sender, hosts which predate this field send (and are assumed to
+	 * support) only the serialised format
+	 */
+	public int supportedFormat = 0;
+	
 	public static final String CHANNEL = "PERMISSIONSREPL";
 	
 	public ReplicatedPermissionsContainer()
@@ -72,6 +81,38 @@ public class ReplicatedPermissionsContainer implements Serializable
 		if (this.remoteCacheTimeSeconds < 0) this.remoteCacheTimeSeconds = 600L;
 	}
 
+	/**
+	 * Object input stream which only resolves the classes which make up a container, so that a remote host can't use
+	 * the container to deserialise arbitrary classes
+	 */
+	private static class ContainerInputStream extends ObjectInputStream
+	{
+		private static final Set<String> permittedClasses = new HashSet<String>(Arrays.asList(new String[] {
+			ReplicatedPermissionsContainer.class.getName(),
+			Number.class.getName(),
+			Float.class.getName(),
+			TreeSet.class.getName(),
+			HashSet.class.getName(),
+			LinkedHashSet.class.getName()
+		}));
+		
+		ContainerInputStream(InputStream in) throws IOException
+		{
+			super(in);
+		}
+		
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+		{
+			if (!ContainerInputStream.permittedClasses.contains(desc.getName()))
+			{
+				throw new InvalidClassException(desc.getName(), "Class is not permitted in a replicated permissions container");
+			}
+			
+			return super.resolveClass(desc);
+		}
+	}
+	
 	/**
 	 * Serialise this container to a byte array for transmission to a remote host
 	 */
@@ -104,7 +145,7 @@ public class ReplicatedPermissionsContainer implements Serializable
 			byte[] payload = new byte[readableBytes];
 			data.readBytes(payload);
 			
-			ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(payload));
+			ObjectInputStream inputStream = new ContainerInputStream(new ByteArrayInputStream(payload));
 			ReplicatedPermissionsContainer object = (ReplicatedPermissionsContainer)inputStream.readObject();
 			return object;
 		}